@@ -0,0 +1,283 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.parser.FetchedPage;
+import com.udacity.webcrawler.parser.PageFetcher;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.WordDictionary;
+import com.udacity.webcrawler.profiler.Profiler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Downloads and parses pages for the {@link ParallelWebCrawler}, and adapts the parallelism of
+ * its {@link ForkJoinPool} to how long the worker threads wait for downloads.
+ *
+ * <p>When enabled, every page is downloaded with the {@link PageFetcher}, and the worker thread
+ * waits for the download in a {@link ForkJoinPool.ManagedBlocker}, so that the pool can start a
+ * spare thread to keep its parallelism while the worker is blocked. The time spent waiting and the
+ * time spent parsing are added up, and at most every 200 milliseconds the parallelism of the pool
+ * is recomputed from them: with a ratio W/C of waiting to computing time, about
+ * {@code cores * (1 + W/C)} threads keep every core busy. The parallelism grows towards that
+ * target at most twofold per adjustment, shrinks by one while the CPU load of the process is
+ * above {@link #SATURATED_CPU_LOAD}, and always stays within the configured bounds. Each chosen
+ * parallelism is recorded with the {@link Profiler}.
+ *
+ * <p>When disabled, each page is downloaded and parsed by its {@link PageParser}, and the pool
+ * keeps a fixed parallelism.
+ */
+final class AdaptiveParallelism {
+
+    /**
+     * The CPU load of the process, between 0 and 1, above which more threads would only contend
+     * for the cores.
+     */
+    static final double SATURATED_CPU_LOAD = 0.9;
+
+    private static final long ADJUSTMENT_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final String PARALLELISM =
+            ParallelWebCrawler.class.getName() + "#parallelism";
+    private static final String PEAK_PARALLELISM =
+            ParallelWebCrawler.class.getName() + "#peakParallelism";
+
+    private final PageFetcher fetcher;
+    private final PageParserFactory parserFactory;
+    private final Profiler profiler;
+    private final int minParallelism;
+    private final int maxParallelism;
+    private final int cores;
+    private final DoubleSupplier cpuLoad;
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder computeNanos = new LongAdder();
+    private final ReentrantLock adjustmentLock = new ReentrantLock();
+    private volatile long nextAdjustment;
+    private ForkJoinPool pool;
+    private int peakParallelism;
+
+    /**
+     * Creates a controller for a crawler whose pool has not been created yet.
+     *
+     * @param fetcher        downloads the pages when enabled.
+     * @param parserFactory  parses the pages.
+     * @param profiler       records the chosen parallelism.
+     * @param minParallelism the lowest parallelism the pool may be given.
+     * @param maxParallelism the highest parallelism the pool may be given, or 0 to keep the
+     *                       parallelism of the pool fixed.
+     */
+    AdaptiveParallelism(
+            PageFetcher fetcher,
+            PageParserFactory parserFactory,
+            Profiler profiler,
+            int minParallelism,
+            int maxParallelism) {
+        this(fetcher,
+                parserFactory,
+                profiler,
+                minParallelism,
+                maxParallelism,
+                Runtime.getRuntime().availableProcessors(),
+                processCpuLoad());
+    }
+
+    AdaptiveParallelism(
+            PageFetcher fetcher,
+            PageParserFactory parserFactory,
+            Profiler profiler,
+            int minParallelism,
+            int maxParallelism,
+            int cores,
+            DoubleSupplier cpuLoad) {
+        this.fetcher = Objects.requireNonNull(fetcher);
+        this.parserFactory = Objects.requireNonNull(parserFactory);
+        this.profiler = Objects.requireNonNull(profiler);
+        this.minParallelism = minParallelism;
+        this.maxParallelism = maxParallelism;
+        this.cores = cores;
+        this.cpuLoad = Objects.requireNonNull(cpuLoad);
+    }
+
+    /**
+     * Returns whether the parallelism of the pool is adapted while crawling.
+     */
+    boolean isEnabled() {
+        return maxParallelism > 0;
+    }
+
+    /**
+     * Creates the pool of the crawler. It can only be called once.
+     *
+     * <p>When enabled, the given parallelism is moved within the configured bounds, and the pool
+     * never runs more threads than the upper bound, even to compensate for blocked workers.
+     *
+     * @param parallelism the initial parallelism of the pool.
+     */
+    ForkJoinPool newPool(int parallelism) {
+        if (!isEnabled()) {
+            return new ForkJoinPool(parallelism);
+        }
+        if (pool != null) {
+            throw new IllegalStateException("pool already created");
+        }
+        int initial = Math.max(minParallelism, Math.min(maxParallelism, parallelism));
+        pool = new ForkJoinPool(
+                initial,
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                null,
+                false,
+                0,
+                maxParallelism,
+                1,
+                // Without a spare thread, a blocked worker simply blocks.
+                p -> true,
+                60,
+                TimeUnit.SECONDS);
+        adjustmentLock.lock();
+        try {
+            recordParallelism(initial);
+        } finally {
+            adjustmentLock.unlock();
+        }
+        nextAdjustment = System.nanoTime() + ADJUSTMENT_INTERVAL_NANOS;
+        return pool;
+    }
+
+    /**
+     * Downloads and parses the given page, and adapts the parallelism of the pool if it is due.
+     *
+     * @param dictionary the dictionary of the crawl, or {@code null} to give the page a dictionary
+     *                   of its own.
+     */
+    PageParser.Result load(String url, Instant deadline, WordDictionary dictionary) {
+        if (!isEnabled()) {
+            return parserFactory.get(url, deadline, dictionary).parse();
+        }
+        long start = System.nanoTime();
+        FetchedPage page;
+        try {
+            page = await(fetcher.fetch(url, deadline));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            page = FetchedPage.failed(url);
+        }
+        long fetched = System.nanoTime();
+        PageParser.Result result = parserFactory.get(page, deadline, dictionary).parse();
+        long parsed = System.nanoTime();
+        waitNanos.add(fetched - start);
+        computeNanos.add(parsed - fetched);
+        if (parsed - nextAdjustment >= 0 && adjustmentLock.tryLock()) {
+            try {
+                adjust(parsed);
+            } finally {
+                adjustmentLock.unlock();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the parallelism the pool should be given next.
+     *
+     * @param current   the current parallelism of the pool.
+     * @param waitRatio the time spent waiting for downloads divided by the time spent parsing.
+     * @param cpuLoad   the recent CPU load of the process, between 0 and 1, or a negative value if
+     *                  it is unknown.
+     */
+    int chooseParallelism(int current, double waitRatio, double cpuLoad) {
+        long target;
+        if (cpuLoad >= SATURATED_CPU_LOAD) {
+            target = current - 1;
+        } else {
+            target = Math.min(2L * current, (long) Math.ceil(cores * (1 + waitRatio)));
+        }
+        return (int) Math.max(minParallelism, Math.min(maxParallelism, target));
+    }
+
+    private void adjust(long now) {
+        if (now - nextAdjustment < 0) {
+            return;
+        }
+        nextAdjustment = now + ADJUSTMENT_INTERVAL_NANOS;
+        long waited = waitNanos.sumThenReset();
+        long computed = computeNanos.sumThenReset();
+        int current = pool.getParallelism();
+        int chosen = chooseParallelism(
+                current, (double) waited / Math.max(1, computed), cpuLoad.getAsDouble());
+        if (chosen != current) {
+            pool.setParallelism(chosen);
+            recordParallelism(chosen);
+        }
+    }
+
+    private void recordParallelism(int parallelism) {
+        peakParallelism = Math.max(peakParallelism, parallelism);
+        profiler.recordValue(PARALLELISM, parallelism);
+        profiler.recordValue(PEAK_PARALLELISM, peakParallelism);
+    }
+
+    /**
+     * Waits for the given download as a managed block of the current pool, if any.
+     */
+    private static FetchedPage await(CompletableFuture<FetchedPage> download)
+            throws InterruptedException {
+        if (!download.isDone()) {
+            // Joining the future would already be a managed block; waiting on a latch instead keeps
+            // it from being nested in the one below, which would compensate twice.
+            CountDownLatch done = new CountDownLatch(1);
+            download.whenComplete((page, e) -> done.countDown());
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                @Override
+                public boolean block() throws InterruptedException {
+                    done.await();
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    return done.getCount() == 0;
+                }
+            });
+        }
+        return download.join();
+    }
+
+    private static DoubleSupplier processCpuLoad() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os)::getProcessCpuLoad;
+        }
+        return () -> -1;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+
+/**
+ * A {@link VisitedUrlSet} that puts a Bloom filter in front of another set.
+ *
+ * <p>Most links a crawler extracts point to pages that were already visited, or that will be
+ * dropped for some other reason, so the frontier asks {@link #contains(String)} far more often than
+ * it adds URLs. The Bloom filter answers "definitely not visited" from a few bits in a compact
+ * on-heap array, and only the remaining lookups reach the underlying set.
+ *
+ * <p>The filter uses about 10 bits and 7 hash functions per expected URL, which gives a false
+ * positive rate below 1% until the expected number of URLs is exceeded. A false positive only
+ * costs a lookup in the underlying set, never a wrong answer.
+ */
+final class BloomFilterVisitedUrlSet implements VisitedUrlSet {
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int BITS_PER_URL = 10;
+    private static final int HASH_FUNCTIONS = 7;
+    private static final int MIN_BITS = 1 << 16;
+    private static final int MAX_BITS = 1 << 30;
+
+    private final VisitedUrlSet delegate;
+    private final long[] words;
+    private final int mask;
+
+    /**
+     * Creates a Bloom filter sized for the given number of URLs, in front of the given set.
+     */
+    BloomFilterVisitedUrlSet(VisitedUrlSet delegate, int expectedSize) {
+        this.delegate = Objects.requireNonNull(delegate);
+        int bits = MIN_BITS;
+        while (bits < MAX_BITS && bits < (long) expectedSize * BITS_PER_URL) {
+            bits <<= 1;
+        }
+        this.words = new long[bits / Long.SIZE];
+        this.mask = bits - 1;
+    }
+
+    @Override
+    public boolean add(String url) {
+        long fingerprint = UrlFingerprint.of(url);
+        int hash = (int) fingerprint;
+        int step = (int) (fingerprint >>> 32) | 1;
+        for (int i = 0; i < HASH_FUNCTIONS; i++, hash += step) {
+            int bit = hash & mask;
+            WORDS.getAndBitwiseOr(words, bit >>> 6, 1L << bit);
+        }
+        return delegate.add(url);
+    }
+
+    @Override
+    public boolean contains(String url) {
+        long fingerprint = UrlFingerprint.of(url);
+        int hash = (int) fingerprint;
+        int step = (int) (fingerprint >>> 32) | 1;
+        for (int i = 0; i < HASH_FUNCTIONS; i++, hash += step) {
+            int bit = hash & mask;
+            if (((long) WORDS.getVolatile(words, bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return delegate.contains(url);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(words.length);
+        for (int i = 0; i < words.length; i++) {
+            out.writeLong((long) WORDS.getVolatile(words, i));
+        }
+        delegate.writeTo(out);
+    }
+
+    @Override
+    public void readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != words.length) {
+            throw new IOException("The checkpoint was written with a different expected URL count");
+        }
+        for (int i = 0; i < words.length; i++) {
+            WORDS.getAndBitwiseOr(words, i, in.readLong());
+        }
+        delegate.readFrom(in);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
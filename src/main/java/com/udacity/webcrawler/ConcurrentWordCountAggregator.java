@@ -0,0 +1,60 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link WordCountAggregator} that keeps one {@link LongAdder} per word in a
+ * {@link ConcurrentHashMap}.
+ *
+ * <p>Workers only contend when they update the same word at the same moment, and even then the
+ * {@link LongAdder} spreads the updates over several cells.
+ */
+final class ConcurrentWordCountAggregator implements WordCountAggregator {
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+    @Override
+    public void add(Map<String, Integer> pageCounts) {
+        for (Map.Entry<String, Integer> e : pageCounts.entrySet()) {
+            counts.computeIfAbsent(e.getKey(), k -> new LongAdder()).add(e.getValue());
+        }
+    }
+
+    @Override
+    public Map<String, Integer> getCounts() {
+        Map<String, Integer> result = new HashMap<>(counts.size() * 4 / 3 + 1);
+        counts.forEach((word, count) -> result.put(word, count.intValue()));
+        return result;
+    }
+
+    @Override
+    public void close() {
+        counts.clear();
+    }
+}
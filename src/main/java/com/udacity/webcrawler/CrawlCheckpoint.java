@@ -0,0 +1,200 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Periodically saves the state of a crawl to a file, so that a crawl that was stopped can be
+ * resumed from where it was instead of starting over.
+ *
+ * <p>A checkpoint holds the depth and both levels of the frontier, the visited URLs in the native
+ * form of the {@link VisitedUrlSet}, and the word counts added so far. It is only taken between two
+ * batches of the frontier, when no page is being crawled, so the workers never have to be paused
+ * and the state written is always consistent. The batches of a checkpointed crawl are bounded, so
+ * checkpoints are also taken within large levels. The pause is the time it takes to write the
+ * state. The near-duplicate index is not saved, so pages crawled before the checkpoint are not
+ * considered by the {@link NearDuplicateDetector} of the resumed crawl.
+ *
+ * <p>Each checkpoint is written to a temporary file that then atomically replaces the previous
+ * checkpoint, so a crawl that dies while writing one leaves the previous checkpoint intact. The
+ * checkpoint is deleted once the crawl completes, and written one last time when it times out.
+ */
+final class CrawlCheckpoint {
+    private static final String FILE_NAME = "crawl.checkpoint";
+    private static final int MAGIC = 0x57434350;
+    private static final int VERSION = 1;
+
+    private final Clock clock;
+    private final Path directory;
+    private final Duration interval;
+    private final boolean resume;
+    private Instant lastWrite;
+
+    /**
+     * Creates the checkpoint of a single crawl.
+     *
+     * @param clock     the clock used to decide when the next checkpoint is due.
+     * @param directory the directory that holds the checkpoint file, or {@code null} if the crawl
+     *                  should not be checkpointed.
+     * @param interval  the least time between two checkpoints.
+     * @param resume    whether the crawl should start from the checkpoint file, if there is one.
+     */
+    CrawlCheckpoint(Clock clock, Path directory, Duration interval, boolean resume) {
+        this.clock = clock;
+        this.directory = directory;
+        this.interval = interval;
+        this.resume = resume;
+        this.lastWrite = clock.instant();
+    }
+
+    /**
+     * Returns true if the crawl is checkpointed, that is if a checkpoint directory is configured.
+     */
+    boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Restores the given context from the checkpoint file, if the crawl should be resumed and there
+     * is a checkpoint to resume from.
+     *
+     * @return true if the context was restored; false if the crawl should start from its starting
+     * URLs.
+     * @throws UncheckedIOException if the checkpoint file could not be read.
+     */
+    boolean restore(CrawlContext context) {
+        if (directory == null || !resume || !Files.exists(directory.resolve(FILE_NAME))) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(directory.resolve(FILE_NAME))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a crawl checkpoint: " + directory.resolve(FILE_NAME));
+            }
+            context.readFrom(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    /**
+     * Writes a checkpoint of the given context if the interval has passed since the last one. Must
+     * only be called while no page is being crawled.
+     *
+     * @throws UncheckedIOException if the checkpoint could not be written.
+     */
+    void maybeWrite(CrawlContext context) {
+        if (directory != null && !clock.instant().isBefore(lastWrite.plus(interval))) {
+            write(context, List.of());
+        }
+    }
+
+    /**
+     * Writes a checkpoint of the given context now. Must only be called while no page is being
+     * crawled.
+     *
+     * @param unfinished URLs that were removed from the frontier but may not have been crawled.
+     * @throws UncheckedIOException if the checkpoint could not be written.
+     */
+    void write(CrawlContext context, Collection<String> unfinished) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, FILE_NAME, ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    context.writeTo(out, unfinished);
+                }
+                Files.move(
+                        temp,
+                        directory.resolve(FILE_NAME),
+                        StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lastWrite = clock.instant();
+    }
+
+    /**
+     * Deletes the checkpoint file, once the crawl it belongs to is complete.
+     *
+     * @throws UncheckedIOException if the file could not be deleted.
+     */
+    void delete() {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(directory.resolve(FILE_NAME));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a string of any length as its UTF-8 length followed by its UTF-8 bytes, which is also
+     * the record format of {@link SpillingUrlQueue}.
+     */
+    static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutput, String)}.
+     */
+    static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
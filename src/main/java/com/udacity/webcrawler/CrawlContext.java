@@ -0,0 +1,424 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.WordDictionary;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Holds all the mutable state of a single crawl: the visited URLs, the word counts, the deadline,
+ * and the frontier of URLs still to be crawled.
+ *
+ * <p>A new context is created for every call to {@link WebCrawler#crawl(List)} and handed to each
+ * task of that crawl, so any number of crawls can run at the same time in the same JVM, and on the
+ * same thread pool, without sharing any state. The context should be closed when the crawl is
+ * over, which releases everything it holds.
+ */
+final class CrawlContext implements AutoCloseable {
+    private final Clock clock;
+    private final Instant deadline;
+    private final Predicate<String> ignoredUrl;
+    private final UrlCanonicalizer canonicalizer;
+    private final VisitedUrlSet visitedUrls;
+    private final WordCountAggregator counts;
+    private final NearDuplicateDetector nearDuplicates;
+    private final Supplier<SpillingUrlQueue> levelQueues;
+    private volatile SpillingUrlQueue currentLevel;
+    private volatile SpillingUrlQueue nextLevel;
+    private final ArrayDeque<String> unbatched = new ArrayDeque<>();
+    private volatile boolean checkpointed;
+    private int depth;
+
+    /**
+     * Creates a context for a crawl that must finish by the given deadline.
+     *
+     * @param clock         the clock used to check the deadline.
+     * @param deadline      the instant after which no more pages should be downloaded.
+     * @param ignoredUrl    returns true for URLs the crawl should not follow.
+     * @param canonicalizer rewrites discovered URLs before they are checked against the visited
+     *                      set.
+     * @param visitedUrls   an empty set that this context takes ownership of.
+     * @param counts        an empty aggregator that this context takes ownership of.
+     * @param nearDuplicates a detector for pages that are nearly identical to a page already
+     *                       crawled, which this context takes ownership of.
+     * @param levelQueues    creates the empty queues that hold the levels of the frontier.
+     */
+    CrawlContext(
+            Clock clock,
+            Instant deadline,
+            Predicate<String> ignoredUrl,
+            UrlCanonicalizer canonicalizer,
+            VisitedUrlSet visitedUrls,
+            WordCountAggregator counts,
+            NearDuplicateDetector nearDuplicates,
+            Supplier<SpillingUrlQueue> levelQueues) {
+        this.clock = Objects.requireNonNull(clock);
+        this.deadline = Objects.requireNonNull(deadline);
+        this.ignoredUrl = Objects.requireNonNull(ignoredUrl);
+        this.canonicalizer = Objects.requireNonNull(canonicalizer);
+        this.visitedUrls = Objects.requireNonNull(visitedUrls);
+        this.counts = Objects.requireNonNull(counts);
+        this.nearDuplicates = Objects.requireNonNull(nearDuplicates);
+        this.levelQueues = Objects.requireNonNull(levelQueues);
+        this.currentLevel = levelQueues.get();
+        this.nextLevel = levelQueues.get();
+    }
+
+    Instant getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Returns the dictionary that the pages of this crawl should be parsed with, or {@code null} if
+     * every page can be parsed with a dictionary of its own. See
+     * {@link WordCountAggregator#getWordDictionary()}.
+     */
+    WordDictionary getWordDictionary() {
+        return counts.getWordDictionary();
+    }
+
+    /**
+     * Returns true if the deadline of this crawl has passed.
+     */
+    boolean isTimedOut() {
+        return clock.instant().isAfter(deadline);
+    }
+
+    /**
+     * Returns the time left until the deadline of this crawl, which is negative once it has passed.
+     */
+    Duration getTimeLeft() {
+        return Duration.between(clock.instant(), deadline);
+    }
+
+    /**
+     * Returns true if the given URL should not be followed.
+     */
+    boolean isIgnored(String url) {
+        return ignoredUrl.test(url);
+    }
+
+    /**
+     * Marks the given URL as visited. Returns false if it had already been visited by this crawl.
+     */
+    boolean markVisited(String url) {
+        return visitedUrls.add(url);
+    }
+
+    /**
+     * Sets whether this crawl is saved in a {@link CrawlCheckpoint}, and so may be resumed. Must be
+     * called before any page is crawled.
+     */
+    void setCheckpointed(boolean checkpointed) {
+        this.checkpointed = checkpointed;
+    }
+
+    /**
+     * Returns true if the given URL has been visited by this crawl.
+     */
+    boolean isVisited(String url) {
+        return visitedUrls.contains(url);
+    }
+
+    /**
+     * Records a page of the current level that has been downloaded and parsed: marks its URL as
+     * visited and adds its word counts, and returns whether its links should be followed.
+     *
+     * <p>If the crawl is checkpointed and the deadline has passed by then, the page may have been
+     * cut short, so it is neither counted nor marked as visited, and a resumed crawl downloads it
+     * again. A crawl that cannot be resumed counts it like any other page. The URLs of a level are
+     * unique and not yet visited, so unlike {@link #markVisited(String)}, this is only called once
+     * a page is over.
+     */
+    boolean finishPage(String url, PageParser.Result page) {
+        if ((checkpointed && isTimedOut()) || !visitedUrls.add(url)) {
+            return false;
+        }
+        return addPage(page);
+    }
+
+    /**
+     * Returns the number of distinct URLs visited so far.
+     */
+    int getUrlsVisited() {
+        return visitedUrls.size();
+    }
+
+    /**
+     * Adds the word counts of a crawled page to the totals of this crawl, and returns whether the
+     * links of the page should be followed.
+     *
+     * <p>If the page is a near-duplicate of a page already crawled, its links are not followed, and
+     * its words are only counted if the {@link NearDuplicateDetector} says so.
+     */
+    boolean addPage(PageParser.Result page) {
+        boolean nearDuplicate =
+                nearDuplicates.isEnabled() && nearDuplicates.isNearDuplicate(page.getWordCounts());
+        if (!nearDuplicate || nearDuplicates.countsNearDuplicateWords()) {
+            counts.add(page);
+        }
+        return !nearDuplicate;
+    }
+
+    /**
+     * Returns the total word counts of this crawl, which are not sorted. Must only be called once
+     * no more pages are being crawled.
+     */
+    Map<String, Integer> getCounts() {
+        return counts.getCounts();
+    }
+
+    /**
+     * Returns the given number of most popular words of this crawl, ranked. See
+     * {@link WordCountAggregator#getPopularWords(int)} for when it may be called.
+     */
+    Map<String, Integer> getPopularWords(int popularWordCount) {
+        return counts.getPopularWords(popularWordCount);
+    }
+
+    /**
+     * Returns the most by which the counts of the given words may be too high. See
+     * {@link WordCountAggregator#getCountError(Collection)}.
+     */
+    long getCountError(Collection<String> words) {
+        return counts.getCountError(words);
+    }
+
+    /**
+     * Returns the number of URLs left in the current level and found for the next level so far,
+     * which includes URLs that will turn out to be ignored or already visited.
+     */
+    long getFrontierSize() {
+        return unbatched.size() + currentLevel.size() + nextLevel.size();
+    }
+
+    /**
+     * Records links found on a page of the current level, to be considered for the next level.
+     */
+    void addDiscoveredLinks(Collection<String> links) {
+        nextLevel.addAll(links);
+    }
+
+    /**
+     * Keeps the links discovered while crawling the current level that the given predicate accepts
+     * for the next level, and hands every other one to the given consumer instead, in canonical form
+     * and unless it is ignored. This is how a {@link CrawlWorker} keeps the links of its own
+     * partition and forwards the others. Must only be called while no page is being crawled.
+     */
+    void forwardDiscoveredLinks(Predicate<String> isLocal, Consumer<String> forward) {
+        SpillingUrlQueue kept = levelQueues.get();
+        try {
+            while (nextLevel.size() > 0) {
+                List<String> local = new ArrayList<>();
+                for (String candidate : nextLevel.poll()) {
+                    String url = canonicalizer.canonicalize(candidate);
+                    if (ignoredUrl.test(url)) {
+                        continue;
+                    }
+                    if (isLocal.test(url)) {
+                        local.add(url);
+                    } else {
+                        forward.accept(url);
+                    }
+                }
+                kept.addAll(local);
+            }
+        } catch (RuntimeException e) {
+            kept.close();
+            throw e;
+        }
+        nextLevel.close();
+        nextLevel = kept;
+    }
+
+    /**
+     * Returns true if the current level still holds URLs, some of which may turn out to be ignored
+     * or already visited.
+     */
+    boolean hasFrontier() {
+        return !unbatched.isEmpty() || currentLevel.size() > 0;
+    }
+
+    /**
+     * Removes the next batch of URLs from the current level and returns their canonical form,
+     * without duplicates, ignored URLs and visited URLs. Returns an empty list only once the level
+     * is exhausted.
+     *
+     * <p>A batch holds as many URLs as the level queue keeps on the heap, which is the whole level
+     * unless the frontier spills to disk.
+     */
+    List<String> pollFrontier() {
+        return pollFrontier(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #pollFrontier()}, but returns at most the given number of URLs, before they are
+     * filtered. The rest of the URLs taken from the level queue are kept for the next batches.
+     */
+    List<String> pollFrontier(int maxBatchSize) {
+        List<String> batch = List.of();
+        while (batch.isEmpty() && hasFrontier()) {
+            if (unbatched.isEmpty()) {
+                unbatched.addAll(currentLevel.poll());
+            }
+            List<String> candidates = new ArrayList<>(Math.min(maxBatchSize, unbatched.size()));
+            while (candidates.size() < maxBatchSize && !unbatched.isEmpty()) {
+                candidates.add(unbatched.poll());
+            }
+            batch = filter(candidates);
+        }
+        return batch;
+    }
+
+    /**
+     * Returns the depth of the current level, where the starting URLs are at depth 0.
+     */
+    int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Makes the given URLs the first level of the frontier.
+     */
+    void startFrontier(Collection<String> startingUrls) {
+        currentLevel.addAll(startingUrls);
+        depth = 0;
+    }
+
+    /**
+     * Replaces the frontier with the links discovered while crawling the current level.
+     */
+    void advanceFrontier() {
+        currentLevel.close();
+        currentLevel = nextLevel;
+        nextLevel = levelQueues.get();
+        depth++;
+    }
+
+    /**
+     * Writes the state of this crawl to the given stream, for a {@link CrawlCheckpoint}: the depth,
+     * both levels of the frontier, the visited URLs and the word counts. Must only be called while
+     * no page is being crawled.
+     *
+     * @param unfinished URLs that were removed from the current level but not all crawled, for
+     *                   instance because the crawl timed out. Those that were not visited, which
+     *                   includes pages cut short by the deadline, are written back at the front
+     *                   of the current level, followed by the URLs that were taken from the level
+     *                   queue but not yet handed out in a batch.
+     */
+    void writeTo(DataOutputStream out, Collection<String> unfinished) throws IOException {
+        List<String> notVisited = new ArrayList<>();
+        for (String url : unfinished) {
+            if (!visitedUrls.contains(url)) {
+                notVisited.add(url);
+            }
+        }
+        out.writeInt(depth);
+        out.writeLong(notVisited.size() + unbatched.size() + currentLevel.size());
+        for (String url : notVisited) {
+            CrawlCheckpoint.writeString(out, url);
+        }
+        for (String url : unbatched) {
+            CrawlCheckpoint.writeString(out, url);
+        }
+        currentLevel.writeTo(out);
+        out.writeLong(nextLevel.size());
+        nextLevel.writeTo(out);
+        visitedUrls.writeTo(out);
+        Map<String, Integer> wordCounts = counts.getCounts();
+        out.writeInt(wordCounts.size());
+        for (Map.Entry<String, Integer> e : wordCounts.entrySet()) {
+            CrawlCheckpoint.writeString(out, e.getKey());
+            out.writeInt(e.getValue());
+        }
+    }
+
+    /**
+     * Restores the state that {@link #writeTo(DataOutputStream, Collection)} wrote. Must be called
+     * before the crawl starts, instead of {@link #startFrontier(Collection)}.
+     */
+    void readFrom(DataInputStream in) throws IOException {
+        depth = in.readInt();
+        currentLevel.readFrom(in, in.readLong());
+        nextLevel.readFrom(in, in.readLong());
+        visitedUrls.readFrom(in);
+        int wordCount = in.readInt();
+        Map<String, Integer> wordCounts = new HashMap<>(wordCount * 4 / 3 + 1);
+        for (int i = 0; i < wordCount; i++) {
+            wordCounts.put(CrawlCheckpoint.readString(in), in.readInt());
+        }
+        counts.add(wordCounts);
+    }
+
+    /**
+     * Returns the canonical form of a discovered URL, which is the form that should be checked
+     * against the ignored URLs and the visited set, and then downloaded.
+     */
+    String canonicalize(String url) {
+        return canonicalizer.canonicalize(url);
+    }
+
+    /**
+     * Returns the canonical form of the given candidate URLs, in encounter order, without
+     * duplicates, ignored URLs, and URLs that have already been visited.
+     */
+    private List<String> filter(Collection<String> candidates) {
+        Set<String> level = new LinkedHashSet<>();
+        for (String candidate : candidates) {
+            String url = canonicalizer.canonicalize(candidate);
+            if (!visitedUrls.contains(url) && !ignoredUrl.test(url)) {
+                level.add(url);
+            }
+        }
+        return new ArrayList<>(level);
+    }
+
+    @Override
+    public void close() {
+        visitedUrls.close();
+        counts.close();
+        currentLevel.close();
+        nextLevel.close();
+    }
+}
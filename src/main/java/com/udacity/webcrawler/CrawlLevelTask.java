@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.parser.PageParser;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A {@link RecursiveAction} that downloads and processes one level (a single depth) of the crawl
+ * frontier.
+ *
+ * <p>The level is split in halves until each piece is no larger than the batch size, and each
+ * leaf task then processes its batch of URLs sequentially. The number of tasks is therefore bound
+ * by the batch size rather than by the number of links on a page. Links discovered while
+ * processing the level are handed to the {@link CrawlContext}, which turns them into the next
+ * level of the frontier once the whole level has completed.
+ */
+final class CrawlLevelTask extends RecursiveAction {
+    private final CrawlContext context;
+    private final AdaptiveParallelism pages;
+    private final List<String> urls;
+    private final int from;
+    private final int to;
+    private final int batchSize;
+
+    /**
+     * Creates a task that crawls every URL of the given level.
+     *
+     * @param context   the state of the crawl this level belongs to.
+     * @param pages     downloads and parses each page.
+     * @param urls      the URLs of the level.
+     * @param batchSize the largest number of URLs a single task processes without splitting.
+     */
+    CrawlLevelTask(
+            CrawlContext context, AdaptiveParallelism pages, List<String> urls, int batchSize) {
+        this(context, pages, urls, 0, urls.size(), Math.max(1, batchSize));
+    }
+
+    private CrawlLevelTask(CrawlContext context,
+                           AdaptiveParallelism pages,
+                           List<String> urls,
+                           int from,
+                           int to,
+                           int batchSize) {
+        this.context = context;
+        this.pages = pages;
+        this.urls = urls;
+        this.from = from;
+        this.to = to;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= batchSize) {
+            for (int i = from; i < to; i++) {
+                if (context.isTimedOut()) {
+                    return;
+                }
+                crawl(context, pages, urls.get(i));
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        invokeAll(
+                new CrawlLevelTask(context, pages, urls, from, middle, batchSize),
+                new CrawlLevelTask(context, pages, urls, middle, to, batchSize));
+    }
+
+    /**
+     * Downloads and processes a single URL of the level. The URL is only marked as visited once its
+     * page is over, so that a page cut short by the deadline is left for a resumed crawl.
+     */
+    static void crawl(CrawlContext context, AdaptiveParallelism pages, String url) {
+        PageParser.Result result =
+                pages.load(url, context.getDeadline(), context.getWordDictionary());
+        if (context.finishPage(url, result)) {
+            context.addDiscoveredLinks(result.getLinks());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+
+/**
+ * Receives the snapshots the parallel crawler takes of a running crawl.
+ *
+ * <p>Listeners are bound with a Guice {@link com.google.inject.multibindings.Multibinder} of this
+ * interface, and are only called if {@code "snapshotIntervalSeconds"} is set in the crawler
+ * configuration. They are called from a background thread of each crawl, one snapshot at a time,
+ * so a slow listener delays the next snapshot rather than the crawl.
+ */
+public interface CrawlSnapshotListener {
+
+    /**
+     * Called with a snapshot of a running crawl: its visited URL count, its most popular words so
+     * far and the size of its frontier.
+     */
+    void onSnapshot(CrawlResult snapshot);
+}
@@ -0,0 +1,127 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Periodically takes snapshots of a single running crawl, and hands them to the
+ * {@link CrawlSnapshotListener}s.
+ *
+ * <p>A snapshot is a {@link CrawlResult} with the visited URL count, the most popular words so far
+ * and the size of the frontier. The popular words are read from a {@link WordCountAggregator} that
+ * keeps a running ranking, so taking a snapshot does not sort the word counts. The snapshots are
+ * taken on a daemon thread of their own, which is stopped when the snapshots are closed.
+ */
+final class CrawlSnapshots implements AutoCloseable {
+    private final Duration interval;
+    private final int popularWordCount;
+    private final List<CrawlSnapshotListener> listeners;
+    private ScheduledExecutorService executor;
+
+    /**
+     * Creates the snapshots of a crawl.
+     *
+     * @param interval         the time between two snapshots, or zero to take none.
+     * @param popularWordCount the number of popular words in each snapshot.
+     * @param listeners        receive the snapshots.
+     */
+    CrawlSnapshots(
+            Duration interval, int popularWordCount, Set<CrawlSnapshotListener> listeners) {
+        this.interval = Objects.requireNonNull(interval);
+        this.popularWordCount = popularWordCount;
+        this.listeners = List.copyOf(listeners);
+    }
+
+    /**
+     * Returns whether snapshots are taken at all.
+     */
+    boolean isEnabled() {
+        return interval.compareTo(Duration.ZERO) > 0 && !listeners.isEmpty();
+    }
+
+    /**
+     * Starts taking snapshots of the given crawl, if enabled.
+     *
+     * @param context      the crawl, whose word count aggregator must keep a running ranking.
+     * @param frontierSize returns the number of URLs waiting in the frontier of the crawl.
+     */
+    void start(CrawlContext context, LongSupplier frontierSize) {
+        if (!isEnabled()) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "crawl-snapshots");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        executor.scheduleWithFixedDelay(
+                () -> publish(context, frontierSize), millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    private void publish(CrawlContext context, LongSupplier frontierSize) {
+        Map<String, Integer> popularWords = context.getPopularWords(popularWordCount);
+        CrawlResult snapshot = new CrawlResult.Builder()
+                .setWordCounts(popularWords)
+                .setWordCountError(context.getCountError(popularWords.keySet()))
+                .setUrlsVisited(context.getUrlsVisited())
+                .setFrontierSize(frontierSize.getAsLong())
+                .build();
+        for (CrawlSnapshotListener listener : listeners) {
+            try {
+                listener.onSnapshot(snapshot);
+            } catch (RuntimeException e) {
+                // A failing listener must not stop the snapshots of the others.
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Stops taking snapshots, and waits for a snapshot being taken to be delivered.
+     */
+    @Override
+    public void close() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
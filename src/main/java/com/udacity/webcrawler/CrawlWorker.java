@@ -0,0 +1,188 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A worker process of a {@link DistributedWebCrawler}.
+ *
+ * <p>The worker crawls the URLs of its own partition of the frontier, level by level, the same way
+ * the {@link ParallelWebCrawler} does, in a {@link CrawlContext} of its own. After each level, it
+ * keeps the discovered links it owns for the next level, and forwards the others to their owners
+ * through a {@link LinkExchange}. The links other workers forward to it are added to its next
+ * level when the coordinator tells it to advance.
+ */
+public final class CrawlWorker {
+
+    /**
+     * The number of links sent to another worker at once.
+     */
+    private static final int LINK_BATCH_SIZE = 1024;
+
+    private final Clock clock;
+    private final int maxDepth;
+    private final IgnoredUrlMatcher ignoredUrls;
+    private final UrlCanonicalizer canonicalizer;
+    private final Provider<VisitedUrlSet> visitedUrlSets;
+    private final Provider<WordCountAggregator> wordCountAggregators;
+    private final Provider<NearDuplicateDetector> nearDuplicateDetectors;
+    private final Provider<SpillingUrlQueue> levelQueues;
+    private final AdaptiveParallelism pages;
+    private final ForkJoinPool pool;
+
+    @Inject
+    CrawlWorker(
+            Clock clock,
+            @TargetParallelism int threadCount,
+            @MaxDepth int maxDepth,
+            IgnoredUrlMatcher ignoredUrls,
+            UrlCanonicalizer canonicalizer,
+            Provider<VisitedUrlSet> visitedUrlSets,
+            Provider<WordCountAggregator> wordCountAggregators,
+            Provider<NearDuplicateDetector> nearDuplicateDetectors,
+            Provider<SpillingUrlQueue> levelQueues,
+            AdaptiveParallelism pages) {
+        this.clock = clock;
+        this.maxDepth = maxDepth;
+        this.ignoredUrls = ignoredUrls;
+        this.canonicalizer = canonicalizer;
+        this.visitedUrlSets = visitedUrlSets;
+        this.wordCountAggregators = wordCountAggregators;
+        this.nearDuplicateDetectors = nearDuplicateDetectors;
+        this.levelQueues = levelQueues;
+        this.pages = pages;
+        this.pool = pages.newPool(
+                Math.min(threadCount, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Connects to the coordinator listening on the given loopback port, and crawls the partition
+     * with the given index until the coordinator tells the worker to finish.
+     *
+     * @throws IOException if the connection to the coordinator or to another worker failed.
+     */
+    public void run(int coordinatorPort, int index) throws IOException {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        ServerSocket exchangeServer = new ServerSocket(0, 50, loopback);
+        SpillingUrlQueue inbox = levelQueues.get();
+        try (Socket coordinator = new Socket(loopback, coordinatorPort)) {
+            DataInputStream in =
+                    new DataInputStream(new BufferedInputStream(coordinator.getInputStream()));
+            DataOutputStream out =
+                    new DataOutputStream(new BufferedOutputStream(coordinator.getOutputStream()));
+            out.writeInt(index);
+            out.writeInt(exchangeServer.getLocalPort());
+            out.flush();
+
+            int[] peerPorts = new int[in.readInt()];
+            for (int i = 0; i < peerPorts.length; i++) {
+                peerPorts[i] = in.readInt();
+            }
+            Instant deadline = Instant.ofEpochMilli(in.readLong());
+            List<String> seeds = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                seeds.add(CrawlCheckpoint.readString(in));
+            }
+            HostPartitioner partitioner = new HostPartitioner(peerPorts.length);
+
+            try (LinkExchange exchange =
+                         new LinkExchange(exchangeServer, peerPorts, LINK_BATCH_SIZE, inbox::addAll);
+                 CrawlContext context = new CrawlContext(
+                         clock,
+                         deadline,
+                         ignoredUrls::matches,
+                         canonicalizer,
+                         visitedUrlSets.get(),
+                         wordCountAggregators.get(),
+                         nearDuplicateDetectors.get(),
+                         levelQueues::get)) {
+                context.startFrontier(seeds);
+                out.writeBoolean(context.hasFrontier());
+                out.flush();
+                byte command;
+                while ((command = in.readByte()) != DistributedWebCrawler.FINISH) {
+                    if (command == DistributedWebCrawler.CRAWL) {
+                        crawlLevel(context);
+                        if (context.getDepth() + 1 < maxDepth) {
+                            context.forwardDiscoveredLinks(
+                                    url -> partitioner.partitionOf(url) == index,
+                                    url -> exchange.forward(partitioner.partitionOf(url), url));
+                            exchange.flush();
+                        }
+                        out.writeByte(DistributedWebCrawler.CRAWL);
+                    } else if (command == DistributedWebCrawler.ADVANCE) {
+                        while (inbox.size() > 0) {
+                            context.addDiscoveredLinks(inbox.poll());
+                        }
+                        context.advanceFrontier();
+                        out.writeBoolean(context.hasFrontier());
+                    } else {
+                        throw new IOException("unexpected command " + command);
+                    }
+                    out.flush();
+                }
+
+                out.writeInt(context.getUrlsVisited());
+                Map<String, Integer> counts = context.getCounts();
+                out.writeInt(counts.size());
+                for (Map.Entry<String, Integer> e : counts.entrySet()) {
+                    CrawlCheckpoint.writeString(out, e.getKey());
+                    out.writeInt(e.getValue());
+                }
+                out.flush();
+            }
+        } finally {
+            exchangeServer.close();
+            inbox.close();
+            pool.shutdown();
+        }
+    }
+
+    private void crawlLevel(CrawlContext context) {
+        List<String> batch;
+        while (!context.isTimedOut() && !(batch = context.pollFrontier()).isEmpty()) {
+            pool.invoke(new CrawlLevelTask(
+                    context,
+                    pages,
+                    batch,
+                    batch.size() / (pool.getParallelism() * ParallelWebCrawler.BATCHES_PER_WORKER)));
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+
+import javax.inject.Inject;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link WebCrawler} that distributes the crawl over several worker processes on the same
+ * machine, as stand-ins for the nodes of a cluster.
+ *
+ * <p>This crawler is the coordinator. It starts every worker with the worker command, followed by
+ * the port it listens on and the index of the worker, and each {@link CrawlWorker} connects back to
+ * it over a loopback socket. The URLs are partitioned between the workers by a
+ * {@link HostPartitioner}, and the coordinator hands every starting URL to the worker that owns it.
+ *
+ * <p>The crawl is level-synchronous across the workers. For every depth, the coordinator tells all
+ * of them to {@link #CRAWL} their part of the level, which they acknowledge once they have crawled
+ * it and forwarded the links they discovered to their owners. Once every worker has done so, the
+ * coordinator tells them to {@link #ADVANCE} to the next level, and each answers whether it has
+ * any URL left. When the maximum depth is reached, no worker has URLs left or the timeout has
+ * passed, the coordinator tells them to {@link #FINISH}: every worker then sends its visited URL
+ * count and its word counts, which are merged into the result. Since each URL is only ever crawled
+ * by its owner, the visited URL counts simply add up.
+ */
+final class DistributedWebCrawler implements WebCrawler {
+
+    /**
+     * Asks a worker to crawl the current level of its frontier.
+     */
+    static final byte CRAWL = 1;
+
+    /**
+     * Asks a worker to replace its frontier with the links of the next level.
+     */
+    static final byte ADVANCE = 2;
+
+    /**
+     * Asks a worker to send its results and stop.
+     */
+    static final byte FINISH = 3;
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final Clock clock;
+    private final Duration timeout;
+    private final int popularWordCount;
+    private final int maxDepth;
+    private final int workerCount;
+    private final List<String> workerCommand;
+    private final UrlCanonicalizer canonicalizer;
+
+    @Inject
+    DistributedWebCrawler(
+            Clock clock,
+            @Timeout Duration timeout,
+            @PopularWordCount int popularWordCount,
+            @MaxDepth int maxDepth,
+            @WorkerProcesses int workerCount,
+            @WorkerCommand List<String> workerCommand,
+            UrlCanonicalizer canonicalizer) {
+        this.clock = clock;
+        this.timeout = timeout;
+        this.popularWordCount = popularWordCount;
+        this.maxDepth = maxDepth;
+        this.workerCount = workerCount;
+        this.workerCommand = workerCommand;
+        this.canonicalizer = canonicalizer;
+    }
+
+    @Override
+    public CrawlResult crawl(List<String> startingUrls) {
+        if (workerCommand.isEmpty()) {
+            throw new IllegalStateException("no command to start the worker processes with");
+        }
+        Instant deadline = clock.instant().plus(timeout);
+        List<Process> processes = new ArrayList<>();
+        Worker[] workers = new Worker[workerCount];
+        try (ServerSocket server =
+                     new ServerSocket(0, workerCount, InetAddress.getLoopbackAddress())) {
+            for (int i = 0; i < workerCount; i++) {
+                List<String> command = new ArrayList<>(workerCommand);
+                command.add(Integer.toString(server.getLocalPort()));
+                command.add(Integer.toString(i));
+                processes.add(new ProcessBuilder(command).inheritIO().start());
+            }
+            accept(server, workers);
+            return crawl(workers, startingUrls, deadline);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (Worker worker : workers) {
+                if (worker != null) {
+                    worker.close();
+                }
+            }
+            for (Process process : processes) {
+                stop(process);
+            }
+        }
+    }
+
+    private CrawlResult crawl(Worker[] workers, List<String> startingUrls, Instant deadline)
+            throws IOException {
+        HostPartitioner partitioner = new HostPartitioner(workerCount);
+        List<List<String>> seeds = new ArrayList<>();
+        for (int i = 0; i < workerCount; i++) {
+            seeds.add(new ArrayList<>());
+        }
+        for (String startingUrl : startingUrls) {
+            String url = canonicalizer.canonicalize(startingUrl);
+            seeds.get(partitioner.partitionOf(url)).add(url);
+        }
+        for (int i = 0; i < workerCount; i++) {
+            DataOutputStream out = workers[i].out;
+            out.writeInt(workerCount);
+            for (Worker worker : workers) {
+                out.writeInt(worker.peerPort);
+            }
+            out.writeLong(deadline.toEpochMilli());
+            out.writeInt(seeds.get(i).size());
+            for (String url : seeds.get(i)) {
+                CrawlCheckpoint.writeString(out, url);
+            }
+            out.flush();
+        }
+        boolean hasFrontier = readFrontiers(workers);
+        for (int depth = 0;
+             depth < maxDepth && hasFrontier && !clock.instant().isAfter(deadline);
+             depth++) {
+            broadcast(workers, CRAWL);
+            for (Worker worker : workers) {
+                if (worker.in.readByte() != CRAWL) {
+                    throw new IOException("unexpected answer from worker " + worker.index);
+                }
+            }
+            if (depth + 1 < maxDepth) {
+                broadcast(workers, ADVANCE);
+                hasFrontier = readFrontiers(workers);
+            }
+        }
+        broadcast(workers, FINISH);
+
+        Map<String, Integer> counts = new HashMap<>();
+        int urlsVisited = 0;
+        for (Worker worker : workers) {
+            urlsVisited += worker.in.readInt();
+            int wordCount = worker.in.readInt();
+            for (int i = 0; i < wordCount; i++) {
+                counts.merge(CrawlCheckpoint.readString(worker.in), worker.in.readInt(), Integer::sum);
+            }
+        }
+        return new CrawlResult.Builder()
+                .setWordCounts(WordCounts.sort(counts, popularWordCount))
+                .setUrlsVisited(urlsVisited)
+                .build();
+    }
+
+    /**
+     * Waits for every worker to connect and introduce itself with its index and the port of its
+     * link exchange.
+     */
+    private void accept(ServerSocket server, Worker[] workers) throws IOException {
+        server.setSoTimeout((int) STARTUP_TIMEOUT.toMillis());
+        for (int i = 0; i < workerCount; i++) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (SocketTimeoutException e) {
+                throw new IOException("worker processes did not connect in time", e);
+            }
+            Worker worker = new Worker(socket);
+            if (worker.index < 0 || worker.index >= workerCount || workers[worker.index] != null) {
+                worker.close();
+                throw new IOException("unexpected worker index " + worker.index);
+            }
+            workers[worker.index] = worker;
+        }
+    }
+
+    /**
+     * Reads whether each worker has URLs in its frontier, and returns true if any has.
+     */
+    private static boolean readFrontiers(Worker[] workers) throws IOException {
+        boolean hasFrontier = false;
+        for (Worker worker : workers) {
+            hasFrontier |= worker.in.readBoolean();
+        }
+        return hasFrontier;
+    }
+
+    private static void broadcast(Worker[] workers, byte command) throws IOException {
+        for (Worker worker : workers) {
+            worker.out.writeByte(command);
+            worker.out.flush();
+        }
+    }
+
+    private static void stop(Process process) {
+        try {
+            if (!process.waitFor(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public int getMaxParallelism() {
+        return workerCount * Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * The connection to a worker process.
+     */
+    private static final class Worker {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final int index;
+        private final int peerPort;
+
+        Worker(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            this.index = in.readInt();
+            this.peerPort = in.readInt();
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nothing left to do with this worker.
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.parser.FetchedPage;
+import com.udacity.webcrawler.parser.PageFetcher;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Crawls one level of the frontier as a two-stage pipeline, so that download concurrency and
+ * parsing parallelism can be sized independently.
+ *
+ * <p>The fetch stage runs on the calling thread. It starts asynchronous downloads with a
+ * {@link PageFetcher}, keeping at most {@code fetchConcurrency} of them in flight, and puts each
+ * downloaded page in a bounded queue. A download is only started once a place in the queue has
+ * been reserved for its page, so when parsing falls behind, the queue fills up and the fetch stage
+ * stops downloading until it drains.
+ *
+ * <p>The parse stage is one worker per thread of the crawler's {@link ForkJoinPool}. Each worker
+ * takes downloaded pages from the queue, parses them, and records their words and links in the
+ * {@link CrawlContext}. Idle workers block on the queue: once the fetch stage is done and every
+ * page has been parsed, an end-of-level marker is put in the queue for each worker.
+ *
+ * <p>Both stages stop as soon as the crawl deadline passes. Downloads still in flight at that point
+ * are abandoned by the fetcher, and pages still being parsed stop with an empty result.
+ */
+final class FetchParsePipeline {
+
+    /**
+     * Put in the queue once for every parse worker when the level is finished.
+     */
+    private static final FetchedPage END_OF_LEVEL = FetchedPage.failed("");
+
+    private final CrawlContext context;
+    private final PageFetcher fetcher;
+    private final PageParserFactory parserFactory;
+    private final ForkJoinPool parsePool;
+    private final Semaphore fetchSlots;
+    private final Semaphore queueSlots;
+    private final BlockingQueue<FetchedPage> fetchedPages;
+    private final AtomicInteger unparsedPages = new AtomicInteger();
+    private final AtomicBoolean ended = new AtomicBoolean();
+    private volatile boolean fetching = true;
+
+    /**
+     * Creates a pipeline for one level of a crawl.
+     *
+     * @param context          the state of the crawl.
+     * @param fetcher          downloads the pages.
+     * @param parserFactory    parses the downloaded pages.
+     * @param parsePool        the pool that runs the parse stage, one worker per thread.
+     * @param fetchConcurrency the maximum number of downloads in flight.
+     * @param queueCapacity    the maximum number of downloaded pages waiting to be parsed.
+     */
+    FetchParsePipeline(CrawlContext context,
+                       PageFetcher fetcher,
+                       PageParserFactory parserFactory,
+                       ForkJoinPool parsePool,
+                       int fetchConcurrency,
+                       int queueCapacity) {
+        this.context = context;
+        this.fetcher = fetcher;
+        this.parserFactory = parserFactory;
+        this.parsePool = parsePool;
+        this.fetchSlots = new Semaphore(fetchConcurrency);
+        this.queueSlots = new Semaphore(queueCapacity);
+        // Leaves room for the end-of-level markers.
+        this.fetchedPages = new ArrayBlockingQueue<>(queueCapacity + parsePool.getParallelism());
+    }
+
+    /**
+     * Downloads and parses the given URLs, and returns once all of them have been parsed or the
+     * crawl deadline has passed.
+     */
+    void crawl(List<String> urls) {
+        Iterator<String> iterator = urls.iterator();
+        crawl(new UrlSource() {
+            @Override
+            public String next() {
+                return iterator.hasNext() ? iterator.next() : null;
+            }
+
+            @Override
+            public void release(String url) {
+            }
+        });
+    }
+
+    /**
+     * Downloads and parses the URLs queued in the given scheduler, starting each download only when
+     * the scheduler allows it, and returns once all of them have been parsed or the crawl deadline
+     * has passed.
+     */
+    void crawl(PolitenessScheduler scheduler) {
+        crawl(new UrlSource() {
+            @Override
+            public String next() throws InterruptedException {
+                return scheduler.take(context);
+            }
+
+            @Override
+            public void release(String url) {
+                scheduler.release(url);
+            }
+        });
+    }
+
+    private void crawl(UrlSource urls) {
+        List<ForkJoinTask<?>> parseWorkers = new ArrayList<>();
+        for (int i = 0; i < parsePool.getParallelism(); i++) {
+            parseWorkers.add(parsePool.submit(this::parse));
+        }
+        try {
+            fetch(urls);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            fetching = false;
+        }
+        if (unparsedPages.get() == 0) {
+            endLevel();
+        }
+        parseWorkers.forEach(ForkJoinTask::join);
+    }
+
+    /**
+     * Wakes up every parse worker to stop, once no page is left to download or parse. Whichever of
+     * the fetch stage and the last parse worker sees that first calls this, and only once.
+     */
+    private void endLevel() {
+        if (ended.compareAndSet(false, true)) {
+            for (int i = 0; i < parsePool.getParallelism(); i++) {
+                fetchedPages.add(END_OF_LEVEL);
+            }
+        }
+    }
+
+    private void fetch(UrlSource urls) throws InterruptedException {
+        String url;
+        while ((url = urls.next()) != null) {
+            boolean reserved = false;
+            try {
+                reserved = !context.isTimedOut() && reserveSlots();
+            } finally {
+                if (!reserved) {
+                    // The URL is not downloaded, so its host is free for other requests.
+                    urls.release(url);
+                }
+            }
+            if (!reserved) {
+                return;
+            }
+            unparsedPages.incrementAndGet();
+            String fetchedUrl = url;
+            fetcher.fetch(url, context.getDeadline()).whenComplete((page, e) -> {
+                fetchSlots.release();
+                urls.release(fetchedUrl);
+                // Never blocks, since a place in the queue was reserved before the download.
+                fetchedPages.add(page != null ? page : FetchedPage.failed(fetchedUrl));
+            });
+        }
+    }
+
+    /**
+     * Reserves a place in the queue and a download slot before the deadline. Returns false, holding
+     * neither, if the deadline passes first.
+     */
+    private boolean reserveSlots() throws InterruptedException {
+        if (!acquireBeforeDeadline(queueSlots)) {
+            return false;
+        }
+        boolean reserved = false;
+        try {
+            reserved = acquireBeforeDeadline(fetchSlots);
+        } finally {
+            if (!reserved) {
+                queueSlots.release();
+            }
+        }
+        return reserved;
+    }
+
+    private boolean acquireBeforeDeadline(Semaphore semaphore) throws InterruptedException {
+        long millisLeft = Math.max(0, context.getTimeLeft().toMillis());
+        return semaphore.tryAcquire(millisLeft, TimeUnit.MILLISECONDS);
+    }
+
+    private void parse() {
+        while (true) {
+            FetchedPage page;
+            try {
+                // Waits no longer than the deadline, after which a download may never complete.
+                long millisLeft = Math.max(0, context.getTimeLeft().toMillis());
+                page = fetchedPages.poll(millisLeft, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (page == null || page == END_OF_LEVEL || context.isTimedOut()) {
+                // Pages still being downloaded are abandoned by the fetcher at the deadline.
+                return;
+            }
+            queueSlots.release();
+            try {
+                PageParser.Result result = parserFactory
+                        .get(page, context.getDeadline(), context.getWordDictionary())
+                        .parse();
+                if (!page.getFinalUrl().equals(page.getUrl()) && !context.isTimedOut()) {
+                    // The page was downloaded from this URL too, so it is not crawled again.
+                    context.markVisited(context.canonicalize(page.getFinalUrl()));
+                }
+                if (context.finishPage(page.getUrl(), result)) {
+                    context.addDiscoveredLinks(result.getLinks());
+                }
+            } finally {
+                if (unparsedPages.decrementAndGet() == 0 && !fetching) {
+                    endLevel();
+                }
+            }
+        }
+    }
+
+    /**
+     * The URLs the fetch stage downloads, in the order it should start them.
+     */
+    private interface UrlSource {
+
+        /**
+         * Returns the next URL to download, or {@code null} if there are none left.
+         */
+        String next() throws InterruptedException;
+
+        /**
+         * Reports that the download of a URL returned by {@link #next()} is over.
+         */
+        void release(String url);
+    }
+}
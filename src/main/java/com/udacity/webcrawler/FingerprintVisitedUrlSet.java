@@ -0,0 +1,266 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link VisitedUrlSet} that stores 64-bit {@link UrlFingerprint}s instead of URL strings, in an
+ * open-addressing hash table allocated outside of the Java heap.
+ *
+ * <p>Each visited URL costs 8 to 16 bytes of native memory and nothing on the heap, instead of the
+ * one or two hundred heap bytes a URL string and its hash set node take. Adding a URL never takes a
+ * lock: the fingerprint is claimed with a single compare-and-set on an empty slot, found by linear
+ * probing.
+ *
+ * <p>When the table becomes half full, the thread that noticed it allocates a table twice as large
+ * and migrates the fingerprints into it. The migration marks every empty slot of the old table as
+ * {@link #MOVED}, so a thread that reaches the end of its probe sequence during the migration
+ * cannot claim a slot the migration has already passed; it waits for the new table instead. Slots
+ * that hold a fingerprint are never written again, so lookups in the old table stay correct while
+ * the migration is in progress.
+ *
+ * <p>Because only fingerprints are stored, two distinct URLs with the same fingerprint are treated
+ * as the same URL. See {@link UrlFingerprint} for how unlikely that is.
+ */
+final class FingerprintVisitedUrlSet implements VisitedUrlSet {
+    private static final VarHandle SLOTS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    /**
+     * Marks a slot that has never held a fingerprint.
+     */
+    private static final long EMPTY = 0L;
+
+    /**
+     * Marks a slot that was empty when its table was migrated to a larger one.
+     */
+    private static final long MOVED = 1L;
+
+    private static final int MIN_CAPACITY = 1 << 10;
+    private static final int MAX_CAPACITY = 1 << 27;
+
+    private final LongAdder size = new LongAdder();
+    private volatile Table table;
+
+    /**
+     * Creates an empty set sized to hold the given number of URLs without growing.
+     */
+    FingerprintVisitedUrlSet(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < MAX_CAPACITY && capacity / 2 < expectedSize) {
+            capacity <<= 1;
+        }
+        this.table = new Table(capacity);
+    }
+
+    @Override
+    public boolean add(String url) {
+        return addFingerprint(UrlFingerprint.of(url));
+    }
+
+    @Override
+    public boolean contains(String url) {
+        return table.contains(slotValue(UrlFingerprint.of(url)));
+    }
+
+    @Override
+    public int size() {
+        return size.intValue();
+    }
+
+    @Override
+    public void writeTo(DataOutputStream out) throws IOException {
+        Table current = table;
+        out.writeInt(size());
+        for (int index = 0; index < current.capacity(); index++) {
+            long value = (long) SLOTS.getVolatile(current.slots, index * Long.BYTES);
+            if (value != EMPTY && value != MOVED) {
+                out.writeLong(value);
+            }
+        }
+    }
+
+    @Override
+    public void readFrom(DataInputStream in) throws IOException {
+        for (int i = in.readInt(); i > 0; i--) {
+            addFingerprint(in.readLong());
+        }
+    }
+
+    @Override
+    public void close() {
+        // The native memory is released once the table's buffer is garbage collected.
+        table = null;
+    }
+
+    /**
+     * Adds the given fingerprint to the set. Returns false if it was already in the set.
+     */
+    boolean addFingerprint(long fingerprint) {
+        long value = slotValue(fingerprint);
+        while (true) {
+            Table current = table;
+            int outcome = current.insert(value);
+            if (outcome == Table.PRESENT) {
+                return false;
+            }
+            if (outcome == Table.ADDED) {
+                size.increment();
+                if (size.sum() > current.resizeThreshold && current.capacity() < MAX_CAPACITY) {
+                    resize(current);
+                }
+                return true;
+            }
+            resize(current);
+        }
+    }
+
+    /**
+     * Fingerprints that collide with the marker values are shifted to an arbitrary other value.
+     */
+    private static long slotValue(long fingerprint) {
+        return (fingerprint == EMPTY || fingerprint == MOVED) ? 2L : fingerprint;
+    }
+
+    /**
+     * Replaces the given table with one twice its size, or waits for another thread that is already
+     * doing so.
+     */
+    private void resize(Table current) {
+        if (current.capacity() >= MAX_CAPACITY) {
+            throw new IllegalStateException(
+                    "Visited URL set cannot hold more than " + MAX_CAPACITY + " URLs");
+        }
+        if (!current.resizing.compareAndSet(false, true)) {
+            while (table == current) {
+                Thread.yield();
+            }
+            return;
+        }
+        Table next = new Table(current.capacity() * 2);
+        current.migrateTo(next);
+        table = next;
+    }
+
+    /**
+     * A fixed-size open-addressing table of fingerprints in a direct {@link ByteBuffer}.
+     */
+    private static final class Table {
+        static final int ADDED = 0;
+        static final int PRESENT = 1;
+        static final int MIGRATING = 2;
+
+        final ByteBuffer slots;
+        final int mask;
+        final long resizeThreshold;
+        final AtomicBoolean resizing = new AtomicBoolean();
+
+        Table(int capacity) {
+            // VarHandle atomic access requires 8-byte aligned addresses.
+            this.slots = ByteBuffer.allocateDirect(capacity * Long.BYTES + Long.BYTES - 1)
+                    .alignedSlice(Long.BYTES);
+            this.mask = capacity - 1;
+            this.resizeThreshold = capacity / 2;
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        int insert(long value) {
+            int index = (int) value & mask;
+            for (int probes = 0; probes <= mask; ) {
+                long current = (long) SLOTS.getVolatile(slots, index * Long.BYTES);
+                if (current == value) {
+                    return PRESENT;
+                }
+                if (current == MOVED) {
+                    return MIGRATING;
+                }
+                if (current == EMPTY) {
+                    if (SLOTS.compareAndSet(slots, index * Long.BYTES, EMPTY, value)) {
+                        return ADDED;
+                    }
+                    // Lost the race for this slot; look at what the winner wrote.
+                    continue;
+                }
+                index = (index + 1) & mask;
+                probes++;
+            }
+            return MIGRATING;
+        }
+
+        boolean contains(long value) {
+            int index = (int) value & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                long current = (long) SLOTS.getVolatile(slots, index * Long.BYTES);
+                if (current == value) {
+                    return true;
+                }
+                if (current == EMPTY || current == MOVED) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            return false;
+        }
+
+        /**
+         * Copies every fingerprint into the given table, which must not be visible to other
+         * threads yet, and closes every empty slot of this table.
+         */
+        void migrateTo(Table next) {
+            for (int index = 0; index <= mask; index++) {
+                while (true) {
+                    long current = (long) SLOTS.getVolatile(slots, index * Long.BYTES);
+                    if (current != EMPTY) {
+                        next.put(current);
+                        break;
+                    }
+                    if (SLOTS.compareAndSet(slots, index * Long.BYTES, EMPTY, MOVED)) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void put(long value) {
+            int index = (int) value & mask;
+            while ((long) SLOTS.get(slots, index * Long.BYTES) != EMPTY) {
+                index = (index + 1) & mask;
+            }
+            SLOTS.set(slots, index * Long.BYTES, value);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link WordCountAggregator} that counts words approximately, in memory that does not grow with
+ * the number of distinct words.
+ *
+ * <p>Only the most frequent words are counted by name, in a Space-Saving list of
+ * {@code ceil(1 / error)} counters: a word that is not in the list takes the counter of the word
+ * with the lowest count. Every word is also added to a Count-Min Sketch of {@value #DEPTH} rows of
+ * {@code ceil(e / error)} counters, whose estimate of a word is never below its true count. A word
+ * entering the list starts from the lower of two such upper bounds: the highest count the list has
+ * ever dropped plus its own count, and the estimate of the sketch. Either way, no count in the list
+ * is below the true count of its word, and each counter remembers by how much it may be too high,
+ * which is never more than {@code error} times the number of words counted.
+ *
+ * <p>Pages are added under a lock. A crawl checkpoint keeps the counts of the list but not how much
+ * they may be too high, so the errors reported after resuming a crawl only cover the words counted
+ * since.
+ */
+final class HeavyHitterWordCountAggregator implements WordCountAggregator {
+
+    /**
+     * The number of rows of the sketch. Each row is hashed differently, and a word is only
+     * overestimated as much as its least crowded row says, which is within the error bound with a
+     * probability of {@code 1 - e^-DEPTH}, over 99%.
+     */
+    private static final int DEPTH = 5;
+
+    private final int width;
+    private final long[] sketch;
+    private final Map<String, Counter> counters = new HashMap<>();
+    private final Counter[] heap;
+    private int size;
+    private int highestDropped;
+
+    /**
+     * Creates an aggregator whose counts may exceed the true counts by the given fraction of all the
+     * words counted.
+     *
+     * @param error            the relative error, between 0 and 1.
+     * @param popularWordCount the number of popular words of the crawl, which the list always has
+     *                         room for.
+     */
+    HeavyHitterWordCountAggregator(double error, int popularWordCount) {
+        if (!(error > 0 && error < 1)) {
+            throw new IllegalArgumentException("error must be between 0 and 1");
+        }
+        this.width = (int) Math.ceil(Math.E / error);
+        this.sketch = new long[DEPTH * width];
+        this.heap = new Counter[Math.max((int) Math.ceil(1 / error), popularWordCount)];
+    }
+
+    @Override
+    public synchronized void add(Map<String, Integer> pageCounts) {
+        for (Map.Entry<String, Integer> e : pageCounts.entrySet()) {
+            add(e.getKey(), e.getValue());
+        }
+    }
+
+    private void add(String word, int count) {
+        long estimate = addToSketch(word, count);
+        Counter counter = counters.get(word);
+        if (counter != null) {
+            counter.count += count;
+            siftDown(counter.index);
+            return;
+        }
+        int start = (int) Math.min((long) highestDropped + count, estimate);
+        if (size < heap.length) {
+            counter = new Counter(word, size);
+            heap[size++] = counter;
+        } else {
+            counter = heap[0];
+            counters.remove(counter.word);
+            highestDropped = Math.max(highestDropped, counter.count);
+            counter.word = word;
+        }
+        counter.count = start;
+        counter.error = start - count;
+        counters.put(word, counter);
+        siftDown(counter.index);
+        siftUp(counter.index);
+    }
+
+    /**
+     * Adds the given count of the word to every row of the sketch, and returns its new estimate.
+     */
+    private long addToSketch(String word, int count) {
+        long hash = UrlFingerprint.of(word);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int i = row * width + Math.floorMod(h1 + row * h2, width);
+            sketch[i] += count;
+            estimate = Math.min(estimate, sketch[i]);
+        }
+        return estimate;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent].count <= heap[i].count) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int lowest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && heap[left].count < heap[lowest].count) {
+                lowest = left;
+            }
+            if (right < size && heap[right].count < heap[lowest].count) {
+                lowest = right;
+            }
+            if (lowest == i) {
+                return;
+            }
+            swap(i, lowest);
+            i = lowest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        Counter counter = heap[i];
+        heap[i] = heap[j];
+        heap[j] = counter;
+        heap[i].index = i;
+        heap[j].index = j;
+    }
+
+    /**
+     * Returns the counts of the words in the list, which may be called at any time.
+     */
+    @Override
+    public synchronized Map<String, Integer> getCounts() {
+        Map<String, Integer> result = new HashMap<>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++) {
+            result.put(heap[i].word, heap[i].count);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized long getCountError(Collection<String> words) {
+        long error = 0;
+        for (String word : words) {
+            Counter counter = counters.get(word);
+            if (counter != null) {
+                error = Math.max(error, counter.error);
+            }
+        }
+        return error;
+    }
+
+    @Override
+    public synchronized void close() {
+        Arrays.fill(sketch, 0);
+        Arrays.fill(heap, null);
+        counters.clear();
+        size = 0;
+        highestDropped = 0;
+    }
+
+    /**
+     * A counter of the Space-Saving list, which knows its place in the heap of counters.
+     */
+    private static final class Counter {
+        String word;
+        int count;
+        int error;
+        int index;
+
+        Counter(String word, int index) {
+            this.word = word;
+            this.index = index;
+        }
+    }
+}
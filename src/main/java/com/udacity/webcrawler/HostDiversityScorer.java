@@ -0,0 +1,47 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link UrlScorer} that spreads a crawl over many hosts, by preferring URLs from hosts that have
+ * contributed few URLs to the frontier so far.
+ *
+ * <p>The n-th URL scored for a host gets a score of {@code -log2(n)}, so the penalty grows quickly
+ * for the first few URLs of a host and slowly after that.
+ */
+final class HostDiversityScorer implements UrlScorer {
+    private final Map<String, AtomicInteger> urlsPerHost = new ConcurrentHashMap<>();
+
+    @Override
+    public double score(String url, int depth) {
+        int urls = urlsPerHost.computeIfAbsent(HostNames.of(url), host -> new AtomicInteger())
+                .incrementAndGet();
+        return -Math.log(urls) / Math.log(2);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import java.util.Arrays;
+
+/**
+ * Assigns every URL to one of a fixed number of partitions, by a consistent hash of its host.
+ *
+ * <p>Each partition is placed at {@link #POINTS_PER_PARTITION} pseudo-random points of a 64-bit
+ * hash ring, and a URL belongs to the partition of the first point at or after the hash of its
+ * host. All the URLs of a host therefore land in the same partition, the hosts are spread evenly
+ * between the partitions, and adding a partition only moves about {@code 1 / partitions} of the
+ * hosts. The ring only depends on the number of partitions, so every process of a distributed
+ * crawl computes the same assignment.
+ */
+final class HostPartitioner {
+    private static final int POINTS_PER_PARTITION = 128;
+
+    private final long[] points;
+    private final int[] partitions;
+
+    /**
+     * Creates a partitioner for the given number of partitions, which must be positive.
+     */
+    HostPartitioner(int partitionCount) {
+        if (partitionCount <= 0) {
+            throw new IllegalArgumentException("partitionCount must be positive");
+        }
+        long[] keys = new long[partitionCount * POINTS_PER_PARTITION];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = UrlFingerprint.of("partition-" + (i / POINTS_PER_PARTITION) + "#" + i);
+        }
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compareUnsigned(keys[a], keys[b]));
+        this.points = new long[keys.length];
+        this.partitions = new int[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            points[i] = keys[order[i]];
+            partitions[i] = order[i] / POINTS_PER_PARTITION;
+        }
+    }
+
+    /**
+     * Returns the partition of the given URL, between 0 and the number of partitions - 1.
+     */
+    int partitionOf(String url) {
+        long hash = UrlFingerprint.of(HostNames.of(url));
+        int low = 0;
+        int high = points.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(points[middle], hash) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return partitions[low == points.length ? 0 : low];
+    }
+}
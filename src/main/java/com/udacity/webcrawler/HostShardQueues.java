@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * The URLs of one level of the frontier, split into work queues by host shard.
+ *
+ * <p>Every worker has affinity to the shards whose index is congruent to its own modulo the number
+ * of workers: it takes URLs from the head of those queues first. Once they are all empty, it steals
+ * from the tail of the other queues, starting with the shard after its own, so that workers that
+ * run dry keep helping without all converging on the same queue. The queues are only ever filled
+ * when the level is created, so a worker that finds every queue empty is done with the level.
+ */
+final class HostShardQueues {
+    private final List<Deque<String>> shards;
+    private final int workerCount;
+
+    /**
+     * Splits the given URLs of a level between {@code shardCount} queues, for {@code workerCount}
+     * workers.
+     */
+    HostShardQueues(Collection<String> urls, int shardCount, int workerCount) {
+        this.shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ArrayDeque<>());
+        }
+        for (String url : urls) {
+            shards.get(HostNames.shardOf(url, shardCount)).add(url);
+        }
+        this.workerCount = workerCount;
+    }
+
+    /**
+     * Removes and returns the next URL for the given worker, or returns null if every queue is
+     * empty.
+     */
+    String take(int worker) {
+        for (int shard = worker % shards.size(); shard < shards.size(); shard += workerCount) {
+            String url = poll(shard, true);
+            if (url != null) {
+                return url;
+            }
+        }
+        for (int i = 1; i <= shards.size(); i++) {
+            String url = poll((worker + i) % shards.size(), false);
+            if (url != null) {
+                return url;
+            }
+        }
+        return null;
+    }
+
+    private String poll(int shard, boolean fromHead) {
+        Deque<String> queue = shards.get(shard);
+        synchronized (queue) {
+            return fromHead ? queue.pollFirst() : queue.pollLast();
+        }
+    }
+}
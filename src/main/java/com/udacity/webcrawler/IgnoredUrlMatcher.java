@@ -0,0 +1,194 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.parser.LiteralPatterns;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether a URL matches any of the configured {@link IgnoredUrls} patterns, without running
+ * every pattern against every URL.
+ *
+ * <p>The patterns are sorted once, when the matcher is built, ignoring {@code ^} and {@code $}
+ * anchors at their ends:
+ *
+ * <ul>
+ *   <li>Patterns without any regular expression construct, such as {@code
+ *       https://example\.com/login}, go into a hash set of exact URLs.
+ *   <li>Literal prefixes followed by {@code .*}, such as the host rule {@code
+ *       https://ads\.example\.com/.*}, go into a trie that is walked along the URL.
+ *   <li>{@code .*} followed by a literal suffix, such as {@code .*\.pdf}, go into a second trie that
+ *       is walked backwards from the end of the URL.
+ *   <li>All the other patterns are combined by {@link LiteralPatterns#combine(List)} into a single
+ *       alternation, compiled once, so a URL is matched by one {@link java.util.regex.Matcher}
+ *       instead of one per pattern.
+ * </ul>
+ *
+ * <p>A URL matches if and only if it matches one of the patterns. {@code .} does not match line
+ * terminators, so the tries are only exact for URLs without them; such URLs, which a canonical URL
+ * never is, are checked against every pattern instead.
+ */
+final class IgnoredUrlMatcher {
+
+    private final List<Pattern> patterns;
+    private final Set<String> exactUrls = new HashSet<>();
+    private final Trie prefixes;
+    private final Trie reversedSuffixes;
+    private final List<Pattern> regexes;
+
+    /**
+     * Compiles a matcher for the given patterns.
+     */
+    IgnoredUrlMatcher(List<Pattern> patterns) {
+        this.patterns = List.copyOf(patterns);
+        List<String> prefixList = new ArrayList<>();
+        List<String> reversedSuffixList = new ArrayList<>();
+        List<Pattern> otherPatterns = new ArrayList<>();
+        for (Pattern pattern : patterns) {
+            if (pattern.flags() != 0) {
+                otherPatterns.add(pattern);
+                continue;
+            }
+            String regex = LiteralPatterns.stripAnchors(pattern.pattern());
+            String literal = LiteralPatterns.literalOf(regex);
+            if (literal != null) {
+                exactUrls.add(literal);
+                continue;
+            }
+            String prefix = regex.endsWith(".*")
+                    ? LiteralPatterns.literalOf(regex.substring(0, regex.length() - 2))
+                    : null;
+            if (prefix != null) {
+                prefixList.add(prefix);
+                continue;
+            }
+            String suffix =
+                    regex.startsWith(".*") ? LiteralPatterns.literalOf(regex.substring(2)) : null;
+            if (suffix != null) {
+                reversedSuffixList.add(new StringBuilder(suffix).reverse().toString());
+                continue;
+            }
+            otherPatterns.add(pattern);
+        }
+        this.prefixes = new Trie(prefixList);
+        this.reversedSuffixes = new Trie(reversedSuffixList);
+        this.regexes = LiteralPatterns.combine(otherPatterns);
+    }
+
+    /**
+     * Returns true if the given URL matches any of the patterns.
+     */
+    boolean matches(String url) {
+        if (LiteralPatterns.hasLineTerminator(url)) {
+            return patterns.stream().anyMatch(pattern -> pattern.matcher(url).matches());
+        }
+        if (exactUrls.contains(url)
+                || prefixes.matchesPrefixOf(url)
+                || reversedSuffixes.matchesSuffixOf(url)) {
+            return true;
+        }
+        for (Pattern regex : regexes) {
+            if (regex.matcher(url).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * An immutable character trie, stored as sorted child arrays so that walking it allocates
+     * nothing.
+     */
+    private static final class Trie {
+        private final char[] keys;
+        private final Trie[] children;
+        private final boolean terminal;
+
+        Trie(List<String> words) {
+            this(words, 0);
+        }
+
+        private Trie(List<String> words, int depth) {
+            TreeMap<Character, List<String>> byNextChar = new TreeMap<>();
+            boolean endsHere = false;
+            for (String word : words) {
+                if (word.length() == depth) {
+                    endsHere = true;
+                } else {
+                    byNextChar.computeIfAbsent(word.charAt(depth), c -> new ArrayList<>()).add(word);
+                }
+            }
+            this.terminal = endsHere;
+            if (endsHere) {
+                // Every longer word is already covered by this one.
+                byNextChar.clear();
+            }
+            this.keys = new char[byNextChar.size()];
+            this.children = new Trie[byNextChar.size()];
+            int i = 0;
+            for (var entry : byNextChar.entrySet()) {
+                keys[i] = entry.getKey();
+                children[i++] = new Trie(entry.getValue(), depth + 1);
+            }
+        }
+
+        /**
+         * Returns true if one of the words of this trie is a prefix of the given string.
+         */
+        boolean matchesPrefixOf(String s) {
+            Trie node = this;
+            for (int i = 0; !node.terminal; i++) {
+                if (i == s.length() || (node = node.child(s.charAt(i))) == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns true if one of the words of this trie, reversed, is a suffix of the given string.
+         */
+        boolean matchesSuffixOf(String s) {
+            Trie node = this;
+            for (int i = s.length() - 1; !node.terminal; i--) {
+                if (i < 0 || (node = node.child(s.charAt(i))) == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Trie child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+}
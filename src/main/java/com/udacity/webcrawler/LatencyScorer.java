@@ -0,0 +1,61 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link UrlScorer} that estimates the cost of a page from how long earlier pages of the same host
+ * took to crawl, taking one point off per second.
+ *
+ * <p>The estimate for a host is an exponentially weighted moving average of its crawl times, so it
+ * follows a host that slows down or speeds up during the crawl. Hosts without any crawled page yet
+ * are not penalized, so that they get a chance to be measured.
+ */
+final class LatencyScorer implements UrlScorer {
+
+    /**
+     * The weight of the newest crawl time in the moving average.
+     */
+    private static final double SMOOTHING = 0.3;
+
+    private final Map<String, Double> secondsPerHost = new ConcurrentHashMap<>();
+
+    @Override
+    public double score(String url, int depth) {
+        return -secondsPerHost.getOrDefault(HostNames.of(url), 0.0);
+    }
+
+    @Override
+    public void recordCrawl(String url, Duration elapsed) {
+        double seconds = elapsed.toNanos() / 1e9;
+        secondsPerHost.merge(
+                HostNames.of(url),
+                seconds,
+                (average, latest) -> average + SMOOTHING * (latest - average));
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Forwards discovered links between the worker processes of a {@link DistributedWebCrawler}, over
+ * loopback sockets.
+ *
+ * <p>Links for another worker are buffered, and sent in batches of {@code batchSize} URLs over a
+ * connection to that worker that is opened on first use and then kept. Each batch is a count
+ * followed by the URLs, and the receiving worker answers it with a single byte once it has handed
+ * the URLs to its inbox, so when {@link #flush()} returns, every link forwarded so far has been
+ * received. A URL is only sent once between two flushes.
+ *
+ * <p>The exchange also accepts the connections of the other workers on its own server socket, and
+ * reads their batches on one daemon thread per connection.
+ */
+final class LinkExchange implements AutoCloseable {
+    private static final byte ACK = 1;
+
+    private final int[] peerPorts;
+    private final int batchSize;
+    private final ServerSocket server;
+    private final Consumer<List<String>> inbox;
+    private final Peer[] peers;
+    private final List<Socket> accepted = new ArrayList<>();
+    private final Set<String> forwarded = new HashSet<>();
+
+    /**
+     * Creates an exchange, and starts accepting the batches of the other workers.
+     *
+     * @param server    the server socket the other workers connect to, which the exchange takes
+     *                  ownership of.
+     * @param peerPorts the loopback port of the server socket of every worker, by index.
+     * @param batchSize the number of URLs sent to a worker at once.
+     * @param inbox     receives every batch sent to this worker. It is called from several threads.
+     */
+    LinkExchange(ServerSocket server, int[] peerPorts, int batchSize, Consumer<List<String>> inbox) {
+        this.server = Objects.requireNonNull(server);
+        this.peerPorts = peerPorts.clone();
+        this.batchSize = batchSize;
+        this.inbox = Objects.requireNonNull(inbox);
+        this.peers = new Peer[peerPorts.length];
+        Thread acceptor = new Thread(this::accept, "link-exchange-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Buffers the given URL for the worker with the given index, and sends the buffer if it is full.
+     *
+     * @throws UncheckedIOException if the batch could not be sent.
+     */
+    void forward(int worker, String url) {
+        if (!forwarded.add(url)) {
+            return;
+        }
+        Peer peer = peers[worker];
+        if (peer == null) {
+            peer = peers[worker] = new Peer(peerPorts[worker]);
+        }
+        peer.buffer.add(url);
+        if (peer.buffer.size() >= batchSize) {
+            peer.send();
+        }
+    }
+
+    /**
+     * Sends every buffered URL, and waits until the other workers have received them.
+     *
+     * @throws UncheckedIOException if a batch could not be sent.
+     */
+    void flush() {
+        for (Peer peer : peers) {
+            if (peer != null && !peer.buffer.isEmpty()) {
+                peer.send();
+            }
+        }
+        forwarded.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (Peer peer : peers) {
+            if (peer != null) {
+                peer.socket.close();
+            }
+        }
+        synchronized (accepted) {
+            for (Socket socket : accepted) {
+                socket.close();
+            }
+        }
+    }
+
+    private void accept() {
+        try {
+            while (true) {
+                Socket socket = server.accept();
+                synchronized (accepted) {
+                    accepted.add(socket);
+                }
+                Thread receiver = new Thread(() -> receive(socket), "link-exchange-receiver");
+                receiver.setDaemon(true);
+                receiver.start();
+            }
+        } catch (IOException e) {
+            // The server socket was closed.
+        }
+    }
+
+    private void receive(Socket socket) {
+        try {
+            DataInputStream in =
+                    new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            while (true) {
+                int count = in.readInt();
+                List<String> urls = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    urls.add(CrawlCheckpoint.readString(in));
+                }
+                inbox.accept(urls);
+                out.writeByte(ACK);
+                out.flush();
+            }
+        } catch (EOFException e) {
+            // The other worker is done.
+        } catch (IOException e) {
+            // The exchange was closed.
+        }
+    }
+
+    /**
+     * The connection to another worker, and the URLs not sent to it yet.
+     */
+    private static final class Peer {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final List<String> buffer = new ArrayList<>();
+
+        Peer(int port) {
+            try {
+                socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                in = new DataInputStream(socket.getInputStream());
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void send() {
+            try {
+                out.writeInt(buffer.size());
+                for (String url : buffer) {
+                    CrawlCheckpoint.writeString(out, url);
+                }
+                out.flush();
+                if (in.readByte() != ACK) {
+                    throw new IOException("unexpected answer to a batch of links");
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Recognizes pages that are nearly identical to a page already crawled, such as mirrors,
+ * paginated listings and URLs that only differ by a session parameter.
+ *
+ * <p>Each page is fingerprinted with {@link SimHash}, and two pages are near-duplicates if their
+ * fingerprints differ in at most {@code maxDistance} bits. To find such a fingerprint without
+ * comparing against every page, the 64 bits are split into {@code maxDistance + 1} blocks: two
+ * fingerprints that differ in at most {@code maxDistance} bits must agree on at least one whole
+ * block, so each fingerprint is indexed under each of its blocks, and only the fingerprints that
+ * share a block with a new page are compared with it.
+ *
+ * <p>A detector is created for each crawl and is safe to use from several threads. Checking a page
+ * and adding it to the index are not done atomically, so two near-duplicates that are checked at
+ * the same moment may both be reported as new; this only costs a redundant page, never a lost one.
+ */
+final class NearDuplicateDetector {
+    private final int maxDistance;
+    private final boolean countNearDuplicateWords;
+    private final int[] blockStarts;
+    private final Map<Long, Queue<Long>> fingerprintsByBlock = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a detector.
+     *
+     * @param maxDistance             the largest number of differing fingerprint bits for which
+     *                                two pages are near-duplicates, or 0 to disable detection.
+     * @param countNearDuplicateWords whether the words of near-duplicate pages should still be
+     *                                counted.
+     */
+    NearDuplicateDetector(int maxDistance, boolean countNearDuplicateWords) {
+        this.maxDistance = maxDistance;
+        this.countNearDuplicateWords = countNearDuplicateWords;
+        int blocks = maxDistance + 1;
+        this.blockStarts = new int[blocks + 1];
+        for (int i = 0; i <= blocks; i++) {
+            blockStarts[i] = i * Long.SIZE / blocks;
+        }
+    }
+
+    /**
+     * Returns whether near-duplicates are detected at all.
+     */
+    boolean isEnabled() {
+        return maxDistance > 0;
+    }
+
+    /**
+     * Returns whether the words of near-duplicate pages should still be counted.
+     */
+    boolean countsNearDuplicateWords() {
+        return countNearDuplicateWords;
+    }
+
+    /**
+     * Returns whether a page with the given word counts is a near-duplicate of a page passed to this
+     * method before. If it is not, the page is added to the index.
+     *
+     * <p>Always returns false if detection is disabled or the page has no words.
+     */
+    boolean isNearDuplicate(Map<String, Integer> wordCounts) {
+        if (maxDistance == 0 || wordCounts.isEmpty()) {
+            return false;
+        }
+        long fingerprint = SimHash.of(wordCounts);
+        for (int block = 0; block < blockStarts.length - 1; block++) {
+            Queue<Long> candidates = fingerprintsByBlock.get(blockKey(fingerprint, block));
+            if (candidates == null) {
+                continue;
+            }
+            for (long candidate : candidates) {
+                if (Long.bitCount(candidate ^ fingerprint) <= maxDistance) {
+                    return true;
+                }
+            }
+        }
+        for (int block = 0; block < blockStarts.length - 1; block++) {
+            fingerprintsByBlock
+                    .computeIfAbsent(blockKey(fingerprint, block), key -> new ConcurrentLinkedQueue<>())
+                    .add(fingerprint);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index key of the given block of a fingerprint: the block number in the upper 32
+     * bits, and the bits of the block in the lower 32 bits.
+     */
+    private long blockKey(long fingerprint, int block) {
+        int width = blockStarts[block + 1] - blockStarts[block];
+        long bits = (fingerprint >>> blockStarts[block]) & ((1L << width) - 1);
+        return ((long) block << 32) | bits;
+    }
+}
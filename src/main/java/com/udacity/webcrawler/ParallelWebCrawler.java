@@ -25,30 +25,98 @@
 package com.udacity.webcrawler;
 
 import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.PageFetcher;
+import com.udacity.webcrawler.parser.PageParser;
 import com.udacity.webcrawler.parser.PageParserFactory;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ForkJoinPool;
-import java.util.regex.Pattern;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * A concrete implementation of {@link WebCrawler} that runs multiple threads on a
  * {@link ForkJoinPool} to fetch and process multiple web pages in parallel.
+ *
+ * <p>The crawl is level-synchronous: the crawler keeps an explicit frontier holding every URL at
+ * the current depth, removes ignored and already visited URLs from it, and then fetches the whole
+ * level as one parallel wave of {@link CrawlLevelTask}s. The links found during a wave become the
+ * frontier of the next depth.
+ *
+ * <p>Each level of the frontier is held in a {@link SpillingUrlQueue}. If the configured frontier
+ * memory limit is reached, the rest of the level is spilled to disk, and the level is then crawled
+ * in successive batches that each fit in memory.
+ *
+ * <p>If a fetch concurrency is configured, each level is instead crawled by a
+ * {@link FetchParsePipeline}, which downloads pages asynchronously and parses them on the pool.
+ * Otherwise, if host shards are configured, the URLs of each level are split into
+ * {@link HostShardQueues}, and every worker thread crawls the URLs of its own shards before
+ * stealing from the others.
+ *
+ * <p>If per-host limits are configured, the URLs of each level are handed out by a
+ * {@link PolitenessScheduler} instead: every worker thread, or the fetch stage of the pipeline,
+ * asks it for the next URL whose host is ready for another request.
+ *
+ * <p>If frontier scorers are configured, the crawl is best-first instead: the crawler keeps every
+ * discovered URL in a {@link PriorityFrontier}, and every worker thread repeatedly crawls the URL
+ * with the highest score, regardless of its depth.
+ *
+ * <p>If a checkpoint directory is configured, a level-by-level crawl periodically saves its state
+ * between two batches in a {@link CrawlCheckpoint}, and can be resumed from it. Its batches are
+ * then bounded, so that a checkpoint is not put off until the end of a large level.
+ *
+ * <p>If a maximum parallelism is configured, pages are loaded through {@link AdaptiveParallelism},
+ * which moves the parallelism of the pool within the configured bounds while the crawl runs. The
+ * worker threads of a polite or best-first crawl are started with the parallelism of the pool at
+ * that time, and every thread blocked on a download can be compensated for by the pool.
+ *
+ * <p>If a snapshot interval is configured, {@link CrawlSnapshots} of the crawl are taken while it
+ * runs, and the popular words of the result are read from the running ranking they rely on.
+ *
+ * <p>All the state of a crawl lives in its own {@link CrawlContext}, so a single instance can run
+ * several crawls at the same time on its shared pool.
  */
 final class ParallelWebCrawler implements WebCrawler {
+
+    /**
+     * The number of leaf tasks each worker thread should get per level, on average. Having a few
+     * more batches than workers lets work-stealing even out pages that are slow to download.
+     */
+    static final int BATCHES_PER_WORKER = 4;
+
+    /**
+     * The most pages each worker thread gets per batch of a checkpointed crawl. A checkpoint can
+     * only be taken between two batches, so this bounds how late one can be.
+     */
+    static final int CHECKPOINTED_PAGES_PER_WORKER = 64;
+
     private final Clock clock;
     private final PageParserFactory parserFactory;
     private final Duration timeout;
     private final int popularWordCount;
     private final ForkJoinPool pool;
     private final int maxDepth;
-    private final List<Pattern> ignoredUrls;
+    private final IgnoredUrlMatcher ignoredUrls;
+    private final UrlCanonicalizer canonicalizer;
+    private final Provider<VisitedUrlSet> visitedUrlSets;
+    private final Provider<WordCountAggregator> wordCountAggregators;
+    private final Provider<NearDuplicateDetector> nearDuplicateDetectors;
+    private final Provider<SpillingUrlQueue> levelQueues;
+    private final PageFetcher fetcher;
+    private final int fetchConcurrency;
+    private final int parseQueueCapacity;
+    private final int hostShards;
+    private final Provider<PolitenessScheduler> politenessSchedulers;
+    private final Provider<PriorityFrontier> priorityFrontiers;
+    private final Provider<CrawlCheckpoint> checkpoints;
+    private final AdaptiveParallelism pages;
+    private final Provider<CrawlSnapshots> snapshots;
 
     @Inject
     ParallelWebCrawler(
@@ -58,42 +126,221 @@ final class ParallelWebCrawler implements WebCrawler {
             @PopularWordCount int popularWordCount,
             @TargetParallelism int threadCount,
             @MaxDepth int maxDepth,
-            @IgnoredUrls List<Pattern> ignoredUrls) {
+            IgnoredUrlMatcher ignoredUrls,
+            UrlCanonicalizer canonicalizer,
+            Provider<VisitedUrlSet> visitedUrlSets,
+            Provider<WordCountAggregator> wordCountAggregators,
+            Provider<NearDuplicateDetector> nearDuplicateDetectors,
+            Provider<SpillingUrlQueue> levelQueues,
+            PageFetcher fetcher,
+            @FetchConcurrency int fetchConcurrency,
+            @ParseQueueCapacity int parseQueueCapacity,
+            @HostShards int hostShards,
+            Provider<PolitenessScheduler> politenessSchedulers,
+            Provider<PriorityFrontier> priorityFrontiers,
+            Provider<CrawlCheckpoint> checkpoints,
+            AdaptiveParallelism pages,
+            Provider<CrawlSnapshots> snapshots) {
         this.clock = clock;
         this.timeout = timeout;
         this.popularWordCount = popularWordCount;
-        this.pool = new ForkJoinPool(Math.min(threadCount, getMaxParallelism()));
+        this.pool = pages.newPool(Math.min(threadCount, getMaxParallelism()));
         this.maxDepth = maxDepth;
         this.ignoredUrls = ignoredUrls;
+        this.canonicalizer = canonicalizer;
         this.parserFactory = parserFactory;
+        this.visitedUrlSets = visitedUrlSets;
+        this.wordCountAggregators = wordCountAggregators;
+        this.nearDuplicateDetectors = nearDuplicateDetectors;
+        this.levelQueues = levelQueues;
+        this.fetcher = fetcher;
+        this.fetchConcurrency = fetchConcurrency;
+        this.parseQueueCapacity = parseQueueCapacity;
+        this.hostShards = hostShards;
+        this.politenessSchedulers = politenessSchedulers;
+        this.priorityFrontiers = priorityFrontiers;
+        this.checkpoints = checkpoints;
+        this.pages = pages;
+        this.snapshots = snapshots;
     }
 
     @Override
     public CrawlResult crawl(List<String> startingUrls) {
         Instant deadline = clock.instant().plus(timeout);
-        CrawlerRecursiveAction crawlerRecursiveAction = new CrawlerRecursiveAction.Builder()
-                .setDeadline(deadline)
-                .setTimeout(timeout)
-                .setStartingUrls(startingUrls)
-                .setMaxDepth(maxDepth)
-                .setClock(clock)
-                .setIgnoredUrls(ignoredUrls)
-                .setParserFactory(parserFactory)
-                .build();
-
-        pool.invoke(crawlerRecursiveAction);
-        Map<String, Integer> counts = crawlerRecursiveAction.getCounts();
-        Set<String> visitedUrls = crawlerRecursiveAction.getVisitedUrls();
-
-        CrawlResult.Builder resultBuilder = new CrawlResult.Builder()
-                .setWordCounts(counts)
-                .setUrlsVisited(visitedUrls.size());
-
-        if (!counts.isEmpty()) {
-            resultBuilder.setWordCounts(WordCounts.sort(counts, popularWordCount));
+        PolitenessScheduler scheduler = politenessSchedulers.get();
+        PriorityFrontier priorityFrontier = priorityFrontiers.get();
+        try (CrawlContext context = new CrawlContext(
+                clock,
+                deadline,
+                ignoredUrls::matches,
+                canonicalizer,
+                visitedUrlSets.get(),
+                wordCountAggregators.get(),
+                nearDuplicateDetectors.get(),
+                levelQueues::get);
+             CrawlSnapshots crawlSnapshots = snapshots.get()) {
+            if (priorityFrontier.isEnabled()) {
+                crawlSnapshots.start(context, priorityFrontier::size);
+                crawlBestFirst(context, priorityFrontier, startingUrls);
+            } else {
+                crawlSnapshots.start(context, context::getFrontierSize);
+                crawlByLevel(context, scheduler, checkpoints.get(), startingUrls);
+            }
+
+            Map<String, Integer> popularWords = context.getPopularWords(popularWordCount);
+            return new CrawlResult.Builder()
+                    .setWordCounts(popularWords)
+                    .setWordCountError(context.getCountError(popularWords.keySet()))
+                    .setUrlsVisited(context.getUrlsVisited())
+                    .build();
         }
+    }
 
-        return resultBuilder.build();
+    private void crawlByLevel(
+            CrawlContext context,
+            PolitenessScheduler scheduler,
+            CrawlCheckpoint checkpoint,
+            List<String> startingUrls) {
+        context.setCheckpointed(checkpoint.isEnabled());
+        if (!checkpoint.restore(context)) {
+            context.startFrontier(startingUrls);
+        }
+        int maxBatchSize = checkpoint.isEnabled()
+                ? pool.getParallelism() * CHECKPOINTED_PAGES_PER_WORKER
+                : Integer.MAX_VALUE;
+        while (context.getDepth() < maxDepth && context.hasFrontier()) {
+            List<String> batch;
+            while (!(batch = context.pollFrontier(maxBatchSize)).isEmpty()) {
+                if (scheduler.isLimiting()) {
+                    crawlLevelPolitely(context, scheduler, batch);
+                } else {
+                    crawlLevel(context, batch);
+                }
+                if (context.isTimedOut()) {
+                    // Pages of the batch may have been skipped or cut short; keep them for a resumed crawl.
+                    checkpoint.write(context, batch);
+                    return;
+                }
+                checkpoint.maybeWrite(context);
+            }
+            context.advanceFrontier();
+        }
+        checkpoint.delete();
+    }
+
+    private void crawlLevel(CrawlContext context, List<String> level) {
+        if (fetchConcurrency > 0) {
+            new FetchParsePipeline(
+                    context, fetcher, parserFactory, pool, fetchConcurrency, parseQueueCapacity)
+                    .crawl(level);
+            return;
+        }
+        if (hostShards > 0) {
+            crawlLevelByHostShard(context, level);
+            return;
+        }
+        pool.invoke(new CrawlLevelTask(
+                context,
+                pages,
+                level,
+                level.size() / (pool.getParallelism() * BATCHES_PER_WORKER)));
+    }
+
+    private void crawlLevelByHostShard(CrawlContext context, List<String> level) {
+        int workerCount = pool.getParallelism();
+        HostShardQueues queues = new HostShardQueues(level, hostShards, workerCount);
+        List<ForkJoinTask<?>> workers = new ArrayList<>();
+        for (int i = 0; i < workerCount; i++) {
+            int worker = i;
+            workers.add(pool.submit(() -> {
+                String url;
+                while (!context.isTimedOut() && (url = queues.take(worker)) != null) {
+                    CrawlLevelTask.crawl(context, pages, url);
+                }
+            }));
+        }
+        workers.forEach(ForkJoinTask::join);
+    }
+
+    private void crawlLevelPolitely(
+            CrawlContext context, PolitenessScheduler scheduler, List<String> level) {
+        scheduler.addAll(level);
+        if (fetchConcurrency > 0) {
+            new FetchParsePipeline(
+                    context, fetcher, parserFactory, pool, fetchConcurrency, parseQueueCapacity)
+                    .crawl(scheduler);
+            return;
+        }
+        List<ForkJoinTask<?>> workers = new ArrayList<>();
+        for (int i = 0; i < pool.getParallelism(); i++) {
+            workers.add(pool.submit(() -> {
+                try {
+                    String url;
+                    while ((url = scheduler.take(context)) != null) {
+                        try {
+                            CrawlLevelTask.crawl(context, pages, url);
+                        } finally {
+                            scheduler.release(url);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        workers.forEach(ForkJoinTask::join);
+    }
+
+    private void crawlBestFirst(
+            CrawlContext context, PriorityFrontier frontier, List<String> startingUrls) {
+        if (maxDepth == 0) {
+            return;
+        }
+        for (String startingUrl : startingUrls) {
+            String url = context.canonicalize(startingUrl);
+            if (!context.isIgnored(url)) {
+                frontier.add(url, 0);
+            }
+        }
+        List<ForkJoinTask<?>> workers = new ArrayList<>();
+        for (int i = 0; i < pool.getParallelism(); i++) {
+            workers.add(pool.submit(() -> {
+                try {
+                    PriorityFrontier.Entry entry;
+                    while ((entry = frontier.take(context)) != null) {
+                        try {
+                            crawlEntry(context, frontier, entry);
+                        } finally {
+                            frontier.done();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        workers.forEach(ForkJoinTask::join);
+    }
+
+    private void crawlEntry(
+            CrawlContext context, PriorityFrontier frontier, PriorityFrontier.Entry entry) {
+        String url = entry.getUrl();
+        if (!context.markVisited(url)) {
+            return;
+        }
+        long start = System.nanoTime();
+        PageParser.Result result =
+                pages.load(url, context.getDeadline(), context.getWordDictionary());
+        frontier.recordCrawl(url, Duration.ofNanos(System.nanoTime() - start));
+        if (!context.addPage(result) || entry.getDepth() + 1 >= maxDepth) {
+            return;
+        }
+        for (String link : result.getLinks()) {
+            String linkUrl = context.canonicalize(link);
+            if (!context.isIgnored(linkUrl) && !context.isVisited(linkUrl)) {
+                frontier.add(linkUrl, entry.getDepth() + 1);
+            }
+        }
     }
 
     @Override
@@ -0,0 +1,224 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out the URLs of a crawl so that no host receives more requests than it allows.
+ *
+ * <p>URLs are queued per host. Each host has a token bucket that refills at the configured number
+ * of requests per second, and a cap on how many of its URLs may be downloading at once. A worker
+ * asks for its next URL with {@link #take(CrawlContext)}, which returns a URL from whichever host is
+ * ready next, cycling through the ready hosts in round-robin order, and reports back with
+ * {@link #release(String)} when the download is over.
+ *
+ * <p>A single scheduler is used for a whole crawl, so the rate limits carry over from one level of
+ * the frontier to the next.
+ */
+final class PolitenessScheduler {
+
+    /**
+     * The longest a worker waits before checking the crawl deadline again.
+     */
+    private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final double requestsPerSecond;
+    private final int maxConnections;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<String, Host> hosts = new HashMap<>();
+    private final Queue<Host> readyHosts = new ArrayDeque<>();
+    private final PriorityQueue<Host> throttledHosts =
+            new PriorityQueue<>(Comparator.comparingLong(host -> host.nextTokenNanos));
+    private int queuedUrls;
+
+    /**
+     * Creates a scheduler with the given limits.
+     *
+     * @param requestsPerSecond the maximum request rate per host, or 0 for no limit.
+     * @param maxConnections    the maximum number of downloads in flight per host, or 0 for no
+     *                          limit.
+     */
+    PolitenessScheduler(double requestsPerSecond, int maxConnections) {
+        this.requestsPerSecond = requestsPerSecond;
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * Returns whether this scheduler enforces any limit.
+     */
+    boolean isLimiting() {
+        return requestsPerSecond > 0 || maxConnections > 0;
+    }
+
+    /**
+     * Queues the given URLs.
+     */
+    void addAll(Collection<String> urls) {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            for (String url : urls) {
+                Host host = hosts.computeIfAbsent(HostNames.of(url), name -> new Host(now));
+                host.urls.add(url);
+                queuedUrls++;
+                schedule(host, now);
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the next URL whose host is ready for another request, waiting for one if needed.
+     *
+     * @return the next URL, or {@code null} if no URLs are queued or the crawl has timed out.
+     */
+    String take(CrawlContext context) throws InterruptedException {
+        lock.lock();
+        try {
+            while (queuedUrls > 0 && !context.isTimedOut()) {
+                long now = System.nanoTime();
+                while (!throttledHosts.isEmpty() && throttledHosts.peek().nextTokenNanos <= now) {
+                    Host host = throttledHosts.poll();
+                    host.state = State.PARKED;
+                    schedule(host, now);
+                }
+                Host host = readyHosts.poll();
+                if (host != null) {
+                    host.state = State.PARKED;
+                    String url = host.urls.poll();
+                    queuedUrls--;
+                    host.activeConnections++;
+                    host.takeToken(now);
+                    schedule(host, now);
+                    return url;
+                }
+                long wait = MAX_WAIT_NANOS;
+                if (!throttledHosts.isEmpty()) {
+                    wait = Math.min(wait, throttledHosts.peek().nextTokenNanos - now);
+                }
+                changed.awaitNanos(Math.max(1, wait));
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reports that the download of a URL returned by {@link #take(CrawlContext)} is over.
+     */
+    void release(String url) {
+        lock.lock();
+        try {
+            Host host = hosts.get(HostNames.of(url));
+            host.activeConnections--;
+            schedule(host, System.nanoTime());
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts a parked host in the queue that matches its state. Hosts that have no queued URLs, or no
+     * free connection, stay parked until {@link #addAll(Collection)} or {@link #release(String)}
+     * gives them one.
+     */
+    private void schedule(Host host, long now) {
+        if (host.state != State.PARKED || host.urls.isEmpty()) {
+            return;
+        }
+        if (maxConnections > 0 && host.activeConnections >= maxConnections) {
+            return;
+        }
+        if (host.nextTokenNanos <= now) {
+            host.state = State.READY;
+            readyHosts.add(host);
+        } else {
+            host.state = State.THROTTLED;
+            throttledHosts.add(host);
+        }
+    }
+
+    private enum State {
+        PARKED, READY, THROTTLED
+    }
+
+    /**
+     * The queue and rate limiting state of a single host.
+     */
+    private final class Host {
+        final Queue<String> urls = new ArrayDeque<>();
+        State state = State.PARKED;
+        int activeConnections;
+        /**
+         * The number of tokens in the bucket, as of {@link #refilledNanos}.
+         */
+        double tokens;
+        long refilledNanos;
+        /**
+         * The time at which the bucket holds at least one token.
+         */
+        long nextTokenNanos;
+
+        Host(long now) {
+            this.tokens = burst();
+            this.refilledNanos = now;
+            this.nextTokenNanos = now;
+        }
+
+        void takeToken(long now) {
+            if (requestsPerSecond <= 0) {
+                return;
+            }
+            tokens = Math.min(burst(), tokens + (now - refilledNanos) * requestsPerSecond / 1e9);
+            refilledNanos = now;
+            tokens -= 1;
+            nextTokenNanos = tokens >= 1
+                    ? now
+                    : now + (long) Math.ceil((1 - tokens) * 1e9 / requestsPerSecond);
+        }
+
+        /**
+         * A host may receive up to one second's worth of requests in a burst.
+         */
+        private double burst() {
+            return Math.max(1, Math.floor(requestsPerSecond));
+        }
+    }
+}
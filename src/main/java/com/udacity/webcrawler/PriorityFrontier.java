@@ -0,0 +1,191 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A best-first crawl frontier: a priority queue of discovered URLs, ordered by the sum of the
+ * scores given by its {@link UrlScorer}s. URLs with equal scores are crawled in the order they were
+ * discovered.
+ *
+ * <p>A URL is scored when it is added, and is not queued again while it waits, even if it is
+ * discovered again at a smaller depth. The frontier forgets a URL once it is taken, so its memory
+ * only depends on the URLs it holds: from then on, the visited set of the crawl keeps the URL from
+ * being crawled again. Worker threads take URLs with {@link #take(CrawlContext)}
+ * and report back with {@link #done()}; the frontier is exhausted once it is empty and no worker is
+ * still crawling a page that could add more URLs.
+ */
+final class PriorityFrontier {
+
+    /**
+     * The longest an idle worker waits before checking the crawl deadline again.
+     */
+    private static final long MAX_WAIT_MILLIS = 100;
+
+    private final List<UrlScorer> scorers;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(
+            Comparator.comparingDouble((Entry entry) -> -entry.score)
+                    .thenComparingLong(entry -> entry.sequence));
+    private final Set<String> queued = new HashSet<>();
+    private long sequence;
+    private int activeWorkers;
+
+    /**
+     * Creates a frontier ordered by the given scorers.
+     */
+    PriorityFrontier(List<UrlScorer> scorers) {
+        this.scorers = List.copyOf(scorers);
+    }
+
+    /**
+     * Returns the number of URLs waiting in this frontier.
+     */
+    long size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns whether this frontier has any scorer. A frontier without scorers is not used, and the
+     * crawl proceeds one depth at a time instead.
+     */
+    boolean isEnabled() {
+        return !scorers.isEmpty();
+    }
+
+    /**
+     * Scores and queues the given URL, unless it is already queued.
+     *
+     * @param url   the URL to queue.
+     * @param depth the number of links between a starting page and the URL.
+     */
+    void add(String url, int depth) {
+        lock.lock();
+        try {
+            if (!queued.add(url)) {
+                return;
+            }
+            double score = 0;
+            for (UrlScorer scorer : scorers) {
+                score += scorer.score(url, depth);
+            }
+            queue.add(new Entry(url, depth, score, sequence++));
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the queued URL with the highest score, waiting for other workers to add more URLs if
+     * the queue is empty. Every entry returned must be followed by a call to {@link #done()}.
+     *
+     * @return the next entry, or {@code null} if the frontier is exhausted or the crawl has timed
+     *     out.
+     */
+    Entry take(CrawlContext context) throws InterruptedException {
+        lock.lock();
+        try {
+            while (queue.isEmpty() && activeWorkers > 0 && !context.isTimedOut()) {
+                changed.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            if (queue.isEmpty() || context.isTimedOut()) {
+                return null;
+            }
+            activeWorkers++;
+            Entry entry = queue.poll();
+            queued.remove(entry.url);
+            return entry;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reports that the worker has finished crawling the entry it last took, and has added all the
+     * URLs it discovered.
+     */
+    void done() {
+        lock.lock();
+        try {
+            activeWorkers--;
+            if (activeWorkers == 0) {
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tells every scorer how long it took to crawl a page.
+     */
+    void recordCrawl(String url, Duration elapsed) {
+        for (UrlScorer scorer : scorers) {
+            scorer.recordCrawl(url, elapsed);
+        }
+    }
+
+    /**
+     * A queued URL.
+     */
+    static final class Entry {
+        private final String url;
+        private final int depth;
+        private final double score;
+        private final long sequence;
+
+        private Entry(String url, int depth, double score, long sequence) {
+            this.url = Objects.requireNonNull(url);
+            this.depth = depth;
+            this.score = score;
+            this.sequence = sequence;
+        }
+
+        String getUrl() {
+            return url;
+        }
+
+        int getDepth() {
+            return depth;
+        }
+    }
+}
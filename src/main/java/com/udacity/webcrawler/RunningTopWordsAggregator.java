@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link WordCountAggregator} that also keeps a running ranking of the most popular words, so
+ * that they can be read at any time during the crawl, and right away when it ends.
+ *
+ * <p>Every page adds its counts to a {@link ConcurrentHashMap}, which returns the new total of each
+ * word, and the word is then offered to the ranking with that total. Since totals only grow, a word
+ * can only enter the ranking when its own total grows: the ranking stays exact by comparing the
+ * offered word with its lowest ranked member only. Offers of words whose total is below the count
+ * of that member, which is most of them once the crawl is under way, return without taking the
+ * lock of the ranking.
+ */
+final class RunningTopWordsAggregator implements WordCountAggregator {
+    private final int popularWordCount;
+    private final Map<String, Integer> counts = new ConcurrentHashMap<>();
+    private final Map<String, Map.Entry<String, Integer>> members = new HashMap<>();
+    private final TreeSet<Map.Entry<String, Integer>> ranking =
+            new TreeSet<>(new WordCounts.WordCountComparator());
+    private volatile int lowestCount;
+
+    /**
+     * Creates an aggregator that ranks the given number of most popular words.
+     */
+    RunningTopWordsAggregator(int popularWordCount) {
+        this.popularWordCount = popularWordCount;
+    }
+
+    @Override
+    public void add(Map<String, Integer> pageCounts) {
+        for (Map.Entry<String, Integer> e : pageCounts.entrySet()) {
+            int total = counts.merge(e.getKey(), e.getValue(), Integer::sum);
+            if (total >= lowestCount) {
+                offer(e.getKey(), total);
+            }
+        }
+    }
+
+    /**
+     * Offers the given word with its new total to the ranking. Offers of the same word from several
+     * threads may arrive out of order, so a member only ever keeps its highest total.
+     */
+    private synchronized void offer(String word, int total) {
+        if (popularWordCount == 0) {
+            return;
+        }
+        Map.Entry<String, Integer> entry = Map.entry(word, total);
+        Map.Entry<String, Integer> member = members.get(word);
+        if (member != null) {
+            if (member.getValue() >= total) {
+                return;
+            }
+            ranking.remove(member);
+        } else if (ranking.size() == popularWordCount) {
+            Map.Entry<String, Integer> lowest = ranking.last();
+            if (ranking.comparator().compare(entry, lowest) >= 0) {
+                return;
+            }
+            ranking.pollLast();
+            members.remove(lowest.getKey());
+        }
+        ranking.add(entry);
+        members.put(word, entry);
+        if (ranking.size() == popularWordCount) {
+            lowestCount = ranking.last().getValue();
+        }
+    }
+
+    @Override
+    public Map<String, Integer> getCounts() {
+        return new HashMap<>(counts);
+    }
+
+    /**
+     * Returns the running ranking, which may be called at any time. The given number must be the one
+     * this aggregator was created with.
+     */
+    @Override
+    public synchronized Map<String, Integer> getPopularWords(int popularWordCount) {
+        if (popularWordCount != this.popularWordCount) {
+            throw new IllegalArgumentException("this aggregator ranks " + this.popularWordCount
+                    + " words, not " + popularWordCount);
+        }
+        Map<String, Integer> popularWords = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> e : ranking) {
+            popularWords.put(e.getKey(), e.getValue());
+        }
+        return popularWords;
+    }
+
+    @Override
+    public synchronized void close() {
+        counts.clear();
+        members.clear();
+        ranking.clear();
+    }
+}
@@ -33,7 +33,6 @@ import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.regex.Pattern;
 
 /**
  * A {@link WebCrawler} that downloads and processes one page at a time.
@@ -45,7 +44,8 @@ final class SequentialWebCrawler implements WebCrawler {
     private final Duration timeout;
     private final int popularWordCount;
     private final int maxDepth;
-    private final List<Pattern> ignoredUrls;
+    private final IgnoredUrlMatcher ignoredUrls;
+    private final UrlCanonicalizer canonicalizer;
 
     @Inject
     SequentialWebCrawler(
@@ -54,13 +54,15 @@ final class SequentialWebCrawler implements WebCrawler {
             @Timeout Duration timeout,
             @PopularWordCount int popularWordCount,
             @MaxDepth int maxDepth,
-            @IgnoredUrls List<Pattern> ignoredUrls) {
+            IgnoredUrlMatcher ignoredUrls,
+            UrlCanonicalizer canonicalizer) {
         this.clock = clock;
         this.parserFactory = parserFactory;
         this.timeout = timeout;
         this.popularWordCount = popularWordCount;
         this.maxDepth = maxDepth;
         this.ignoredUrls = ignoredUrls;
+        this.canonicalizer = canonicalizer;
     }
 
     @Override
@@ -86,7 +88,7 @@ final class SequentialWebCrawler implements WebCrawler {
     }
 
     private void crawlInternal(
-            String url,
+            String discoveredUrl,
             Instant deadline,
             int maxDepth,
             Map<String, Integer> counts,
@@ -94,16 +96,12 @@ final class SequentialWebCrawler implements WebCrawler {
         if (maxDepth == 0 || clock.instant().isAfter(deadline)) {
             return;
         }
-        for (Pattern pattern : ignoredUrls) {
-            if (pattern.matcher(url).matches()) {
-                return;
-            }
-        }
-        if (visitedUrls.contains(url)) {
+        String url = canonicalizer.canonicalize(discoveredUrl);
+        if (ignoredUrls.matches(url) || visitedUrls.contains(url)) {
             return;
         }
         visitedUrls.add(url);
-        PageParser.Result result = parserFactory.get(url).parse();
+        PageParser.Result result = parserFactory.get(url, deadline).parse();
         for (Map.Entry<String, Integer> e : result.getWordCounts().entrySet()) {
             if (counts.containsKey(e.getKey())) {
                 counts.put(e.getKey(), e.getValue() + counts.get(e.getKey()));
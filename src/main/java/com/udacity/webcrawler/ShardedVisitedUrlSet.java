@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A {@link VisitedUrlSet} split into one set per host shard, where every URL is kept in the set of
+ * the shard of its host.
+ *
+ * <p>When the worker threads of a crawl each work on their own host shards, they each mostly
+ * touch their own set, which keeps them from contending on a single shared set.
+ */
+final class ShardedVisitedUrlSet implements VisitedUrlSet {
+    private final VisitedUrlSet[] shards;
+
+    /**
+     * Creates a set backed by the given empty sets, one per shard, which it takes ownership of.
+     */
+    ShardedVisitedUrlSet(List<VisitedUrlSet> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("at least one shard is required");
+        }
+        this.shards = shards.toArray(new VisitedUrlSet[0]);
+    }
+
+    private VisitedUrlSet shardOf(String url) {
+        return shards[HostNames.shardOf(url, shards.length)];
+    }
+
+    @Override
+    public boolean add(String url) {
+        return shardOf(url).add(url);
+    }
+
+    @Override
+    public boolean contains(String url) {
+        return shardOf(url).contains(url);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (VisitedUrlSet shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(shards.length);
+        for (VisitedUrlSet shard : shards) {
+            shard.writeTo(out);
+        }
+    }
+
+    @Override
+    public void readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != shards.length) {
+            throw new IOException("the checkpoint was written with a different number of shards");
+        }
+        for (VisitedUrlSet shard : shards) {
+            shard.readFrom(in);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (VisitedUrlSet shard : shards) {
+            shard.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import java.util.Map;
+
+/**
+ * Computes 64-bit SimHash fingerprints of pages, which are close in Hamming distance when the pages
+ * have similar words.
+ *
+ * <p>Every word is hashed to 64 bits with {@link UrlFingerprint#of(String)}. For each bit position,
+ * the words whose hash has that bit set vote for a 1 and the others for a 0, each with as many votes
+ * as the word has occurrences on the page, and the fingerprint bit is set if the ones win. Changing
+ * a few words of a long page therefore only flips a few bits of its fingerprint.
+ */
+final class SimHash {
+
+    private SimHash() {
+        // This class cannot be instantiated
+    }
+
+    /**
+     * Returns the SimHash of a page with the given word counts.
+     */
+    static long of(Map<String, Integer> wordCounts) {
+        long[] votes = new long[Long.SIZE];
+        for (Map.Entry<String, Integer> entry : wordCounts.entrySet()) {
+            long hash = UrlFingerprint.of(entry.getKey());
+            int count = entry.getValue();
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                votes[bit] += ((hash >>> bit) & 1) != 0 ? count : -count;
+            }
+        }
+        long simHash = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (votes[bit] > 0) {
+                simHash |= 1L << bit;
+            }
+        }
+        return simHash;
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A first-in, first-out queue of URLs that keeps at most a fixed number of them on the heap, and
+ * spills the rest to append-only segment files on local disk.
+ *
+ * <p>The queue is meant to hold one level of a crawl frontier: it is filled by any number of
+ * threads while the previous level is crawled, and then drained in batches by a single thread.
+ * Spilled URLs are written as length-prefixed UTF-8 records. A segment file is closed once it
+ * reaches a fixed size, and segments are read back sequentially through a buffered stream, which
+ * is closed before the segment is deleted. The heap used by the queue therefore does not depend on
+ * how many URLs it holds.
+ *
+ * <p>A queue whose head capacity is {@link Integer#MAX_VALUE} never spills. Its URLs are kept in a
+ * lock-free queue instead, so the threads that fill it never wait on each other.
+ */
+final class SpillingUrlQueue implements AutoCloseable {
+
+    /**
+     * The default size at which a segment file is closed and a new one is started.
+     */
+    static final int SEGMENT_BYTES = 64 << 20;
+
+    /**
+     * The size of the buffer that segments are read back through.
+     */
+    private static final int READ_BUFFER_BYTES = 64 << 10;
+
+    private final int headCapacity;
+    private final Path spillDirectory;
+    private final int segmentBytes;
+    private final boolean bounded;
+    private final Queue<String> head;
+    private final AtomicLong size = new AtomicLong();
+    private final Queue<Path> segments = new ArrayDeque<>();
+    private Path directory;
+    private DataOutputStream segmentWriter;
+    private int segmentSize;
+    private DataInputStream reader;
+    private Path readerSegment;
+    private long readerSize;
+    private long readerOffset;
+
+    /**
+     * Creates an empty queue.
+     *
+     * @param headCapacity   the largest number of URLs kept on the heap.
+     * @param spillDirectory the directory in which a temporary directory for the segment files is
+     *                       created, if the queue ever spills.
+     */
+    SpillingUrlQueue(int headCapacity, Path spillDirectory) {
+        this(headCapacity, spillDirectory, SEGMENT_BYTES);
+    }
+
+    /**
+     * Creates an empty queue whose segment files are closed once they reach the given size.
+     */
+    SpillingUrlQueue(int headCapacity, Path spillDirectory, int segmentBytes) {
+        this.headCapacity = headCapacity;
+        this.spillDirectory = spillDirectory;
+        this.segmentBytes = segmentBytes;
+        this.bounded = headCapacity < Integer.MAX_VALUE;
+        this.head = bounded ? new ArrayDeque<>() : new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Appends the given URLs to the queue.
+     *
+     * @throws UncheckedIOException if the URLs could not be spilled to disk.
+     */
+    void addAll(Collection<String> urls) {
+        if (!bounded) {
+            // Count the URLs first, so that the size is never less than the number of URLs that
+            // can be polled.
+            size.addAndGet(urls.size());
+            head.addAll(urls);
+            return;
+        }
+        synchronized (this) {
+            addAllBounded(urls);
+        }
+    }
+
+    private void addAllBounded(Collection<String> urls) {
+        for (String url : urls) {
+            // Only URLs that nothing was spilled before can go on the heap.
+            if (head.size() < headCapacity && segments.isEmpty() && readerOffset == readerSize) {
+                head.add(url);
+            } else {
+                spill(url);
+            }
+            size.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of URLs in the queue.
+     */
+    long size() {
+        return size.get();
+    }
+
+    /**
+     * Removes and returns up to {@code maxSize} URLs from the front of the queue. Returns an empty
+     * list only if the queue is empty.
+     *
+     * @throws UncheckedIOException if spilled URLs could not be read back.
+     */
+    List<String> poll(int maxSize) {
+        List<String> batch =
+                new ArrayList<>(Math.min(maxSize, (int) Math.min(size.get(), 1 << 16)));
+        if (!bounded) {
+            String url;
+            while (batch.size() < maxSize && (url = head.poll()) != null) {
+                batch.add(url);
+            }
+            size.addAndGet(-batch.size());
+            return batch;
+        }
+        synchronized (this) {
+            pollBounded(maxSize, batch);
+        }
+        return batch;
+    }
+
+    private void pollBounded(int maxSize, List<String> batch) {
+        while (batch.size() < maxSize && !head.isEmpty()) {
+            batch.add(head.poll());
+        }
+        try {
+            while (batch.size() < maxSize && nextRecord()) {
+                byte[] bytes = new byte[reader.readInt()];
+                reader.readFully(bytes);
+                readerOffset += Integer.BYTES + bytes.length;
+                batch.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        size.addAndGet(-batch.size());
+    }
+
+    /**
+     * Removes and returns as many URLs from the front of the queue as it keeps on the heap. Returns
+     * an empty list only if the queue is empty.
+     *
+     * @throws UncheckedIOException if spilled URLs could not be read back.
+     */
+    List<String> poll() {
+        return poll(headCapacity);
+    }
+
+    /**
+     * Writes the {@link #size()} URLs in the queue to the given stream, from front to back, without
+     * removing them. Spilled URLs are copied from their segment files as they are.
+     */
+    synchronized void writeTo(DataOutputStream out) throws IOException {
+        for (String url : head) {
+            CrawlCheckpoint.writeString(out, url);
+        }
+        if (readerSegment != null) {
+            try (InputStream unread = Files.newInputStream(readerSegment)) {
+                unread.skipNBytes(readerOffset);
+                unread.transferTo(out);
+            }
+        }
+        if (segmentWriter != null) {
+            segmentWriter.flush();
+        }
+        for (Path segment : segments) {
+            Files.copy(segment, out);
+        }
+    }
+
+    /**
+     * Appends the given number of URLs, as written by {@link #writeTo(DataOutputStream)}, to the
+     * queue.
+     *
+     * @throws UncheckedIOException if the URLs could not be spilled to disk.
+     */
+    void readFrom(DataInputStream in, long count) throws IOException {
+        List<String> urls = new ArrayList<>();
+        for (long i = 0; i < count; i++) {
+            urls.add(CrawlCheckpoint.readString(in));
+            if (urls.size() == 1 << 12) {
+                addAll(urls);
+                urls.clear();
+            }
+        }
+        addAll(urls);
+    }
+
+    /**
+     * Positions the reader on the next spilled record, opening the next segment if needed.
+     *
+     * @return false if there are no spilled records left.
+     */
+    private boolean nextRecord() throws IOException {
+        while (reader == null || readerOffset == readerSize) {
+            if (readerSegment != null) {
+                closeReader();
+            }
+            if (segments.isEmpty()) {
+                return false;
+            }
+            if (segmentWriter != null && segments.size() == 1) {
+                // The last segment is still being written.
+                closeSegment();
+            }
+            readerSegment = segments.poll();
+            readerSize = Files.size(readerSegment);
+            readerOffset = 0;
+            reader = new DataInputStream(new BufferedInputStream(
+                    Files.newInputStream(readerSegment), READ_BUFFER_BYTES));
+        }
+        return true;
+    }
+
+    /**
+     * Closes the segment being read, and then deletes it: an open file cannot be deleted on every
+     * platform.
+     */
+    private void closeReader() throws IOException {
+        try {
+            reader.close();
+        } finally {
+            reader = null;
+            readerSize = 0;
+            readerOffset = 0;
+            Files.deleteIfExists(readerSegment);
+            readerSegment = null;
+        }
+    }
+
+    private void spill(String url) {
+        byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+        try {
+            if (segmentWriter != null && segmentSize + Integer.BYTES + bytes.length > segmentBytes) {
+                closeSegment();
+            }
+            if (segmentWriter == null) {
+                if (directory == null) {
+                    Files.createDirectories(spillDirectory);
+                    directory = Files.createTempDirectory(spillDirectory, "frontier");
+                }
+                Path segment = Files.createTempFile(directory, "segment", ".bin");
+                segmentWriter = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(segment)));
+                segments.add(segment);
+                segmentSize = 0;
+            }
+            segmentWriter.writeInt(bytes.length);
+            segmentWriter.write(bytes);
+            segmentSize += Integer.BYTES + bytes.length;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Closes the segment being written. It is already the last element of {@link #segments}.
+     */
+    private void closeSegment() throws IOException {
+        segmentWriter.close();
+        segmentWriter = null;
+    }
+
+    /**
+     * Empties the queue and deletes its segment files.
+     */
+    @Override
+    public synchronized void close() {
+        head.clear();
+        size.set(0);
+        try {
+            if (segmentWriter != null) {
+                closeSegment();
+            }
+            if (readerSegment != null) {
+                closeReader();
+            }
+            for (Path segment : segments) {
+                Files.deleteIfExists(segment);
+            }
+            segments.clear();
+            if (directory != null) {
+                Files.deleteIfExists(directory);
+                directory = null;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
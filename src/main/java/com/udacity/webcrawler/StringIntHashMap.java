@@ -0,0 +1,162 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A hash map from {@link String} keys to primitive {@code int} values, using open addressing with
+ * linear probing.
+ *
+ * <p>Keys and values live in two parallel arrays, so adding to a count neither allocates an entry
+ * object nor boxes an {@link Integer}. This class is not thread-safe.
+ */
+final class StringIntHashMap {
+    private static final int MIN_CAPACITY = 16;
+
+    private String[] keys;
+    private int[] values;
+    private int size;
+
+    StringIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates a map that can hold the given number of keys before it needs to grow.
+     */
+    StringIntHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        this.keys = new String[capacity];
+        this.values = new int[capacity];
+    }
+
+    /**
+     * Adds the given amount to the value of the given key. Missing keys start at 0.
+     */
+    void add(String key, int delta) {
+        int mask = keys.length - 1;
+        int index = spread(key.hashCode()) & mask;
+        while (keys[index] != null) {
+            if (keys[index].equals(key)) {
+                values[index] += delta;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = delta;
+        if (++size > keys.length * 3 / 4) {
+            grow();
+        }
+    }
+
+    /**
+     * Returns the value of the given key, or 0 if the key is not in the map.
+     */
+    int get(String key) {
+        int mask = keys.length - 1;
+        int index = spread(key.hashCode()) & mask;
+        while (keys[index] != null) {
+            if (keys[index].equals(key)) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds every value of the given map to the value of the same key in this map.
+     */
+    void addAll(StringIntHashMap other) {
+        other.forEach(this::add);
+    }
+
+    /**
+     * Calls the given action once for every key and its value.
+     */
+    void forEach(ObjIntConsumer<String> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Copies this map into a new {@link HashMap}.
+     */
+    Map<String, Integer> toMap() {
+        Map<String, Integer> result = new HashMap<>(size * 4 / 3 + 1);
+        forEach(result::put);
+        return result;
+    }
+
+    /**
+     * Removes every key, and shrinks the map back to its minimum size.
+     */
+    void clear() {
+        keys = new String[MIN_CAPACITY];
+        values = new int[MIN_CAPACITY];
+        size = 0;
+    }
+
+    private void grow() {
+        String[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new String[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int index = spread(oldKeys[i].hashCode()) & mask;
+                while (keys[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Mixes the bits of a {@link String#hashCode()}, whose low bits are poorly distributed for
+     * short strings, so that linear probing does not build long clusters.
+     */
+    private static int spread(int hash) {
+        hash *= 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A {@link WordCountAggregator} in which every worker thread adds up its pages into its own
+ * {@link StringIntHashMap}, so adding a page never touches memory shared with other workers.
+ *
+ * <p>The per-thread partial maps are only combined when {@link #getCounts()} is called, by a
+ * fork-join reduction that merges them pairwise in parallel.
+ */
+final class ThreadLocalWordCountAggregator implements WordCountAggregator {
+    private final Queue<StringIntHashMap> partials = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<StringIntHashMap> partial = ThreadLocal.withInitial(() -> {
+        StringIntHashMap counts = new StringIntHashMap();
+        partials.add(counts);
+        return counts;
+    });
+
+    @Override
+    public void add(Map<String, Integer> pageCounts) {
+        StringIntHashMap counts = partial.get();
+        for (Map.Entry<String, Integer> e : pageCounts.entrySet()) {
+            counts.add(e.getKey(), e.getValue());
+        }
+    }
+
+    @Override
+    public Map<String, Integer> getCounts() {
+        List<StringIntHashMap> maps = new ArrayList<>(partials);
+        if (maps.isEmpty()) {
+            return new StringIntHashMap().toMap();
+        }
+        StringIntHashMap merged = new MergeTask(maps, 0, maps.size()).invoke();
+        // The merge reused one of the partial maps as its destination. Empty the others, so that
+        // calling this method again does not count them twice. They stay registered, because their
+        // threads keep adding pages to them if the crawl goes on.
+        for (StringIntHashMap counts : maps) {
+            if (counts != merged) {
+                counts.clear();
+            }
+        }
+        return merged.toMap();
+    }
+
+    @Override
+    public void close() {
+        // The pool threads keep their thread-local maps until this aggregator is garbage collected,
+        // so empty them now.
+        for (StringIntHashMap counts : partials) {
+            counts.clear();
+        }
+        partials.clear();
+    }
+
+    /**
+     * Merges a range of partial maps into a single map. The largest map of each pair is reused as
+     * the destination, so the reduction copies as few entries as possible.
+     */
+    private static final class MergeTask extends RecursiveTask<StringIntHashMap> {
+        private final List<StringIntHashMap> maps;
+        private final int from;
+        private final int to;
+
+        MergeTask(List<StringIntHashMap> maps, int from, int to) {
+            this.maps = maps;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected StringIntHashMap compute() {
+            if (to - from == 1) {
+                return maps.get(from);
+            }
+            int middle = (from + to) >>> 1;
+            MergeTask left = new MergeTask(maps, from, middle);
+            left.fork();
+            StringIntHashMap right = new MergeTask(maps, middle, to).compute();
+            StringIntHashMap merged = left.join();
+            if (merged.size() < right.size()) {
+                StringIntHashMap smaller = merged;
+                merged = right;
+                right = smaller;
+            }
+            merged.addAll(right);
+            return merged;
+        }
+    }
+}
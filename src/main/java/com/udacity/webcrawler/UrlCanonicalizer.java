@@ -0,0 +1,154 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+/**
+ * Rewrites URLs into a canonical form before they are checked against the visited set, so that
+ * different spellings of the same page are only downloaded once.
+ *
+ * <p>The canonical form of a URL has:
+ * <ul>
+ *   <li>a lower case scheme and host,
+ *   <li>no port if it is the default port of the scheme,
+ *   <li>a path without {@code "."} and {@code ".."} segments, and {@code "/"} instead of an empty
+ *       path,
+ *   <li>no query parameters whose name matches one of the configured patterns,
+ *   <li>no fragment.
+ * </ul>
+ *
+ * <p>URLs that cannot be parsed, and opaque URLs such as {@code mailto:} links, are returned as is.
+ */
+final class UrlCanonicalizer {
+    private final List<Pattern> strippedQueryParameters;
+
+    /**
+     * Creates a canonicalizer that removes the query parameters whose name matches any of the given
+     * patterns.
+     */
+    UrlCanonicalizer(List<Pattern> strippedQueryParameters) {
+        this.strippedQueryParameters = Objects.requireNonNull(strippedQueryParameters);
+    }
+
+    /**
+     * Returns the canonical form of the given URL.
+     */
+    String canonicalize(String url) {
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            return url;
+        }
+        if (uri.isOpaque() || uri.getScheme() == null) {
+            return url;
+        }
+        uri = uri.normalize();
+
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        String path = removeLeadingDotSegments(uri.getRawPath() == null ? "" : uri.getRawPath());
+        String query = stripQueryParameters(uri.getRawQuery());
+        StringBuilder canonical = new StringBuilder(url.length()).append(scheme).append(':');
+        if (uri.getHost() != null) {
+            canonical.append("//");
+            if (uri.getRawUserInfo() != null) {
+                canonical.append(uri.getRawUserInfo()).append('@');
+            }
+            canonical.append(uri.getHost().toLowerCase(Locale.ROOT));
+            if (uri.getPort() != -1 && uri.getPort() != defaultPort(scheme)) {
+                canonical.append(':').append(uri.getPort());
+            }
+            if (path.isEmpty()) {
+                path = "/";
+            }
+        } else if (uri.getRawAuthority() != null) {
+            // A registry-based authority, which is kept as is.
+            canonical.append("//").append(uri.getRawAuthority());
+        }
+        canonical.append(path);
+        if (query != null) {
+            canonical.append('?').append(query);
+        }
+        return canonical.toString();
+    }
+
+    /**
+     * Removes the {@code ".."} segments that {@link URI#normalize()} keeps at the start of an
+     * absolute path, since they cannot go above the root: RFC 3986 drops them, so that
+     * {@code "/../a"} is the same path as {@code "/a"}.
+     */
+    private static String removeLeadingDotSegments(String path) {
+        while (path.startsWith("/../")) {
+            path = path.substring(3);
+        }
+        return path.equals("/..") ? "/" : path;
+    }
+
+    /**
+     * Returns the given raw query without the stripped parameters, or {@code null} if no parameter
+     * is left.
+     */
+    private String stripQueryParameters(String query) {
+        if (query == null || strippedQueryParameters.isEmpty()) {
+            return query;
+        }
+        StringJoiner kept = new StringJoiner("&");
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            if (!isStripped(name)) {
+                kept.add(parameter);
+            }
+        }
+        return kept.length() == 0 ? null : kept.toString();
+    }
+
+    private boolean isStripped(String name) {
+        for (Pattern pattern : strippedQueryParameters) {
+            if (pattern.matcher(name).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int defaultPort(String scheme) {
+        switch (scheme) {
+            case "http":
+                return 80;
+            case "https":
+                return 443;
+            default:
+                return -1;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import java.time.Duration;
+
+/**
+ * Scores URLs for a {@link PriorityFrontier}. URLs with higher scores are crawled first.
+ *
+ * <p>A scorer is created for each crawl, so it may keep state about the crawl it scores, such as
+ * the pages it has seen so far. Its methods may be called from several threads at once.
+ */
+interface UrlScorer {
+
+    /**
+     * Returns the score of a URL that has just been discovered.
+     *
+     * @param url   the discovered URL.
+     * @param depth the number of links between a starting page and the URL.
+     */
+    double score(String url, int depth);
+
+    /**
+     * Records that a page has been crawled, so that the scores of URLs discovered later can take it
+     * into account. Does nothing by default.
+     *
+     * @param url     the URL of the crawled page.
+     * @param elapsed how long it took to download and parse the page.
+     */
+    default void recordCrawl(String url, Duration elapsed) {
+    }
+}
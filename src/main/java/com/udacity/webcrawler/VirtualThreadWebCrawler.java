@@ -0,0 +1,274 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link WebCrawler} that downloads and processes pages on virtual threads, one page at a time
+ * per thread.
+ *
+ * <p>Page downloads are blocking I/O, and a virtual thread that blocks on a socket does not hold
+ * on to an OS thread, so this crawler can keep thousands of downloads in flight with only a
+ * handful of carrier threads. A {@link Semaphore} caps how many threads, and so downloads, a crawl
+ * may have at once: discovered links wait in a queue, and a thread is only started for them while
+ * a permit is free. A thread keeps taking links from the queue until it is empty.
+ *
+ * <p>All the threads of a crawl belong to one executor that is closed before
+ * {@link #crawl(List)} returns, so no thread outlives its crawl. When the crawl deadline passes,
+ * the executor is shut down, which interrupts every download still in progress.
+ *
+ * <p>Since the threads only live as long as there are links waiting for them, the words are never
+ * counted into per-thread maps: {@code "threadLocal"} word count aggregation uses one shared
+ * concurrent map instead.
+ */
+final class VirtualThreadWebCrawler implements WebCrawler {
+    private final Clock clock;
+    private final PageParserFactory parserFactory;
+    private final Duration timeout;
+    private final int popularWordCount;
+    private final int maxDepth;
+    private final IgnoredUrlMatcher ignoredUrls;
+    private final UrlCanonicalizer canonicalizer;
+    private final int maxInFlightRequests;
+    private final Provider<VisitedUrlSet> visitedUrlSets;
+    private final Provider<WordCountAggregator> wordCountAggregators;
+    private final Provider<NearDuplicateDetector> nearDuplicateDetectors;
+    private final Provider<SpillingUrlQueue> levelQueues;
+
+    @Inject
+    VirtualThreadWebCrawler(
+            Clock clock,
+            PageParserFactory parserFactory,
+            @Timeout Duration timeout,
+            @PopularWordCount int popularWordCount,
+            @MaxDepth int maxDepth,
+            IgnoredUrlMatcher ignoredUrls,
+            UrlCanonicalizer canonicalizer,
+            @MaxInFlightRequests int maxInFlightRequests,
+            Provider<VisitedUrlSet> visitedUrlSets,
+            @ThreadPerPage Provider<WordCountAggregator> wordCountAggregators,
+            Provider<NearDuplicateDetector> nearDuplicateDetectors,
+            Provider<SpillingUrlQueue> levelQueues) {
+        this.clock = clock;
+        this.parserFactory = parserFactory;
+        this.timeout = timeout;
+        this.popularWordCount = popularWordCount;
+        this.maxDepth = maxDepth;
+        this.ignoredUrls = ignoredUrls;
+        this.canonicalizer = canonicalizer;
+        this.maxInFlightRequests = maxInFlightRequests;
+        this.visitedUrlSets = visitedUrlSets;
+        this.wordCountAggregators = wordCountAggregators;
+        this.nearDuplicateDetectors = nearDuplicateDetectors;
+        this.levelQueues = levelQueues;
+    }
+
+    @Override
+    public CrawlResult crawl(List<String> startingUrls) {
+        Instant deadline = clock.instant().plus(timeout);
+        try (CrawlContext context = new CrawlContext(
+                clock,
+                deadline,
+                ignoredUrls::matches,
+                canonicalizer,
+                visitedUrlSets.get(),
+                wordCountAggregators.get(),
+                nearDuplicateDetectors.get(),
+                levelQueues::get)) {
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                Crawl crawl = new Crawl(context, executor);
+                crawl.start(startingUrls);
+                crawl.awaitCompletion();
+            }
+
+            Map<String, Integer> popularWords =
+                    WordCounts.sort(context.getCounts(), popularWordCount);
+            return new CrawlResult.Builder()
+                    .setWordCounts(popularWords)
+                    .setWordCountError(context.getCountError(popularWords.keySet()))
+                    .setUrlsVisited(context.getUrlsVisited())
+                    .build();
+        }
+    }
+
+    @Override
+    public int getMaxParallelism() {
+        return maxInFlightRequests;
+    }
+
+    /**
+     * A discovered link waiting for a thread, with the number of levels left to crawl from it.
+     */
+    private static final class Link {
+        final String url;
+        final int depth;
+
+        Link(String url, int depth) {
+            this.url = url;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * The threads of a single crawl, and the bookkeeping needed to know when they are all done.
+     */
+    private final class Crawl {
+        private final CrawlContext context;
+        private final ExecutorService executor;
+        private final Queue<Link> links = new ConcurrentLinkedQueue<>();
+        private final Semaphore threads = new Semaphore(maxInFlightRequests);
+        private final AtomicInteger pendingPages = new AtomicInteger();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Crawl(CrawlContext context, ExecutorService executor) {
+            this.context = context;
+            this.executor = executor;
+        }
+
+        /**
+         * Starts crawling the given starting pages.
+         */
+        void start(List<String> startingUrls) {
+            // Counts as a pending page until every starting page has been submitted, so that the
+            // crawl cannot be considered done while the first pages are already finishing.
+            pendingPages.incrementAndGet();
+            for (String url : startingUrls) {
+                submit(url, maxDepth);
+            }
+            finishPage();
+        }
+
+        /**
+         * Queues the given URL to be crawled, and starts a virtual thread for it if the crawl has
+         * fewer threads than it may.
+         */
+        void submit(String url, int depth) {
+            pendingPages.incrementAndGet();
+            links.add(new Link(url, depth));
+            startThreads();
+        }
+
+        private void startThreads() {
+            while (!links.isEmpty() && threads.tryAcquire()) {
+                try {
+                    executor.execute(this::crawlLinks);
+                } catch (RejectedExecutionException e) {
+                    // The deadline has passed and the executor has been shut down.
+                    threads.release();
+                    return;
+                }
+            }
+        }
+
+        private void crawlLinks() {
+            try {
+                Link link;
+                while ((link = links.poll()) != null) {
+                    try {
+                        visit(link.url, link.depth);
+                    } finally {
+                        finishPage();
+                    }
+                }
+            } finally {
+                threads.release();
+            }
+            // A link queued after the last poll, but before the permit was released, may have found
+            // no permit to start a thread with.
+            startThreads();
+        }
+
+        private void finishPage() {
+            if (pendingPages.decrementAndGet() == 0) {
+                done.complete(null);
+            }
+        }
+
+        private void visit(String discoveredUrl, int depth) {
+            if (depth == 0 || context.isTimedOut()) {
+                return;
+            }
+            String url = context.canonicalize(discoveredUrl);
+            if (context.isIgnored(url)) {
+                return;
+            }
+            if (!context.markVisited(url)) {
+                return;
+            }
+            PageParser.Result result = parserFactory
+                    .get(url, context.getDeadline(), context.getWordDictionary())
+                    .parse();
+            if (!context.addPage(result)) {
+                return;
+            }
+            for (String link : result.getLinks()) {
+                submit(link, depth - 1);
+            }
+        }
+
+        /**
+         * Waits until every page of the crawl has been processed, or until the deadline passes, in
+         * which case all downloads still in progress are interrupted.
+         */
+        void awaitCompletion() {
+            if (pendingPages.get() == 0) {
+                return;
+            }
+            Duration remaining = Duration.between(clock.instant(), context.getDeadline());
+            try {
+                done.get(Math.max(0, remaining.toNanos()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                executor.shutdownNow();
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The set of URLs a single crawl has already visited.
+ *
+ * <p>Implementations must be safe to use from many threads at once. A set is created for each
+ * crawl and closed when the crawl is over.
+ */
+interface VisitedUrlSet extends AutoCloseable {
+
+    /**
+     * Adds the given URL to the set.
+     *
+     * @return true if the URL was not in the set before; false if it had already been added.
+     */
+    boolean add(String url);
+
+    /**
+     * Returns true if the given URL has been added to the set.
+     */
+    boolean contains(String url);
+
+    /**
+     * Returns the number of distinct URLs in the set.
+     */
+    int size();
+
+    /**
+     * Writes the contents of the set to the given stream, for a {@link CrawlCheckpoint}. Must not be
+     * called while URLs are being added.
+     */
+    void writeTo(DataOutputStream out) throws IOException;
+
+    /**
+     * Adds the contents that {@link #writeTo(DataOutputStream)} wrote from a set of the same kind
+     * and configuration.
+     */
+    void readFrom(DataInputStream in) throws IOException;
+
+    /**
+     * Releases the memory held by this set. The set must not be used after it has been closed.
+     */
+    @Override
+    void close();
+}
@@ -30,15 +30,21 @@ import com.google.inject.Provides;
 import com.google.inject.ProvisionException;
 import com.google.inject.multibindings.Multibinder;
 import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.PageFetcher;
+import com.udacity.webcrawler.parser.PageParserFactory;
 import com.udacity.webcrawler.parser.ParserModule;
+import com.udacity.webcrawler.parser.WordDictionary;
 import com.udacity.webcrawler.profiler.Profiler;
 
+import javax.inject.Provider;
 import javax.inject.Qualifier;
 import javax.inject.Singleton;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.nio.file.Path;
 import java.time.Clock;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -58,12 +64,36 @@ import java.util.regex.Pattern;
 public final class WebCrawlerModule extends AbstractModule {
 
     private final CrawlerConfiguration config;
+    private final boolean resumeFromCheckpoint;
+    private final List<String> workerCommand;
 
     /**
      * Installs a web crawler that conforms to the given {@link CrawlerConfiguration}.
      */
     public WebCrawlerModule(CrawlerConfiguration config) {
+        this(config, false);
+    }
+
+    /**
+     * Installs a web crawler that conforms to the given {@link CrawlerConfiguration}, and that
+     * resumes its crawl from the checkpoint in {@link CrawlerConfiguration#getCheckpointDirectory()}
+     * if {@code resumeFromCheckpoint} is true and there is one.
+     */
+    public WebCrawlerModule(CrawlerConfiguration config, boolean resumeFromCheckpoint) {
+        this(config, resumeFromCheckpoint, List.of());
+    }
+
+    /**
+     * Installs a web crawler that conforms to the given {@link CrawlerConfiguration}, and that starts
+     * the worker processes of a distributed crawl with the given command. The port of the
+     * coordinator and the index of the worker are appended to the command, and the process should
+     * then run a {@link CrawlWorker} with them.
+     */
+    public WebCrawlerModule(
+            CrawlerConfiguration config, boolean resumeFromCheckpoint, List<String> workerCommand) {
         this.config = Objects.requireNonNull(config);
+        this.resumeFromCheckpoint = resumeFromCheckpoint;
+        this.workerCommand = List.copyOf(workerCommand);
     }
 
     @Override
@@ -73,19 +103,37 @@ public final class WebCrawlerModule extends AbstractModule {
                 Multibinder.newSetBinder(binder(), WebCrawler.class, Internal.class);
         multibinder.addBinding().to(SequentialWebCrawler.class);
         multibinder.addBinding().to(ParallelWebCrawler.class);
+        multibinder.addBinding().to(VirtualThreadWebCrawler.class);
 
         bind(Clock.class).toInstance(Clock.systemUTC());
         bind(Key.get(Integer.class, MaxDepth.class)).toInstance(config.getMaxDepth());
         bind(Key.get(Integer.class, PopularWordCount.class)).toInstance(config.getPopularWordCount());
         bind(Key.get(Duration.class, Timeout.class)).toInstance(config.getTimeout());
+        bind(Key.get(Integer.class, MaxInFlightRequests.class))
+                .toInstance(config.getMaxInFlightRequests());
+        bind(Key.get(Integer.class, FetchConcurrency.class)).toInstance(config.getFetchConcurrency());
+        bind(Key.get(Integer.class, HostShards.class)).toInstance(config.getHostShards());
         bind(new Key<List<Pattern>>(IgnoredUrls.class) {
         }).toInstance(config.getIgnoredUrls());
+        bind(Key.get(Integer.class, WorkerProcesses.class)).toInstance(config.getWorkerProcesses());
+        bind(new Key<List<String>>(WorkerCommand.class) {
+        }).toInstance(workerCommand);
+
+        ParserModule.Builder parserModule = new ParserModule.Builder()
+                .setTimeout(config.getTimeout())
+                .setIgnoredWords(config.getIgnoredWords())
+                .setStreaming(config.isStreamingParser());
+        if (!config.getPageCacheDirectory().isEmpty()) {
+            parserModule.setPageCacheDirectory(Path.of(config.getPageCacheDirectory()));
+        }
+        install(parserModule.build());
 
-        install(
-                new ParserModule.Builder()
-                        .setTimeout(config.getTimeout())
-                        .setIgnoredWords(config.getIgnoredWords())
-                        .build());
+        Multibinder<CrawlSnapshotListener> snapshotListeners =
+                Multibinder.newSetBinder(binder(), CrawlSnapshotListener.class);
+        if (!config.getSnapshotPath().isEmpty()) {
+            snapshotListeners.addBinding()
+                    .toInstance(new SnapshotFileWriter(Path.of(config.getSnapshotPath())));
+        }
     }
 
     @Provides
@@ -93,7 +141,11 @@ public final class WebCrawlerModule extends AbstractModule {
     @Internal
     WebCrawler provideRawWebCrawler(
             @Internal Set<WebCrawler> implementations,
-            @TargetParallelism int targetParallelism) {
+            @TargetParallelism int targetParallelism,
+            Provider<DistributedWebCrawler> distributedWebCrawler) {
+        if (config.getWorkerProcesses() > 0) {
+            return distributedWebCrawler.get();
+        }
         String override = config.getImplementationOverride();
         if (!override.isEmpty()) {
             return implementations
@@ -112,6 +164,169 @@ public final class WebCrawlerModule extends AbstractModule {
                                         config.getParallelism() + "\"."));
     }
 
+    @Provides
+    VisitedUrlSet provideVisitedUrlSet() {
+        int shardCount = config.getHostShards();
+        if (shardCount > 0) {
+            List<VisitedUrlSet> shards = new ArrayList<>();
+            for (int i = 0; i < shardCount; i++) {
+                shards.add(newVisitedUrlSet(config.getExpectedUrlCount() / shardCount));
+            }
+            return new ShardedVisitedUrlSet(shards);
+        }
+        return newVisitedUrlSet(config.getExpectedUrlCount());
+    }
+
+    private VisitedUrlSet newVisitedUrlSet(int expectedUrlCount) {
+        VisitedUrlSet visitedUrls = config.getVisitedUrlSet().equals("fingerprint")
+                ? new FingerprintVisitedUrlSet(expectedUrlCount)
+                : new ConcurrentVisitedUrlSet();
+        if (config.isVisitedUrlBloomFilter()) {
+            return new BloomFilterVisitedUrlSet(visitedUrls, expectedUrlCount);
+        }
+        return visitedUrls;
+    }
+
+    @Provides
+    WordCountAggregator provideWordCountAggregator() {
+        return newWordCountAggregator(config.getWordCountAggregation().equals("threadLocal"));
+    }
+
+    @Provides
+    @ThreadPerPage
+    WordCountAggregator provideThreadPerPageWordCountAggregator() {
+        // Per-thread maps would keep a map for every page, and merge them all at the end.
+        return newWordCountAggregator(false);
+    }
+
+    private WordCountAggregator newWordCountAggregator(boolean perThreadCounts) {
+        if (config.getApproximateWordCountError() > 0) {
+            return new HeavyHitterWordCountAggregator(
+                    config.getApproximateWordCountError(), config.getPopularWordCount());
+        }
+        if (config.getSnapshotIntervalSeconds() > 0) {
+            // Snapshots read the popular words while pages are still being added.
+            return new RunningTopWordsAggregator(config.getPopularWordCount());
+        }
+        if (countsWordIds()) {
+            // Every crawl gets a dictionary of its own, which its parsers share.
+            return new WordIdCountAggregator(new WordDictionary());
+        }
+        if (perThreadCounts) {
+            return new ThreadLocalWordCountAggregator();
+        }
+        return new ConcurrentWordCountAggregator();
+    }
+
+    /**
+     * Returns whether words are counted by the IDs of a dictionary that the parsers and the word
+     * count aggregator of a crawl share. Otherwise, the parsers give the words of each page IDs of their own,
+     * so that approximate counting keeps its memory bound.
+     */
+    private boolean countsWordIds() {
+        String aggregation = config.getWordCountAggregation();
+        return config.getApproximateWordCountError() == 0
+                && config.getSnapshotIntervalSeconds() == 0
+                && !aggregation.equals("concurrent")
+                && !aggregation.equals("threadLocal");
+    }
+
+    @Provides
+    PolitenessScheduler providePolitenessScheduler() {
+        return new PolitenessScheduler(
+                config.getHostRequestsPerSecond(), config.getMaxConnectionsPerHost());
+    }
+
+    @Provides
+    NearDuplicateDetector provideNearDuplicateDetector() {
+        return new NearDuplicateDetector(
+                config.getNearDuplicateDistance(), config.isCountNearDuplicateWords());
+    }
+
+    @Provides
+    SpillingUrlQueue provideSpillingUrlQueue() {
+        int memoryLimit = config.getFrontierMemoryLimit();
+        String directory = config.getFrontierSpillDirectory();
+        return new SpillingUrlQueue(
+                memoryLimit > 0 ? memoryLimit : Integer.MAX_VALUE,
+                Path.of(directory.isEmpty() ? System.getProperty("java.io.tmpdir") : directory));
+    }
+
+    @Provides
+    CrawlSnapshots provideCrawlSnapshots(Set<CrawlSnapshotListener> listeners) {
+        return new CrawlSnapshots(
+                Duration.ofSeconds(config.getSnapshotIntervalSeconds()),
+                config.getPopularWordCount(),
+                listeners);
+    }
+
+    @Provides
+    CrawlCheckpoint provideCrawlCheckpoint(Clock clock) {
+        String directory = config.getCheckpointDirectory();
+        return new CrawlCheckpoint(
+                clock,
+                directory.isEmpty() ? null : Path.of(directory),
+                Duration.ofSeconds(config.getCheckpointIntervalSeconds()),
+                resumeFromCheckpoint);
+    }
+
+    @Provides
+    AdaptiveParallelism provideAdaptiveParallelism(
+            PageFetcher fetcher, PageParserFactory parserFactory, Profiler profiler) {
+        return new AdaptiveParallelism(
+                fetcher,
+                parserFactory,
+                profiler,
+                config.getMinParallelism(),
+                config.getMaxParallelism());
+    }
+
+    @Provides
+    @Singleton
+    IgnoredUrlMatcher provideIgnoredUrlMatcher(@IgnoredUrls List<Pattern> ignoredUrls) {
+        return new IgnoredUrlMatcher(ignoredUrls);
+    }
+
+    @Provides
+    @Singleton
+    UrlCanonicalizer provideUrlCanonicalizer() {
+        return new UrlCanonicalizer(config.getStrippedQueryParameters());
+    }
+
+    @Provides
+    PriorityFrontier providePriorityFrontier() {
+        List<UrlScorer> scorers = new ArrayList<>();
+        for (String scorer : config.getFrontierScorers()) {
+            switch (scorer) {
+                case "depth":
+                    scorers.add(new DepthScorer());
+                    break;
+                case "hostDiversity":
+                    scorers.add(new HostDiversityScorer());
+                    break;
+                case "urlPattern":
+                    scorers.add(new UrlPatternScorer(config.getUrlPatternWeights()));
+                    break;
+                case "latency":
+                    scorers.add(new LatencyScorer());
+                    break;
+                default:
+                    throw new ProvisionException("Unknown frontier scorer: " + scorer);
+            }
+        }
+        return new PriorityFrontier(scorers);
+    }
+
+    @Provides
+    @Singleton
+    @ParseQueueCapacity
+    int provideParseQueueCapacity() {
+        if (config.getParseQueueCapacity() > 0) {
+            return config.getParseQueueCapacity();
+        }
+        return Math.max(1, 2 * config.getFetchConcurrency());
+    }
+
     @Provides
     @Singleton
     @TargetParallelism
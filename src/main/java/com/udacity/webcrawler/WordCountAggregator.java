@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.WordDictionary;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Adds up the word counts of all the pages of a single crawl.
+ *
+ * <p>{@link #add(Map)} is called concurrently by the worker threads of the crawl, once per page.
+ * {@link #getCounts()} is only called while no page is being added: once all the pages have been
+ * added, or between two batches of pages when the crawl takes a {@link CrawlCheckpoint}.
+ */
+interface WordCountAggregator extends AutoCloseable {
+
+    /**
+     * Adds the word counts of a single page.
+     */
+    void add(Map<String, Integer> pageCounts);
+
+    /**
+     * Adds the word counts of a single parsed page. By default, these are the
+     * {@link PageParser.Result#getWordCounts() word counts by word}; an aggregator that counts words
+     * by ID reads the IDs instead.
+     */
+    default void add(PageParser.Result page) {
+        add(page.getWordCounts());
+    }
+
+    /**
+     * Returns the dictionary that the pages of this crawl should be parsed with, or {@code null} if
+     * every page can be parsed with a dictionary of its own. An aggregator that counts words by ID
+     * returns the dictionary its IDs come from, which lives no longer than the crawl.
+     */
+    default WordDictionary getWordDictionary() {
+        return null;
+    }
+
+    /**
+     * Returns the total count of every word added so far, in no particular order.
+     */
+    Map<String, Integer> getCounts();
+
+    /**
+     * Returns the given number of most popular words with their counts, ranked like the word counts
+     * of a {@link com.udacity.webcrawler.json.CrawlResult}.
+     *
+     * <p>By default, this ranks the result of {@link #getCounts()}, and can only be called when
+     * that can. An aggregator that keeps a running ranking can also answer it while pages are
+     * being added, which is what snapshots of a running crawl need.
+     */
+    default Map<String, Integer> getPopularWords(int popularWordCount) {
+        return WordCounts.sort(getCounts(), popularWordCount);
+    }
+
+    /**
+     * Returns the most by which the counts of the given words may exceed their true counts, which is
+     * 0 unless this aggregator counts words approximately.
+     */
+    default long getCountError(Collection<String> words) {
+        return 0;
+    }
+
+    /**
+     * Releases the memory held by this aggregator.
+     */
+    @Override
+    void close();
+}
@@ -27,11 +27,18 @@ package com.udacity.webcrawler;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
 
 
 final class WordCounts {
 
+    /**
+     * The number of words from which the popular words are selected in parallel, on the common
+     * fork-join pool. Smaller maps are not worth splitting.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+
     private WordCounts() {
         // This class cannot be instantiated
     }
@@ -41,18 +48,141 @@ final class WordCounts {
      * to the provided {@link WordCountComparator}, and includes only the top
      * {@param popluarWordCount} words and counts.
      *
+     * <p>The words are not all sorted: every partition of the map keeps its best ranked words in a
+     * {@link TopWords} heap bounded to {@param popularWordCount}, and the partial heaps are merged.
+     * The result is the same as sorting all the words and keeping the first ones.
+     *
      * @param wordCounts       the unsorted map of word counts.
      * @param popularWordCount the number of popular words to include in the result map.
      * @return a map containing the top {@param popularWordCount} words and counts in the right order.
      */
     static Map<String, Integer> sort(Map<String, Integer> wordCounts, int popularWordCount) {
+        if (popularWordCount <= 0 || wordCounts.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        Stream<Map.Entry<String, Integer>> entries = wordCounts.entrySet().stream();
+        if (wordCounts.size() >= PARALLEL_THRESHOLD) {
+            entries = entries.parallel();
+        }
+        return entries.collect(Collector.of(
+                () -> new TopWords(Math.min(popularWordCount, wordCounts.size())),
+                TopWords::offer,
+                TopWords::merge,
+                TopWords::toMap));
+    }
+
+    /**
+     * A min-heap of the best ranked words offered to it, bounded to a number of words, whose root is
+     * the lowest ranked of them. It ranks words like the {@link WordCountComparator}, but keeps each
+     * word with a primitive sort key made of its count and length, so most offers are rejected by
+     * comparing a single {@code long} with the root.
+     */
+    static final class TopWords {
+        private final long[] keys;
+        private final String[] words;
+        private int size;
+
+        TopWords(int capacity) {
+            this.keys = new long[capacity];
+            this.words = new String[capacity];
+        }
+
+        void offer(Map.Entry<String, Integer> entry) {
+            offer(entry.getKey(), entry.getValue());
+        }
 
-        return wordCounts.entrySet()
-                .stream()
-                .sorted(new WordCountComparator())
-                .limit(Math.min(popularWordCount, wordCounts.size()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (u, v) -> u,
-                        LinkedHashMap::new));
+        void offer(String word, int count) {
+            offer(((long) count << 32) | word.length(), word);
+        }
+
+        private void offer(long key, String word) {
+            if (size < keys.length) {
+                keys[size] = key;
+                words[size] = word;
+                siftUp(size++);
+            } else if (ranksBelow(keys[0], words[0], key, word)) {
+                keys[0] = key;
+                words[0] = word;
+                siftDown(0);
+            }
+        }
+
+        TopWords merge(TopWords other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.keys[i], other.words[i]);
+            }
+            return this;
+        }
+
+        /**
+         * Empties the heap into a map of its words, best ranked first.
+         */
+        Map<String, Integer> toMap() {
+            int count = size;
+            long[] rankedKeys = new long[count];
+            String[] rankedWords = new String[count];
+            for (int i = count - 1; i >= 0; i--) {
+                rankedKeys[i] = keys[0];
+                rankedWords[i] = words[0];
+                size--;
+                keys[0] = keys[size];
+                words[0] = words[size];
+                siftDown(0);
+            }
+            Map<String, Integer> popularWords = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                popularWords.put(rankedWords[i], (int) (rankedKeys[i] >> 32));
+            }
+            return popularWords;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!ranksBelow(keys[i], words[i], keys[parent], words[parent])) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int lowest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && ranksBelow(keys[left], words[left], keys[lowest], words[lowest])) {
+                    lowest = left;
+                }
+                if (right < size
+                        && ranksBelow(keys[right], words[right], keys[lowest], words[lowest])) {
+                    lowest = right;
+                }
+                if (lowest == i) {
+                    return;
+                }
+                swap(i, lowest);
+                i = lowest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            long key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+            String word = words[i];
+            words[i] = words[j];
+            words[j] = word;
+        }
+
+        /**
+         * Returns whether the first word ranks below the second: a lower count, or the same count and
+         * a shorter word, or the same count and length and a word that comes later alphabetically.
+         */
+        private static boolean ranksBelow(long keyA, String wordA, long keyB, String wordB) {
+            return keyA < keyB || (keyA == keyB && wordA.compareTo(wordB) > 0);
+        }
     }
 
     /**
@@ -65,7 +195,7 @@ final class WordCounts {
      *   <li>Finally, breaking ties using alphabetical order.</li>
      * </ol>
      */
-    private static final class WordCountComparator implements Comparator<Map.Entry<String, Integer>> {
+    static final class WordCountComparator implements Comparator<Map.Entry<String, Integer>> {
         @Override
         public int compare(Map.Entry<String, Integer> a, Map.Entry<String, Integer> b) {
             if (!a.getValue().equals(b.getValue())) {
@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.WordDictionary;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link WordCountAggregator} that counts words by the IDs a {@link WordDictionary} gave them,
+ * in primitive {@code long} counters.
+ *
+ * <p>The dictionary hands out dense IDs, so the counts of all the words are a table indexed by ID:
+ * chunks of {@value #CHUNK_SIZE} atomic counters, added as the dictionary grows. Pages parsed with
+ * the same dictionary are added without looking up a single word. Their words are only turned back
+ * into strings for the popular words at the end of the crawl, and for {@link #getCounts()}.
+ *
+ * <p>The dictionary belongs to a single crawl, like the aggregator, so the counters only ever
+ * cover the words of that crawl.
+ */
+final class WordIdCountAggregator implements WordCountAggregator {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private final WordDictionary dictionary;
+    private volatile AtomicLongArray[] chunks = new AtomicLongArray[0];
+
+    /**
+     * Creates an aggregator that counts the words with IDs from the given dictionary, which should
+     * be new, and which the pages of the crawl are then parsed with.
+     */
+    WordIdCountAggregator(WordDictionary dictionary) {
+        this.dictionary = Objects.requireNonNull(dictionary);
+    }
+
+    @Override
+    public WordDictionary getWordDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public void add(PageParser.Result page) {
+        if (page.getWordDictionary() != dictionary) {
+            // Parsed with a dictionary of its own, like the results of a page cache.
+            add(page.getWordCounts());
+            return;
+        }
+        page.getWordIds().forEach(this::add);
+    }
+
+    @Override
+    public void add(Map<String, Integer> pageCounts) {
+        for (Map.Entry<String, Integer> e : pageCounts.entrySet()) {
+            add(dictionary.idOf(e.getKey()), e.getValue());
+        }
+    }
+
+    private void add(int id, int count) {
+        AtomicLongArray[] current = chunks;
+        int chunk = id >>> CHUNK_BITS;
+        if (chunk >= current.length) {
+            current = grow(chunk);
+        }
+        current[chunk].addAndGet(id & (CHUNK_SIZE - 1), count);
+    }
+
+    private synchronized AtomicLongArray[] grow(int chunk) {
+        AtomicLongArray[] current = chunks;
+        if (chunk < current.length) {
+            return current;
+        }
+        AtomicLongArray[] grown = new AtomicLongArray[Math.max(chunk + 1, current.length * 2)];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        for (int i = current.length; i < grown.length; i++) {
+            grown[i] = new AtomicLongArray(CHUNK_SIZE);
+        }
+        chunks = grown;
+        return grown;
+    }
+
+    /**
+     * Returns the count of the word with the given ID, capped to the range of an {@code int} like
+     * the word counts of a crawl result.
+     */
+    private int countOf(AtomicLongArray[] current, int id) {
+        int chunk = id >>> CHUNK_BITS;
+        if (chunk >= current.length) {
+            return 0;
+        }
+        return (int) Math.min(current[chunk].get(id & (CHUNK_SIZE - 1)), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Map<String, Integer> getCounts() {
+        AtomicLongArray[] current = chunks;
+        int words = dictionary.size();
+        Map<String, Integer> result = new HashMap<>();
+        for (int id = 0; id < words; id++) {
+            int count = countOf(current, id);
+            if (count > 0) {
+                result.put(dictionary.wordOf(id), count);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ranks the words straight from the counters, without building a map of all the words first.
+     */
+    @Override
+    public Map<String, Integer> getPopularWords(int popularWordCount) {
+        if (popularWordCount <= 0) {
+            return new LinkedHashMap<>();
+        }
+        AtomicLongArray[] current = chunks;
+        int words = dictionary.size();
+        WordCounts.TopWords topWords = new WordCounts.TopWords(popularWordCount);
+        for (int id = 0; id < words; id++) {
+            int count = countOf(current, id);
+            if (count > 0) {
+                topWords.offer(dictionary.wordOf(id), count);
+            }
+        }
+        return topWords.toMap();
+    }
+
+    @Override
+    public void close() {
+        chunks = new AtomicLongArray[0];
+    }
+}
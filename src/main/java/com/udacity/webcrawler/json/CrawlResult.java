@@ -24,25 +24,34 @@
 
 package com.udacity.webcrawler.json;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
 /**
- * Data class representing the final result of a web crawl.
+ * Data class representing the final result of a web crawl, or a snapshot of a crawl that is still
+ * running.
  */
 public final class CrawlResult {
 
     private final Map<String, Integer> wordCounts;
     private final int urlsVisited;
+    private final long frontierSize;
+    private final long wordCountError;
 
     /**
-     * Constructs a {@link CrawlResult} with the given word counts and visited URL count.
+     * Constructs a {@link CrawlResult} with the given word counts, visited URL count, frontier size
+     * and word count error.
      */
-    private CrawlResult(Map<String, Integer> wordCounts, int urlsVisited) {
+    private CrawlResult(
+            Map<String, Integer> wordCounts, int urlsVisited, long frontierSize, long wordCountError) {
         this.wordCounts = wordCounts;
         this.urlsVisited = urlsVisited;
+        this.frontierSize = frontierSize;
+        this.wordCountError = wordCountError;
     }
 
     /**
@@ -76,12 +85,37 @@ public final class CrawlResult {
         return urlsVisited;
     }
 
+    /**
+     * Returns the number of URLs waiting in the frontier of the crawl when a snapshot was taken.
+     *
+     * <p>It is only set on snapshots of a running crawl, and is left out of the JSON output when it
+     * is 0, which it always is for the final result.
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    public long getFrontierSize() {
+        return frontierSize;
+    }
+
+    /**
+     * Returns the most by which any of the {@link #getWordCounts() word counts} may exceed the true
+     * count of its word. Counts are never lower than the true counts.
+     *
+     * <p>It is only set when words are counted approximately, and is left out of the JSON output
+     * when it is 0, which means the counts are exact.
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    public long getWordCountError() {
+        return wordCountError;
+    }
+
     /**
      * A package-private builder class for constructing web crawl {@link CrawlResult}s.
      */
     public static final class Builder {
         private Map<String, Integer> wordFrequencies = new HashMap<>();
         private int pageCount;
+        private long frontierSize;
+        private long wordCountError;
 
         /**
          * Sets the word counts. See {@link #getWordCounts()}
@@ -99,11 +133,29 @@ public final class CrawlResult {
             return this;
         }
 
+        /**
+         * Sets the number of URLs waiting in the frontier. See {@link #getFrontierSize()}.
+         */
+        public Builder setFrontierSize(long frontierSize) {
+            this.frontierSize = frontierSize;
+            return this;
+        }
+
+        /**
+         * Sets the most by which the word counts may be too high. See {@link #getWordCountError()}.
+         */
+        public Builder setWordCountError(long wordCountError) {
+            this.wordCountError = wordCountError;
+            return this;
+        }
+
         /**
          * Constructs a {@link CrawlResult} from this builder.
          */
         public CrawlResult build() {
-            return new CrawlResult(Collections.unmodifiableMap(wordFrequencies), pageCount);
+            return new CrawlResult(
+                    Collections.unmodifiableMap(wordFrequencies), pageCount, frontierSize,
+                    wordCountError);
         }
     }
 }
\ No newline at end of file
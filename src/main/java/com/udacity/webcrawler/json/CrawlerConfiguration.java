@@ -28,8 +28,11 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -51,6 +54,33 @@ public final class CrawlerConfiguration {
     private final int popularWordCount;
     private final String profileOutputPath;
     private final String resultPath;
+    private final String visitedUrlSet;
+    private final boolean visitedUrlBloomFilter;
+    private final int expectedUrlCount;
+    private final String wordCountAggregation;
+    private final int maxInFlightRequests;
+    private final int fetchConcurrency;
+    private final int parseQueueCapacity;
+    private final double hostRequestsPerSecond;
+    private final int maxConnectionsPerHost;
+    private final List<String> frontierScorers;
+    private final Map<Pattern, Double> urlPatternWeights;
+    private final List<Pattern> strippedQueryParameters;
+    private final int nearDuplicateDistance;
+    private final boolean countNearDuplicateWords;
+    private final int frontierMemoryLimit;
+    private final String frontierSpillDirectory;
+    private final String checkpointDirectory;
+    private final int checkpointIntervalSeconds;
+    private final String pageCacheDirectory;
+    private final int minParallelism;
+    private final int maxParallelism;
+    private final int workerProcesses;
+    private final int hostShards;
+    private final int snapshotIntervalSeconds;
+    private final String snapshotPath;
+    private final double approximateWordCountError;
+    private final boolean streamingParser;
 
     private CrawlerConfiguration(
             List<String> startPages,
@@ -62,7 +92,34 @@ public final class CrawlerConfiguration {
             Duration timeout,
             int popularWordCount,
             String profileOutputPath,
-            String resultPath) {
+            String resultPath,
+            String visitedUrlSet,
+            boolean visitedUrlBloomFilter,
+            int expectedUrlCount,
+            String wordCountAggregation,
+            int maxInFlightRequests,
+            int fetchConcurrency,
+            int parseQueueCapacity,
+            double hostRequestsPerSecond,
+            int maxConnectionsPerHost,
+            List<String> frontierScorers,
+            Map<Pattern, Double> urlPatternWeights,
+            List<Pattern> strippedQueryParameters,
+            int nearDuplicateDistance,
+            boolean countNearDuplicateWords,
+            int frontierMemoryLimit,
+            String frontierSpillDirectory,
+            String checkpointDirectory,
+            int checkpointIntervalSeconds,
+            String pageCacheDirectory,
+            int minParallelism,
+            int maxParallelism,
+            int workerProcesses,
+            int hostShards,
+            int snapshotIntervalSeconds,
+            String snapshotPath,
+            double approximateWordCountError,
+            boolean streamingParser) {
         this.startPages = startPages;
         this.ignoredUrls = ignoredUrls;
         this.ignoredWords = ignoredWords;
@@ -73,6 +130,33 @@ public final class CrawlerConfiguration {
         this.popularWordCount = popularWordCount;
         this.profileOutputPath = profileOutputPath;
         this.resultPath = resultPath;
+        this.visitedUrlSet = visitedUrlSet;
+        this.visitedUrlBloomFilter = visitedUrlBloomFilter;
+        this.expectedUrlCount = expectedUrlCount;
+        this.wordCountAggregation = wordCountAggregation;
+        this.maxInFlightRequests = maxInFlightRequests;
+        this.fetchConcurrency = fetchConcurrency;
+        this.parseQueueCapacity = parseQueueCapacity;
+        this.hostRequestsPerSecond = hostRequestsPerSecond;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.frontierScorers = frontierScorers;
+        this.urlPatternWeights = urlPatternWeights;
+        this.strippedQueryParameters = strippedQueryParameters;
+        this.nearDuplicateDistance = nearDuplicateDistance;
+        this.countNearDuplicateWords = countNearDuplicateWords;
+        this.frontierMemoryLimit = frontierMemoryLimit;
+        this.frontierSpillDirectory = frontierSpillDirectory;
+        this.checkpointDirectory = checkpointDirectory;
+        this.checkpointIntervalSeconds = checkpointIntervalSeconds;
+        this.pageCacheDirectory = pageCacheDirectory;
+        this.minParallelism = minParallelism;
+        this.maxParallelism = maxParallelism;
+        this.workerProcesses = workerProcesses;
+        this.hostShards = hostShards;
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+        this.snapshotPath = snapshotPath;
+        this.approximateWordCountError = approximateWordCountError;
+        this.streamingParser = streamingParser;
     }
 
     /**
@@ -198,6 +282,315 @@ public final class CrawlerConfiguration {
         return resultPath;
     }
 
+    /**
+     * How the parallel crawler should remember which URLs it has visited. This setting is optional.
+     *
+     * <p>If unset, empty or {@code "exact"}, the full URL strings are kept in a concurrent hash set.
+     * If set to {@code "fingerprint"}, only a 64-bit fingerprint of each URL is kept, in a lock-free
+     * hash table outside of the Java heap. Fingerprints use a fraction of the memory, at the cost of
+     * a vanishingly small chance that two different URLs are treated as the same one.
+     */
+    public String getVisitedUrlSet() {
+        return visitedUrlSet;
+    }
+
+    /**
+     * Whether the parallel crawler should check a Bloom filter before looking URLs up in its visited
+     * set. This setting is optional, and defaults to false.
+     *
+     * <p>See {@link #getVisitedUrlSet()}.
+     */
+    public boolean isVisitedUrlBloomFilter() {
+        return visitedUrlBloomFilter;
+    }
+
+    /**
+     * The number of distinct URLs the crawl is expected to visit. This setting is optional.
+     *
+     * <p>It is only a sizing hint for the visited set and its Bloom filter, which are allocated large
+     * enough to hold this many URLs up front. If set to 0, small defaults are used instead.
+     */
+    public int getExpectedUrlCount() {
+        return expectedUrlCount;
+    }
+
+    /**
+     * How the parallel crawler should add up the word counts of its pages. This setting is
+     * optional.
+     *
+     * <p>If unset, empty or {@code "wordIds"}, the parsers give every word an {@code int} ID from a
+     * dictionary shared by the whole crawl, and all workers add up primitive counters indexed by ID,
+     * so counting a page allocates nothing per word. If set to {@code "concurrent"}, all workers
+     * update one shared concurrent map with a counter per word. If set to {@code "threadLocal"},
+     * every worker counts into its own map, and the maps are merged in parallel when the crawl is
+     * over, so workers never contend while counting. The virtual thread crawler, which runs every
+     * page on a thread of its own, uses one shared concurrent map instead of {@code "threadLocal"}.
+     */
+    public String getWordCountAggregation() {
+        return wordCountAggregation;
+    }
+
+    /**
+     * The maximum number of page downloads the virtual thread crawler may have in flight at
+     * once. This setting is optional, and defaults to 256.
+     *
+     * <p>The virtual thread crawler runs at most this many virtual threads, each downloading one
+     * page at a time, so this limit, not the number of CPU cores, decides how much of the crawl
+     * happens concurrently.
+     */
+    public int getMaxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+
+    /**
+     * The maximum number of page downloads the parallel crawler may have in flight at once.
+     * This setting is optional.
+     *
+     * <p>If set to a positive value, the parallel crawler splits its work into a fetch stage, which
+     * downloads pages asynchronously, and a parse stage, which parses them on as many threads as
+     * {@link #getParallelism()}. The two stages are connected by a bounded queue; see
+     * {@link #getParseQueueCapacity()}. If unset or 0, every worker thread downloads and parses its own
+     * pages.
+     */
+    public int getFetchConcurrency() {
+        return fetchConcurrency;
+    }
+
+    /**
+     * The maximum number of downloaded pages that may wait to be parsed when
+     * {@link #getFetchConcurrency()} is set. This setting is optional.
+     *
+     * <p>When the queue is full, no more downloads are started until the parse stage catches up. If
+     * unset or 0, twice the fetch concurrency is used.
+     */
+    public int getParseQueueCapacity() {
+        return parseQueueCapacity;
+    }
+
+    /**
+     * The maximum number of requests per second the parallel crawler sends to any one host. This
+     * setting is optional.
+     *
+     * <p>Each host gets a token bucket that refills at this rate and holds up to one second's worth
+     * of requests. If unset or 0, requests are not rate limited.
+     */
+    public double getHostRequestsPerSecond() {
+        return hostRequestsPerSecond;
+    }
+
+    /**
+     * The maximum number of downloads the parallel crawler may have in flight to any one host. This
+     * setting is optional.
+     *
+     * <p>If unset or 0, the number of downloads per host is only limited by
+     * {@link #getParallelism()} or {@link #getFetchConcurrency()}.
+     */
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * The scorers that order the frontier of the parallel crawler. This setting is optional.
+     *
+     * <p>If any are set, the parallel crawler crawls best-first: it keeps every discovered URL in a
+     * priority queue and always downloads the URL with the highest total score next, instead of
+     * crawling one depth at a time. The supported scorers are:
+     * <ul>
+     *   <li>{@code "depth"}, which prefers shallow pages.
+     *   <li>{@code "hostDiversity"}, which prefers hosts that have contributed few URLs so far.
+     *   <li>{@code "urlPattern"}, which adds up the matching {@link #getUrlPatternWeights()}.
+     *   <li>{@code "latency"}, which prefers hosts whose pages have been quick to crawl so far.
+     * </ul>
+     */
+    public List<String> getFrontierScorers() {
+        return frontierScorers;
+    }
+
+    /**
+     * Weights used by the {@code "urlPattern"} frontier scorer, keyed by regular expression. This
+     * setting is optional.
+     *
+     * <p>The score of a URL is the sum of the weights of every pattern that matches the whole URL.
+     * Positive weights make the crawler visit matching pages sooner, negative weights later.
+     */
+    public Map<Pattern, Double> getUrlPatternWeights() {
+        return urlPatternWeights;
+    }
+
+    /**
+     * Regular expressions for the names of query parameters that should be removed from URLs
+     * before they are crawled, such as tracking parameters. This setting is optional.
+     *
+     * <p>A parameter is removed if any pattern matches its whole (still encoded) name. URLs that only
+     * differ by these parameters are then only downloaded once.
+     */
+    public List<Pattern> getStrippedQueryParameters() {
+        return strippedQueryParameters;
+    }
+
+    /**
+     * The largest number of differing bits between the SimHash fingerprints of two pages for which
+     * the parallel and virtual thread crawlers treat them as near-duplicates. This setting is optional.
+     *
+     * <p>The links of a near-duplicate of a page already crawled are not followed, and its words are
+     * only counted if {@link #isCountNearDuplicateWords()} is set. Values around 3 catch pages that
+     * only differ by a few words. If unset or 0, near-duplicates are not detected.
+     */
+    public int getNearDuplicateDistance() {
+        return nearDuplicateDistance;
+    }
+
+    /**
+     * Whether the words of near-duplicate pages are still counted when
+     * {@link #getNearDuplicateDistance()} is set. This setting is optional and defaults to true.
+     */
+    public boolean isCountNearDuplicateWords() {
+        return countNearDuplicateWords;
+    }
+
+    /**
+     * The largest number of URLs of each level of the frontier that the parallel crawler keeps in
+     * memory. This setting is optional.
+     *
+     * <p>URLs past this limit are spilled to segment files on local disk and read back when the level
+     * is crawled, in batches of this size, so that the heap used by the frontier stays constant however
+     * large it grows. If unset or 0, the whole frontier is kept in memory.
+     */
+    public int getFrontierMemoryLimit() {
+        return frontierMemoryLimit;
+    }
+
+    /**
+     * The local directory in which frontier URLs past {@link #getFrontierMemoryLimit()} are spilled.
+     * This setting is optional.
+     *
+     * <p>Each level gets its own temporary subdirectory, which is deleted once the level has been
+     * crawled. If unset or empty, the system temporary directory is used.
+     */
+    public String getFrontierSpillDirectory() {
+        return frontierSpillDirectory;
+    }
+
+    /**
+     * The local directory in which the parallel crawler periodically saves the state of a crawl, so
+     * that it can be resumed with {@code WebCrawlerMain --resume}. This setting is optional.
+     *
+     * <p>Checkpoints are only taken by level-by-level crawls, between two batches of the frontier. If
+     * unset or empty, the crawl is not checkpointed.
+     */
+    public String getCheckpointDirectory() {
+        return checkpointDirectory;
+    }
+
+    /**
+     * The least number of seconds between two checkpoints of a crawl. This setting is optional, and
+     * only used if {@link #getCheckpointDirectory()} is set. Defaults to 60.
+     */
+    public int getCheckpointIntervalSeconds() {
+        return checkpointIntervalSeconds;
+    }
+
+    /**
+     * The local directory in which the crawlers keep the cache validators and parse results of the
+     * remote pages they download. This setting is optional.
+     *
+     * <p>A page found in the cache is requested with {@code If-None-Match} and {@code If-Modified-Since}
+     * headers, and if the server answers {@code 304 Not Modified}, its cached result is reused without
+     * downloading or parsing it. If unset or empty, pages are not cached.
+     */
+    public String getPageCacheDirectory() {
+        return pageCacheDirectory;
+    }
+
+    /**
+     * The fewest worker threads the parallel crawler may keep running when it adapts its parallelism.
+     * It is only used if {@link #getMaxParallelism()} is set. Defaults to 1.
+     */
+    public int getMinParallelism() {
+        return minParallelism;
+    }
+
+    /**
+     * The most worker threads the parallel crawler may run when it adapts its parallelism. This
+     * setting is optional.
+     *
+     * <p>If positive, the parallel crawler waits for its downloads as managed blocks of its pool, and
+     * periodically moves the parallelism of the pool between {@link #getMinParallelism()} and this
+     * bound: it grows while the threads mostly wait for downloads and the CPU is idle, and shrinks
+     * when the CPU is saturated. If 0 (the default), the parallelism stays fixed.
+     */
+    public int getMaxParallelism() {
+        return maxParallelism;
+    }
+
+    /**
+     * The number of worker processes a distributed crawl runs on this machine. This setting is
+     * optional.
+     *
+     * <p>If positive, the crawl is run by a coordinator that starts this many worker JVMs. The URLs
+     * are partitioned between the workers by a consistent hash of their host, every worker crawls the
+     * URLs of its own partition level by level, and forwards the links it discovers to the workers
+     * that own them over loopback sockets. The word counts of all the workers are merged into a single
+     * result. If 0 (the default), the crawl runs in a single process.
+     */
+    public int getWorkerProcesses() {
+        return workerProcesses;
+    }
+
+    /**
+     * The number of host shards the parallel crawler splits each level of the frontier into. This
+     * setting is optional.
+     *
+     * <p>If positive, the URLs of each level are put in this many work queues by a hash of their
+     * host, and the visited URLs are kept in as many separate sets. Every worker thread prefers the
+     * queues of its own shards, and only steals from the others once its own are empty, so the URLs of
+     * a host tend to be crawled by the same thread. If 0 (the default), every level is split between
+     * the workers URL by URL.
+     */
+    public int getHostShards() {
+        return hostShards;
+    }
+
+    /**
+     * The number of seconds between two snapshots of a running crawl. This setting is optional.
+     *
+     * <p>If positive, the parallel crawler keeps a running ranking of the most popular words while it
+     * crawls, and regularly hands a {@link CrawlResult} snapshot with the visited URL count, the
+     * popular words so far and the frontier size to its snapshot listeners, such as the
+     * {@link #getSnapshotPath() snapshot file}. The final result is then read from the running
+     * ranking instead of sorting all the word counts at the end. If 0 (the default), no snapshots are
+     * taken.
+     */
+    public int getSnapshotIntervalSeconds() {
+        return snapshotIntervalSeconds;
+    }
+
+    /**
+     * Path to a file to which the snapshots of a running crawl are appended, one line of JSON each.
+     * It is only used if {@link #getSnapshotIntervalSeconds()} is set. This setting is optional.
+     */
+    public String getSnapshotPath() {
+        return snapshotPath;
+    }
+
+    /**
+     * If positive, words are counted approximately in constant memory, and every reported word count
+     * may exceed the true count by at most this fraction of all the words counted. This setting is
+     * optional, and words are counted exactly by default.
+     */
+    public double getApproximateWordCountError() {
+        return approximateWordCountError;
+    }
+
+    /**
+     * If true, pages are read by a streaming HTML lexer that never builds a tree of the page,
+     * instead of being parsed into a Jsoup document. Both find the same words and hyperlinks on all
+     * but a few malformed pages. This setting is optional, and Jsoup is used by default.
+     */
+    public boolean isStreamingParser() {
+        return streamingParser;
+    }
+
     /**
      * A builder class to create {@link CrawlerConfiguration} instances.
      */
@@ -205,6 +598,9 @@ public final class CrawlerConfiguration {
         private final Set<String> startPages = new LinkedHashSet<>();
         private final Set<String> ignoredUrls = new LinkedHashSet<>();
         private final Set<String> ignoredWords = new LinkedHashSet<>();
+        private final Set<String> frontierScorers = new LinkedHashSet<>();
+        private final Map<String, Double> urlPatternWeights = new LinkedHashMap<>();
+        private final Set<String> strippedQueryParameters = new LinkedHashSet<>();
         private int parallelism = -1;
         private String implementationOverride = "";
         private int maxDepth = 0;
@@ -212,6 +608,30 @@ public final class CrawlerConfiguration {
         private int popularWordCount = 0;
         private String profileOutputPath = "";
         private String resultPath = "";
+        private String visitedUrlSet = "";
+        private boolean visitedUrlBloomFilter = false;
+        private int expectedUrlCount = 0;
+        private String wordCountAggregation = "";
+        private int maxInFlightRequests = 256;
+        private int fetchConcurrency = 0;
+        private int parseQueueCapacity = 0;
+        private double hostRequestsPerSecond = 0;
+        private int maxConnectionsPerHost = 0;
+        private int nearDuplicateDistance = 0;
+        private boolean countNearDuplicateWords = true;
+        private int frontierMemoryLimit = 0;
+        private String frontierSpillDirectory = "";
+        private String checkpointDirectory = "";
+        private int checkpointIntervalSeconds = 60;
+        private String pageCacheDirectory = "";
+        private int minParallelism = 1;
+        private int maxParallelism = 0;
+        private int workerProcesses = 0;
+        private int hostShards = 0;
+        private int snapshotIntervalSeconds = 0;
+        private String snapshotPath = "";
+        private double approximateWordCountError = 0;
+        private boolean streamingParser = false;
 
         /**
          * Adds a start page URL.
@@ -339,6 +759,310 @@ public final class CrawlerConfiguration {
             return this;
         }
 
+        /**
+         * Sets how the parallel crawler should remember visited URLs.
+         *
+         * <p>See {@link #getVisitedUrlSet()}.
+         */
+        @JsonProperty("visitedUrlSet")
+        public Builder setVisitedUrlSet(String visitedUrlSet) {
+            this.visitedUrlSet = Objects.requireNonNull(visitedUrlSet);
+            return this;
+        }
+
+        /**
+         * Sets whether a Bloom filter should be checked before the visited set.
+         *
+         * <p>See {@link #isVisitedUrlBloomFilter()}.
+         */
+        @JsonProperty("visitedUrlBloomFilter")
+        public Builder setVisitedUrlBloomFilter(boolean visitedUrlBloomFilter) {
+            this.visitedUrlBloomFilter = visitedUrlBloomFilter;
+            return this;
+        }
+
+        /**
+         * Sets the number of distinct URLs the crawl is expected to visit.
+         *
+         * <p>See {@link #getExpectedUrlCount()}.
+         */
+        @JsonProperty("expectedUrlCount")
+        public Builder setExpectedUrlCount(int expectedUrlCount) {
+            this.expectedUrlCount = expectedUrlCount;
+            return this;
+        }
+
+        /**
+         * Sets how the parallel crawler should add up word counts.
+         *
+         * <p>See {@link #getWordCountAggregation()}.
+         */
+        @JsonProperty("wordCountAggregation")
+        public Builder setWordCountAggregation(String wordCountAggregation) {
+            this.wordCountAggregation = Objects.requireNonNull(wordCountAggregation);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of page downloads that may be in flight at once.
+         *
+         * <p>See {@link #getMaxInFlightRequests()}.
+         */
+        @JsonProperty("maxInFlightRequests")
+        public Builder setMaxInFlightRequests(int maxInFlightRequests) {
+            this.maxInFlightRequests = maxInFlightRequests;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of page downloads in flight.
+         *
+         * <p>See {@link #getFetchConcurrency()}.
+         */
+        @JsonProperty("fetchConcurrency")
+        public Builder setFetchConcurrency(int fetchConcurrency) {
+            this.fetchConcurrency = fetchConcurrency;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of downloaded pages that may wait to be parsed.
+         *
+         * <p>See {@link #getParseQueueCapacity()}.
+         */
+        @JsonProperty("parseQueueCapacity")
+        public Builder setParseQueueCapacity(int parseQueueCapacity) {
+            this.parseQueueCapacity = parseQueueCapacity;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of requests per second sent to any one host.
+         *
+         * <p>See {@link #getHostRequestsPerSecond()}.
+         */
+        @JsonProperty("hostRequestsPerSecond")
+        public Builder setHostRequestsPerSecond(double hostRequestsPerSecond) {
+            this.hostRequestsPerSecond = hostRequestsPerSecond;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of downloads in flight to any one host.
+         *
+         * <p>See {@link #getMaxConnectionsPerHost()}.
+         */
+        @JsonProperty("maxConnectionsPerHost")
+        public Builder setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+            return this;
+        }
+
+        /**
+         * Adds scorers that order the frontier of the parallel crawler.
+         *
+         * <p>Does nothing if the same scorer has already been added. See
+         * {@link #getFrontierScorers()}.
+         */
+        @JsonProperty("frontierScorers")
+        public Builder addFrontierScorers(String... scorers) {
+            for (String scorer : scorers) {
+                frontierScorers.add(Objects.requireNonNull(scorer));
+            }
+            return this;
+        }
+
+        /**
+         * Adds weights used by the {@code "urlPattern"} frontier scorer, replacing the weight of any
+         * pattern that has already been added.
+         *
+         * <p>See {@link #getUrlPatternWeights()}.
+         */
+        @JsonProperty("urlPatternWeights")
+        public Builder putUrlPatternWeights(Map<String, Double> weights) {
+            urlPatternWeights.putAll(Objects.requireNonNull(weights));
+            return this;
+        }
+
+        /**
+         * Adds patterns for the names of query parameters that should be removed from URLs.
+         *
+         * <p>Does nothing if the same pattern has already been added. See
+         * {@link #getStrippedQueryParameters()}.
+         *
+         * @param patterns one or more regular expressions that define a valid {@link Pattern}.
+         */
+        @JsonProperty("strippedQueryParameters")
+        public Builder addStrippedQueryParameters(String... patterns) {
+            for (String pattern : patterns) {
+                strippedQueryParameters.add(Objects.requireNonNull(pattern));
+            }
+            return this;
+        }
+
+        /**
+         * Sets the largest SimHash distance between near-duplicate pages.
+         *
+         * <p>See {@link #getNearDuplicateDistance()}.
+         */
+        @JsonProperty("nearDuplicateDistance")
+        public Builder setNearDuplicateDistance(int nearDuplicateDistance) {
+            this.nearDuplicateDistance = nearDuplicateDistance;
+            return this;
+        }
+
+        /**
+         * Sets whether the words of near-duplicate pages are counted.
+         *
+         * <p>See {@link #isCountNearDuplicateWords()}.
+         */
+        @JsonProperty("countNearDuplicateWords")
+        public Builder setCountNearDuplicateWords(boolean countNearDuplicateWords) {
+            this.countNearDuplicateWords = countNearDuplicateWords;
+            return this;
+        }
+
+        /**
+         * Sets the largest number of URLs of each level of the frontier kept in memory.
+         *
+         * <p>See {@link #getFrontierMemoryLimit()}.
+         */
+        @JsonProperty("frontierMemoryLimit")
+        public Builder setFrontierMemoryLimit(int frontierMemoryLimit) {
+            this.frontierMemoryLimit = frontierMemoryLimit;
+            return this;
+        }
+
+        /**
+         * Sets the local directory in which frontier URLs are spilled.
+         *
+         * <p>See {@link #getFrontierSpillDirectory()}.
+         */
+        @JsonProperty("frontierSpillDirectory")
+        public Builder setFrontierSpillDirectory(String frontierSpillDirectory) {
+            this.frontierSpillDirectory = Objects.requireNonNull(frontierSpillDirectory);
+            return this;
+        }
+
+        /**
+         * Sets the local directory in which the state of a crawl is periodically saved.
+         *
+         * <p>See {@link #getCheckpointDirectory()}.
+         */
+        @JsonProperty("checkpointDirectory")
+        public Builder setCheckpointDirectory(String checkpointDirectory) {
+            this.checkpointDirectory = Objects.requireNonNull(checkpointDirectory);
+            return this;
+        }
+
+        /**
+         * Sets the least number of seconds between two checkpoints of a crawl.
+         *
+         * <p>See {@link #getCheckpointIntervalSeconds()}.
+         */
+        @JsonProperty("checkpointIntervalSeconds")
+        public Builder setCheckpointIntervalSeconds(int checkpointIntervalSeconds) {
+            this.checkpointIntervalSeconds = checkpointIntervalSeconds;
+            return this;
+        }
+
+        /**
+         * Sets the local directory in which downloaded pages are cached.
+         *
+         * <p>See {@link #getPageCacheDirectory()}.
+         */
+        @JsonProperty("pageCacheDirectory")
+        public Builder setPageCacheDirectory(String pageCacheDirectory) {
+            this.pageCacheDirectory = Objects.requireNonNull(pageCacheDirectory);
+            return this;
+        }
+
+        /**
+         * Sets the lower bound of the adaptive parallelism.
+         *
+         * <p>See {@link #getMinParallelism()}.
+         */
+        @JsonProperty("minParallelism")
+        public Builder setMinParallelism(int minParallelism) {
+            this.minParallelism = minParallelism;
+            return this;
+        }
+
+        /**
+         * Sets the upper bound of the adaptive parallelism.
+         *
+         * <p>See {@link #getMaxParallelism()}.
+         */
+        @JsonProperty("maxParallelism")
+        public Builder setMaxParallelism(int maxParallelism) {
+            this.maxParallelism = maxParallelism;
+            return this;
+        }
+
+        /**
+         * Sets the number of worker processes of a distributed crawl.
+         *
+         * <p>See {@link #getWorkerProcesses()}.
+         */
+        @JsonProperty("workerProcesses")
+        public Builder setWorkerProcesses(int workerProcesses) {
+            this.workerProcesses = workerProcesses;
+            return this;
+        }
+
+        /**
+         * Sets the number of host shards of the frontier.
+         *
+         * <p>See {@link #getHostShards()}.
+         */
+        @JsonProperty("hostShards")
+        public Builder setHostShards(int hostShards) {
+            this.hostShards = hostShards;
+            return this;
+        }
+
+        /**
+         * Sets the number of seconds between two snapshots of a running crawl.
+         *
+         * <p>See {@link #getSnapshotIntervalSeconds()}.
+         */
+        @JsonProperty("snapshotIntervalSeconds")
+        public Builder setSnapshotIntervalSeconds(int snapshotIntervalSeconds) {
+            this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+            return this;
+        }
+
+        /**
+         * Sets the path of the snapshot file.
+         *
+         * <p>See {@link #getSnapshotPath()}.
+         */
+        @JsonProperty("snapshotPath")
+        public Builder setSnapshotPath(String snapshotPath) {
+            this.snapshotPath = Objects.requireNonNull(snapshotPath);
+            return this;
+        }
+
+        /**
+         * Sets the relative error of approximate word counting. See
+         * {@link CrawlerConfiguration#getApproximateWordCountError()}.
+         */
+        @JsonProperty("approximateWordCountError")
+        public Builder setApproximateWordCountError(double approximateWordCountError) {
+            this.approximateWordCountError = approximateWordCountError;
+            return this;
+        }
+
+        /**
+         * Sets whether pages are read by a streaming HTML lexer. See
+         * {@link CrawlerConfiguration#isStreamingParser()}.
+         */
+        @JsonProperty("streamingParser")
+        public Builder setStreamingParser(boolean streamingParser) {
+            this.streamingParser = streamingParser;
+            return this;
+        }
+
         /**
          * Constructs a {@link CrawlerConfiguration} from this builder.
          */
@@ -352,6 +1076,64 @@ public final class CrawlerConfiguration {
             if (popularWordCount < 0) {
                 throw new IllegalArgumentException("popularWordCount cannot be negative");
             }
+            if (!Set.of("", "exact", "fingerprint").contains(visitedUrlSet)) {
+                throw new IllegalArgumentException("unknown visitedUrlSet: " + visitedUrlSet);
+            }
+            if (expectedUrlCount < 0) {
+                throw new IllegalArgumentException("expectedUrlCount cannot be negative");
+            }
+            if (!Set.of("", "wordIds", "concurrent", "threadLocal").contains(wordCountAggregation)) {
+                throw new IllegalArgumentException(
+                        "unknown wordCountAggregation: " + wordCountAggregation);
+            }
+            if (maxInFlightRequests <= 0) {
+                throw new IllegalArgumentException("maxInFlightRequests must be positive");
+            }
+            if (fetchConcurrency < 0) {
+                throw new IllegalArgumentException("fetchConcurrency cannot be negative");
+            }
+            if (parseQueueCapacity < 0) {
+                throw new IllegalArgumentException("parseQueueCapacity cannot be negative");
+            }
+            if (hostRequestsPerSecond < 0) {
+                throw new IllegalArgumentException("hostRequestsPerSecond cannot be negative");
+            }
+            if (maxConnectionsPerHost < 0) {
+                throw new IllegalArgumentException("maxConnectionsPerHost cannot be negative");
+            }
+            for (String scorer : frontierScorers) {
+                if (!Set.of("depth", "hostDiversity", "urlPattern", "latency").contains(scorer)) {
+                    throw new IllegalArgumentException("unknown frontierScorer: " + scorer);
+                }
+            }
+            if (nearDuplicateDistance < 0 || nearDuplicateDistance >= Long.SIZE) {
+                throw new IllegalArgumentException("nearDuplicateDistance must be between 0 and 63");
+            }
+            if (frontierMemoryLimit < 0) {
+                throw new IllegalArgumentException("frontierMemoryLimit cannot be negative");
+            }
+            if (checkpointIntervalSeconds <= 0) {
+                throw new IllegalArgumentException("checkpointIntervalSeconds must be positive");
+            }
+            if (maxParallelism < 0) {
+                throw new IllegalArgumentException("maxParallelism cannot be negative");
+            }
+            if (maxParallelism > 0 && (minParallelism <= 0 || minParallelism > maxParallelism)) {
+                throw new IllegalArgumentException(
+                        "minParallelism must be between 1 and maxParallelism");
+            }
+            if (workerProcesses < 0) {
+                throw new IllegalArgumentException("workerProcesses cannot be negative");
+            }
+            if (hostShards < 0) {
+                throw new IllegalArgumentException("hostShards cannot be negative");
+            }
+            if (snapshotIntervalSeconds < 0) {
+                throw new IllegalArgumentException("snapshotIntervalSeconds cannot be negative");
+            }
+            if (approximateWordCountError < 0 || approximateWordCountError >= 1) {
+                throw new IllegalArgumentException("approximateWordCountError must be in [0, 1)");
+            }
 
             return new CrawlerConfiguration(
                     startPages.stream().collect(Collectors.toUnmodifiableList()),
@@ -363,7 +1145,42 @@ public final class CrawlerConfiguration {
                     Duration.ofSeconds(timeoutSeconds),
                     popularWordCount,
                     profileOutputPath,
-                    resultPath);
+                    resultPath,
+                    visitedUrlSet,
+                    visitedUrlBloomFilter,
+                    expectedUrlCount,
+                    wordCountAggregation,
+                    maxInFlightRequests,
+                    fetchConcurrency,
+                    parseQueueCapacity,
+                    hostRequestsPerSecond,
+                    maxConnectionsPerHost,
+                    List.copyOf(frontierScorers),
+                    compileWeights(urlPatternWeights),
+                    strippedQueryParameters.stream()
+                            .map(Pattern::compile)
+                            .collect(Collectors.toUnmodifiableList()),
+                    nearDuplicateDistance,
+                    countNearDuplicateWords,
+                    frontierMemoryLimit,
+                    frontierSpillDirectory,
+                    checkpointDirectory,
+                    checkpointIntervalSeconds,
+                    pageCacheDirectory,
+                    minParallelism,
+                    maxParallelism,
+                    workerProcesses,
+                    hostShards,
+                    snapshotIntervalSeconds,
+                    snapshotPath,
+                    approximateWordCountError,
+                    streamingParser);
+        }
+
+        private static Map<Pattern, Double> compileWeights(Map<String, Double> weights) {
+            Map<Pattern, Double> compiled = new LinkedHashMap<>();
+            weights.forEach((pattern, weight) -> compiled.put(Pattern.compile(pattern), weight));
+            return Collections.unmodifiableMap(compiled);
         }
     }
 }
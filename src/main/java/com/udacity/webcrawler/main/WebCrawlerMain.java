@@ -25,6 +25,7 @@
 package com.udacity.webcrawler.main;
 
 import com.google.inject.Guice;
+import com.udacity.webcrawler.CrawlWorker;
 import com.udacity.webcrawler.WebCrawler;
 import com.udacity.webcrawler.WebCrawlerModule;
 import com.udacity.webcrawler.json.ConfigurationLoader;
@@ -38,32 +39,59 @@ import javax.inject.Inject;
 import java.io.OutputStreamWriter;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Objects;
 
 public final class WebCrawlerMain {
 
+    private final Path configPath;
     private final CrawlerConfiguration config;
+    private final boolean resume;
     @Inject
     private WebCrawler crawler;
     @Inject
     private Profiler profiler;
 
-    private WebCrawlerMain(CrawlerConfiguration config) {
+    private WebCrawlerMain(Path configPath, CrawlerConfiguration config, boolean resume) {
+        this.configPath = Objects.requireNonNull(configPath);
         this.config = Objects.requireNonNull(config);
+        this.resume = resume;
     }
 
     public static void main(String[] args) throws Exception {
-        if (args.length != 1) {
-            System.out.println("Usage: WebCrawlerMain [starting-url]");
+        if (args.length == 4 && args[1].equals("--worker")) {
+            // A worker process of a distributed crawl, started by the coordinator.
+            CrawlerConfiguration config = new ConfigurationLoader(Path.of(args[0])).load();
+            Guice.createInjector(new WebCrawlerModule(config), new ProfilerModule())
+                    .getInstance(CrawlWorker.class)
+                    .run(Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            return;
+        }
+        boolean resume = args.length == 2 && args[1].equals("--resume");
+        if (args.length != 1 && !resume) {
+            System.out.println("Usage: WebCrawlerMain [starting-url] [--resume]");
             return;
         }
 
-        CrawlerConfiguration config = new ConfigurationLoader(Path.of(args[0])).load();
-        new WebCrawlerMain(config).run();
+        Path configPath = Path.of(args[0]);
+        CrawlerConfiguration config = new ConfigurationLoader(configPath).load();
+        if (resume && config.getCheckpointDirectory().isEmpty()) {
+            System.out.println("--resume requires a checkpointDirectory in the configuration");
+            return;
+        }
+        new WebCrawlerMain(configPath, config, resume).run();
     }
 
     private void run() throws Exception {
-        Guice.createInjector(new WebCrawlerModule(config), new ProfilerModule()).injectMembers(this);
+        List<String> workerCommand = List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp",
+                System.getProperty("java.class.path"),
+                WebCrawlerMain.class.getName(),
+                configPath.toAbsolutePath().toString(),
+                "--worker");
+        Guice.createInjector(new WebCrawlerModule(config, resume, workerCommand), new ProfilerModule())
+                .injectMembers(this);
 
         CrawlResult result = crawler.crawl(config.getStartPages());
         CrawlResultWriter resultWriter = new CrawlResultWriter(result);
@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler.parser;
+
+import org.jsoup.nodes.Entities;
+
+/**
+ * Decodes the character references in text and attribute values the way Jsoup 1.13's tokenizer
+ * does, without building a tokenizer for every piece of text.
+ *
+ * <p>The named references are looked up in Jsoup's own entity tables, so the result is the same
+ * as {@link org.jsoup.parser.Parser#unescapeEntities(String, boolean)}.
+ */
+final class CharacterReferences {
+
+    private static final char REPLACEMENT_CHARACTER = '\uFFFD';
+
+    /**
+     * The characters that Windows-1252 puts in 0x80 to 0x9F, which numeric references to that
+     * range stand for.
+     */
+    private static final int[] WINDOWS_1252_EXTENSIONS = {
+            0x20AC, 0x0081, 0x201A, 0x0192, 0x201E, 0x2026, 0x2020, 0x2021,
+            0x02C6, 0x2030, 0x0160, 0x2039, 0x0152, 0x008D, 0x017D, 0x008F,
+            0x0090, 0x2018, 0x2019, 0x201C, 0x201D, 0x2022, 0x2013, 0x2014,
+            0x02DC, 0x2122, 0x0161, 0x203A, 0x0153, 0x009D, 0x017E, 0x0178,
+    };
+
+    private CharacterReferences() {
+        // This class cannot be instantiated.
+    }
+
+    /**
+     * Appends the given text to {@code out} with its character references decoded.
+     *
+     * @param inAttribute whether the text is an attribute value, where a named reference without
+     *                    a semicolon is not decoded if it is followed by {@code =}, {@code -} or
+     *                    {@code _}.
+     */
+    static void decode(CharSequence text, boolean inAttribute, StringBuilder out) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i++);
+            if (c != '&') {
+                out.append(c);
+                continue;
+            }
+            int end = i < length && text.charAt(i) == '#'
+                    ? decodeNumeric(text, i + 1, out)
+                    : decodeNamed(text, i, inAttribute, out);
+            if (end < 0) {
+                out.append('&');
+            } else {
+                i = end;
+            }
+        }
+    }
+
+    /**
+     * Decodes the numeric reference whose digits may start at {@code start}.
+     *
+     * @return the index after the reference, or -1 if there is none.
+     */
+    private static int decodeNumeric(CharSequence text, int start, StringBuilder out) {
+        int length = text.length();
+        int i = start;
+        boolean hex = i < length && (text.charAt(i) == 'x' || text.charAt(i) == 'X');
+        if (hex) {
+            i++;
+        }
+        int digitsStart = i;
+        while (i < length && Character.digit(text.charAt(i), hex ? 16 : 10) >= 0
+                && text.charAt(i) < 0x80) {
+            i++;
+        }
+        if (i == digitsStart) {
+            return -1;
+        }
+        int value;
+        try {
+            value = Integer.parseInt(text, digitsStart, i, hex ? 16 : 10);
+        } catch (NumberFormatException e) {
+            value = -1;
+        }
+        if (i < length && text.charAt(i) == ';') {
+            i++;
+        }
+        if (value == -1 || (value >= 0xD800 && value <= 0xDFFF) || value > 0x10FFFF) {
+            out.append(REPLACEMENT_CHARACTER);
+        } else if (value >= 0x80 && value < 0x80 + WINDOWS_1252_EXTENSIONS.length) {
+            out.appendCodePoint(WINDOWS_1252_EXTENSIONS[value - 0x80]);
+        } else {
+            out.appendCodePoint(value);
+        }
+        return i;
+    }
+
+    /**
+     * Decodes the named reference that may start at {@code start}. Like Jsoup, the whole run of
+     * letters and digits must be the name: a known name followed by more letters is left alone.
+     *
+     * @return the index after the reference, or -1 if there is none.
+     */
+    private static int decodeNamed(
+            CharSequence text, int start, boolean inAttribute, StringBuilder out) {
+        int length = text.length();
+        int i = start;
+        while (i < length && Character.isLetter(text.charAt(i))) {
+            i++;
+        }
+        while (i < length && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+        }
+        if (i == start) {
+            return -1;
+        }
+        String name = text.subSequence(start, i).toString();
+        boolean semicolon = i < length && text.charAt(i) == ';';
+        if (!Entities.isBaseNamedEntity(name) && !(semicolon && Entities.isNamedEntity(name))) {
+            return -1;
+        }
+        if (inAttribute && !semicolon && i < length) {
+            char next = text.charAt(i);
+            if (next == '=' || next == '-' || next == '_') {
+                return -1;
+            }
+        }
+        int[] codePoints = new int[2];
+        int count = Entities.codepointsForName(name, codePoints);
+        for (int k = 0; k < count; k++) {
+            out.appendCodePoint(codePoints[k]);
+        }
+        return semicolon ? i + 1 : i;
+    }
+}
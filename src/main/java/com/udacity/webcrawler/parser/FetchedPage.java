@@ -0,0 +1,170 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler.parser;
+
+import java.util.Objects;
+
+/**
+ * The raw bytes of a downloaded page, before any HTML parsing has been done.
+ */
+public final class FetchedPage {
+    private final String url;
+    private final String finalUrl;
+    private final byte[] content;
+    private final String charset;
+    private final String etag;
+    private final String lastModified;
+    private final boolean notModified;
+
+    /**
+     * Creates a fetched page.
+     *
+     * @param url     the URL the page was fetched from.
+     * @param content the body of the page. An empty body is used when the download failed.
+     * @param charset the character set named by the server, or {@code null} if the parser should
+     *                detect it from the page itself.
+     */
+    public FetchedPage(String url, byte[] content, String charset) {
+        this(url, url, content, charset, null, null, false);
+    }
+
+    /**
+     * Creates a fetched page that the server sent with cache validators.
+     *
+     * @param url          the URL the page was fetched from.
+     * @param content      the body of the page.
+     * @param charset      the character set named by the server, or {@code null} if the parser
+     *                     should detect it from the page itself.
+     * @param etag         the {@code ETag} header of the response, or {@code null}.
+     * @param lastModified the {@code Last-Modified} header of the response, or {@code null}.
+     */
+    public FetchedPage(
+            String url, byte[] content, String charset, String etag, String lastModified) {
+        this(url, url, content, charset, etag, lastModified, false);
+    }
+
+    /**
+     * Creates a fetched page that the server may have redirected to another URL.
+     *
+     * @param url          the URL the page was fetched from.
+     * @param finalUrl     the URL the page was downloaded from once redirects were followed.
+     * @param content      the body of the page.
+     * @param charset      the character set named by the server, or {@code null} if the parser
+     *                     should detect it from the page itself.
+     * @param etag         the {@code ETag} header of the response, or {@code null}.
+     * @param lastModified the {@code Last-Modified} header of the response, or {@code null}.
+     */
+    public FetchedPage(
+            String url,
+            String finalUrl,
+            byte[] content,
+            String charset,
+            String etag,
+            String lastModified) {
+        this(url, finalUrl, content, charset, etag, lastModified, false);
+    }
+
+    private FetchedPage(
+            String url,
+            String finalUrl,
+            byte[] content,
+            String charset,
+            String etag,
+            String lastModified,
+            boolean notModified) {
+        this.url = Objects.requireNonNull(url);
+        this.finalUrl = Objects.requireNonNull(finalUrl);
+        this.content = Objects.requireNonNull(content);
+        this.charset = charset;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.notModified = notModified;
+    }
+
+    /**
+     * Returns a page with no content, for a URL that could not be downloaded.
+     */
+    public static FetchedPage failed(String url) {
+        return new FetchedPage(url, new byte[0], null);
+    }
+
+    /**
+     * Returns a page with no content, for a URL whose server answered a conditional request with
+     * {@code 304 Not Modified}. Its result is the one stored in the page cache.
+     */
+    public static FetchedPage notModified(String url) {
+        return new FetchedPage(url, url, new byte[0], null, null, null, true);
+    }
+
+    /**
+     * Returns the URL the page was fetched from.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns the URL the page was downloaded from once redirects were followed, which its relative
+     * links are resolved against. It is {@link #getUrl()} unless the server redirected the request.
+     */
+    public String getFinalUrl() {
+        return finalUrl;
+    }
+
+    /**
+     * Returns the body of the page. The returned array must not be modified.
+     */
+    public byte[] getContent() {
+        return content;
+    }
+
+    /**
+     * Returns the character set named by the server, or {@code null} if it is unknown.
+     */
+    public String getCharset() {
+        return charset;
+    }
+
+    /**
+     * Returns the {@code ETag} header the page was served with, or {@code null}.
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Returns the {@code Last-Modified} header the page was served with, or {@code null}.
+     */
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns true if the server said the page has not changed since it was cached.
+     */
+    public boolean isNotModified() {
+        return notModified;
+    }
+}
@@ -0,0 +1,607 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * A streaming HTML lexer that reports the text and the start tags of a page as it reads it, without
+ * building a tree of the document.
+ *
+ * <p>It follows the HTML tokenizer only as far as the crawler needs: text is reported in the runs
+ * that Jsoup would make {@link org.jsoup.nodes.TextNode}s of, with its character references decoded
+ * by Jsoup; comments, doctypes, end tags and processing instructions are skipped; the contents of
+ * {@code script} and {@code style} elements are skipped too, and those of the other raw text
+ * elements are reported as text. Of the attributes of a start tag, only those the lexer is asked
+ * for are reported. Where Jsoup 1.13 strays from the HTML standard, such as in ending a
+ * {@code title} early when its end tag is missing, the lexer strays with it.
+ *
+ * <p>Tree construction, which can move text around but rarely changes what text there is, is
+ * left out.
+ */
+final class HtmlLexer {
+
+    /**
+     * The elements other than {@code script} whose contents are not markup and are not shown, which
+     * Jsoup keeps as data.
+     */
+    private static final Set<String> DATA_ELEMENTS = Set.of("style");
+
+    /**
+     * The elements whose contents are not markup but are text.
+     */
+    private static final Set<String> RAW_TEXT_ELEMENTS =
+            Set.of("xmp", "iframe", "noembed", "noframes");
+
+    /**
+     * The elements whose contents are text in which character references are decoded.
+     */
+    private static final Set<String> ESCAPABLE_RAW_TEXT_ELEMENTS = Set.of("title", "textarea");
+
+    private static final IntPredicate TAG_NAME_END =
+            c -> isTagWhitespace(c) || c == '/' || c == '>' || c == '<';
+    private static final IntPredicate ATTRIBUTE_NAME_END =
+            c -> isTagWhitespace(c) || c == '/' || c == '>' || c == '=';
+    private static final IntPredicate UNQUOTED_ATTRIBUTE_VALUE_END =
+            c -> isTagWhitespace(c) || c == '>';
+    private static final IntPredicate DOUBLE_QUOTE = c -> c == '"';
+    private static final IntPredicate SINGLE_QUOTE = c -> c == '\'';
+
+    /**
+     * The number of events reported between two checks of {@link Listener#isStopped()}.
+     */
+    private static final int EVENTS_PER_STOP_CHECK = 64;
+
+    /**
+     * Receives the events of a page.
+     */
+    interface Listener {
+
+        /**
+         * Called for every run of text between two pieces of markup, and for every CDATA section.
+         *
+         * @param text  the text, with character references decoded unless it is a CDATA section or
+         *              the contents of a raw text element.
+         * @param cdata whether the text is a CDATA section, which Jsoup does not normalize the
+         *              whitespace of.
+         */
+        void text(String text, boolean cdata);
+
+        /**
+         * Called for every start tag.
+         *
+         * @param name       the lowercase name of the tag.
+         * @param attributes the decoded values of the attributes of the tag that the lexer was
+         *                   asked for, by their lowercase names. Only the first of repeated
+         *                   attributes is kept.
+         */
+        void startTag(String name, Map<String, String> attributes);
+
+        /**
+         * Returns whether the lexer should stop, which is checked every few events.
+         */
+        default boolean isStopped() {
+            return false;
+        }
+    }
+
+    private final Reader in;
+    private final Set<String> attributeNames;
+    private final Listener listener;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder text = new StringBuilder();
+    private final StringBuilder decodedText = new StringBuilder();
+    private int position;
+    private int limit;
+    private int events;
+
+    /**
+     * Creates a lexer that reads the given page.
+     *
+     * @param in             the page.
+     * @param attributeNames the lowercase names of the attributes to report to the listener.
+     * @param listener       the listener that the events of the page are reported to.
+     */
+    HtmlLexer(Reader in, Set<String> attributeNames, Listener listener) {
+        this.in = Objects.requireNonNull(in);
+        this.attributeNames = Objects.requireNonNull(attributeNames);
+        this.listener = Objects.requireNonNull(listener);
+    }
+
+    /**
+     * Reads the whole page and reports its events. Returns false if the listener stopped the lexer
+     * before the end of the page.
+     */
+    boolean run() throws IOException {
+        while (true) {
+            int c = peek(0);
+            if (c == -1) {
+                flushText(true, false);
+                return true;
+            }
+            if (c != '<') {
+                int end = position;
+                while (end < limit && buffer[end] != '<') {
+                    end++;
+                }
+                text.append(buffer, position, end - position);
+                position = end;
+            } else if (!markup()) {
+                text.append('<');
+                position++;
+            }
+            if (events >= EVENTS_PER_STOP_CHECK) {
+                events = 0;
+                if (listener.isStopped()) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lexes the markup that starts at the current '&lt;', if it is markup, and returns whether it
+     * was.
+     */
+    private boolean markup() throws IOException {
+        int next = peek(1);
+        if (isAsciiLetter(next)) {
+            flushText(true, false);
+            position++;
+            startTag();
+            return true;
+        }
+        if (next == '/') {
+            int afterSlash = peek(2);
+            if (afterSlash == -1) {
+                return false;
+            }
+            if (afterSlash == '>') {
+                // Jsoup drops "</>" without ending the run of text around it, but decodes the
+                // character references on either side of it separately.
+                position += 3;
+                decodeText();
+                return true;
+            }
+            flushText(true, false);
+            position += 2;
+            if (isAsciiLetter(afterSlash)) {
+                // An end tag, whose attributes are lexed and dropped like those of a start tag.
+                readTagName();
+                readAttributes(false);
+            } else {
+                skipPast(">");
+            }
+            return true;
+        }
+        if (next == '!') {
+            flushText(true, false);
+            position += 2;
+            if (matches("--")) {
+                position += 2;
+                comment();
+            } else if (matches("[CDATA[")) {
+                position += "[CDATA[".length();
+                while (peek(0) != -1 && !matches("]]>")) {
+                    text.append(buffer[position++]);
+                }
+                if (peek(0) != -1) {
+                    position += 3;
+                }
+                flushText(false, true);
+            } else {
+                skipPast(">");
+            }
+            return true;
+        }
+        if (next == '?') {
+            flushText(true, false);
+            skipPast(">");
+            return true;
+        }
+        return false;
+    }
+
+    private void startTag() throws IOException {
+        String name = readTagName();
+        Map<String, String> attributes = readAttributes(true);
+        if (attributes == null) {
+            // The page ended inside the tag, which is then dropped.
+            return;
+        }
+        events++;
+        listener.startTag(name, attributes);
+        if (name.equals("plaintext")) {
+            while (peek(0) != -1) {
+                text.append(buffer[position++]);
+            }
+            flushText(false, false);
+        } else if (name.equals("script")) {
+            scriptData();
+        } else if (DATA_ELEMENTS.contains(name)) {
+            rawText(name, false);
+            text.setLength(0);
+        } else if (RAW_TEXT_ELEMENTS.contains(name)) {
+            rawText(name, false);
+            flushText(false, false);
+        } else if (ESCAPABLE_RAW_TEXT_ELEMENTS.contains(name)) {
+            rawText(name, true);
+            flushText(true, false);
+        }
+    }
+
+    private String readTagName() throws IOException {
+        return readUntil(TAG_NAME_END).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Reads the attributes of a tag up to and including its closing '&gt;'. Returns the ones the
+     * lexer was asked for, if they are to be reported, or {@code null} if the page ends before the
+     * tag does.
+     *
+     * <p>Like Jsoup, a '&lt;' where an attribute could start, other than right after the name of
+     * an attribute, closes the tag and starts the next one.
+     */
+    private Map<String, String> readAttributes(boolean report) throws IOException {
+        Map<String, String> attributes = Map.of();
+        boolean afterAttributeName = false;
+        while (true) {
+            int c = peek(0);
+            if (c == -1) {
+                return null;
+            }
+            if (c == '>') {
+                position++;
+                return attributes;
+            }
+            if (c == '/') {
+                position++;
+                afterAttributeName = false;
+                continue;
+            }
+            if (isTagWhitespace(c)) {
+                position++;
+                continue;
+            }
+            if (c == '<' && !afterAttributeName) {
+                return attributes;
+            }
+            String name;
+            if (c == '=') {
+                // An attribute name may start with '=', though no other '=' ends up in it.
+                position++;
+                name = "=" + readUntil(ATTRIBUTE_NAME_END);
+            } else {
+                name = readUntil(ATTRIBUTE_NAME_END);
+            }
+            while ((c = peek(0)) != -1 && isTagWhitespace(c)) {
+                position++;
+            }
+            String value = "";
+            afterAttributeName = c != '=';
+            if (c == '=') {
+                position++;
+                while ((c = peek(0)) != -1 && isTagWhitespace(c)) {
+                    position++;
+                }
+                value = readAttributeValue();
+                if (value == null) {
+                    return null;
+                }
+            }
+            if (report) {
+                String key = name.toLowerCase(Locale.ROOT);
+                if (attributeNames.contains(key) && !attributes.containsKey(key)) {
+                    if (attributes.isEmpty()) {
+                        attributes = new HashMap<>();
+                    }
+                    attributes.put(key, value.indexOf('&') >= 0
+                            ? decodeAttributeValue(value)
+                            : value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a quoted or unquoted attribute value, or returns {@code null} if the page ends inside a
+     * quoted one.
+     */
+    private String readAttributeValue() throws IOException {
+        int c = peek(0);
+        if (c == '"' || c == '\'') {
+            position++;
+            String value = readUntil(c == '"' ? DOUBLE_QUOTE : SINGLE_QUOTE);
+            if (peek(0) == -1) {
+                return null;
+            }
+            position++;
+            return value;
+        }
+        return readUntil(UNQUOTED_ATTRIBUTE_VALUE_END);
+    }
+
+    /**
+     * Reads the characters up to the next one that the given predicate accepts, or up to the end of
+     * the page.
+     */
+    private String readUntil(IntPredicate end) throws IOException {
+        StringBuilder read = null;
+        while (true) {
+            int start = position;
+            while (position < limit && !end.test(buffer[position])) {
+                position++;
+            }
+            if (position < limit) {
+                return read == null
+                        ? new String(buffer, start, position - start)
+                        : read.append(buffer, start, position - start).toString();
+            }
+            if (read == null) {
+                read = new StringBuilder();
+            }
+            read.append(buffer, start, position - start);
+            if (peek(0) == -1) {
+                return read.toString();
+            }
+        }
+    }
+
+    /**
+     * Skips a comment whose opening "&lt;!--" has been read.
+     */
+    private void comment() throws IOException {
+        if (matches(">")) {
+            position++;
+            return;
+        }
+        if (matches("->")) {
+            position += 2;
+            return;
+        }
+        while (peek(0) != -1) {
+            if (matches("-->")) {
+                position += 3;
+                return;
+            }
+            if (matches("--!>")) {
+                position += 4;
+                return;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Reads the contents of a raw text element into the text, up to its end tag, which is skipped.
+     *
+     * <p>Like Jsoup, an escapable raw text element whose end tag is not found ahead (in lowercase
+     * or uppercase, and within as much of the page as is buffered) also ends at the next start tag.
+     */
+    private void rawText(String name, boolean escapable) throws IOException {
+        while (peek(0) != -1) {
+            if (peek(0) == '<' && peek(1) == '/' && matchesEndTag(name)) {
+                position += 2;
+                readTagName();
+                readAttributes(false);
+                return;
+            }
+            if (escapable
+                    && peek(0) == '<'
+                    && isAsciiLetter(peek(1))
+                    && !isAhead("</" + name)
+                    && !isAhead("</" + name.toUpperCase(Locale.ROOT))) {
+                return;
+            }
+            text.append(buffer[position++]);
+        }
+    }
+
+    /**
+     * Skips the contents of a {@code script} element up to its end tag, which is skipped too.
+     *
+     * <p>A script may hide its end tag in a comment that contains a {@code script} start tag, as in
+     * {@code <!--<script>...</script>-->}. Like Jsoup, the tag names in such comments are compared
+     * case-sensitively.
+     */
+    private void scriptData() throws IOException {
+        boolean escaped = false;
+        boolean doubleEscaped = false;
+        int dashes = 0;
+        while (peek(0) != -1) {
+            int c = peek(0);
+            if (c == '-' && escaped) {
+                dashes++;
+                position++;
+                continue;
+            }
+            if (c == '>' && dashes >= 2) {
+                escaped = false;
+                doubleEscaped = false;
+            }
+            dashes = 0;
+            if (c != '<') {
+                position++;
+            } else if (!doubleEscaped && peek(1) == '/' && matchesEndTag("script")) {
+                position += 2;
+                readTagName();
+                readAttributes(false);
+                return;
+            } else if (!escaped && matches("<!--")) {
+                position += 4;
+                escaped = true;
+                dashes = 2;
+            } else if (escaped && !doubleEscaped && Character.isLetter(peek(1))) {
+                position++;
+                doubleEscaped = isScriptTagName();
+            } else if (doubleEscaped && peek(1) == '/') {
+                position += 2;
+                doubleEscaped = !isScriptTagName();
+            } else {
+                position++;
+            }
+        }
+    }
+
+    /**
+     * Skips the letters of a tag name in an escaped script, and returns whether they were exactly
+     * "script", followed by the end of a tag name.
+     */
+    private boolean isScriptTagName() throws IOException {
+        StringBuilder name = new StringBuilder();
+        while (peek(0) != -1 && Character.isLetter(peek(0))) {
+            name.append(buffer[position++]);
+        }
+        int c = peek(0);
+        boolean script = name.toString().equals("script")
+                && (isTagWhitespace(c) || c == '/' || c == '>');
+        if (isTagWhitespace(c) || c == '/' || c == '>') {
+            position++;
+        }
+        return script;
+    }
+
+    /**
+     * Returns whether the given string occurs in the buffered part of the page ahead of the current
+     * position.
+     */
+    private boolean isAhead(String s) throws IOException {
+        fill(buffer.length);
+        for (int i = position; i + s.length() <= limit; i++) {
+            if (buffer[i] == s.charAt(0) && new String(buffer, i, s.length()).equals(s)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesEndTag(String name) throws IOException {
+        for (int i = 0; i < name.length(); i++) {
+            int c = peek(2 + i);
+            if (c == -1 || Character.toLowerCase((char) c) != name.charAt(i)) {
+                return false;
+            }
+        }
+        // At the end of the page, Jsoup keeps an unfinished end tag as text.
+        int after = peek(2 + name.length());
+        return isTagWhitespace(after) || after == '/' || after == '>';
+    }
+
+    private void skipPast(String end) throws IOException {
+        while (peek(0) != -1) {
+            if (matches(end)) {
+                position += end.length();
+                return;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Reports the text read since the last event, if there is any.
+     */
+    private void flushText(boolean decode, boolean cdata) {
+        if (decode) {
+            decodeText();
+        } else {
+            decodedText.append(text);
+            text.setLength(0);
+        }
+        if (decodedText.length() > 0 || cdata) {
+            String run = decodedText.toString();
+            decodedText.setLength(0);
+            events++;
+            listener.text(run, cdata);
+        }
+    }
+
+    /**
+     * Decodes the character references in the text read so far.
+     */
+    private void decodeText() {
+        if (text.indexOf("&") >= 0) {
+            CharacterReferences.decode(text, false, decodedText);
+        } else {
+            decodedText.append(text);
+        }
+        text.setLength(0);
+    }
+
+    private static String decodeAttributeValue(String value) {
+        StringBuilder decoded = new StringBuilder(value.length());
+        CharacterReferences.decode(value, true, decoded);
+        return decoded.toString();
+    }
+
+    private boolean matches(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            if (peek(i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the character at the given offset from the current position, reading more of the page
+     * if needed, or -1 past the end of the page.
+     */
+    private int peek(int offset) throws IOException {
+        if (position + offset >= limit) {
+            fill(offset + 1);
+            if (position + offset >= limit) {
+                return -1;
+            }
+        }
+        return buffer[position + offset];
+    }
+
+    private void fill(int needed) throws IOException {
+        System.arraycopy(buffer, position, buffer, 0, limit - position);
+        limit -= position;
+        position = 0;
+        while (limit < needed) {
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read == -1) {
+                return;
+            }
+            limit += read;
+        }
+    }
+
+    private static boolean isAsciiLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isTagWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r';
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.Timeout;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link PageFetcher} that downloads remote pages with the asynchronous API of
+ * {@link HttpClient}, and reads local {@code file:} URLs directly.
+ */
+final class HttpPageFetcher implements PageFetcher {
+
+    /**
+     * Matches the content types Jsoup agrees to parse when it downloads a page itself.
+     */
+    private static final Pattern PARSEABLE_CONTENT_TYPE =
+            Pattern.compile("(?i)(application/(\\w+\\+)?xml|text/\\w+)(;.*)?");
+
+    private final HttpClient client;
+    private final Duration timeout;
+    private final Clock clock;
+    private final PageCache cache;
+
+    @Inject
+    HttpPageFetcher(@Timeout Duration timeout, Clock clock, PageCache cache) {
+        this.timeout = timeout;
+        this.clock = clock;
+        this.cache = cache;
+        this.client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    @Override
+    public CompletableFuture<FetchedPage> fetch(String url, Instant deadline) {
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (Exception e) {
+            // Invalid link; ignore
+            return CompletableFuture.completedFuture(FetchedPage.failed(url));
+        }
+        if ("file".equals(uri.getScheme())) {
+            return CompletableFuture.completedFuture(readFile(url, uri));
+        }
+
+        // The request timeout covers the whole exchange, so the client abandons the download when
+        // the deadline passes.
+        Duration remaining = Duration.between(clock.instant(), deadline);
+        if (remaining.isNegative() || remaining.isZero()) {
+            return CompletableFuture.completedFuture(FetchedPage.failed(url));
+        }
+        HttpRequest request;
+        PageCache.Entry cached = cache.get(url);
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                    .timeout(remaining.compareTo(timeout) < 0 ? remaining : timeout)
+                    .GET();
+            // Revalidate a page downloaded by an earlier crawl instead of downloading it again.
+            if (cached != null && cached.getEtag() != null) {
+                builder.header("If-None-Match", cached.getEtag());
+            }
+            if (cached != null && cached.getLastModified() != null) {
+                builder.header("If-Modified-Since", cached.getLastModified());
+            }
+            request = builder.build();
+        } catch (IllegalArgumentException e) {
+            // Not an HTTP URL; ignore
+            return CompletableFuture.completedFuture(FetchedPage.failed(url));
+        }
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (cached != null && response.statusCode() == 304) {
+                        return FetchedPage.notModified(url);
+                    }
+                    return isParseable(response)
+                            ? new FetchedPage(
+                                    url,
+                                    response.uri().toString(),
+                                    response.body(),
+                                    charsetOf(response),
+                                    response.headers().firstValue("ETag").orElse(null),
+                                    response.headers().firstValue("Last-Modified").orElse(null))
+                            : FetchedPage.failed(url);
+                })
+                .exceptionally(e -> FetchedPage.failed(url));
+    }
+
+    private static FetchedPage readFile(String url, URI uri) {
+        try {
+            return new FetchedPage(url, Files.readAllBytes(Path.of(uri)), null);
+        } catch (IOException | RuntimeException e) {
+            return FetchedPage.failed(url);
+        }
+    }
+
+    private static boolean isParseable(HttpResponse<?> response) {
+        if (response.statusCode() >= 400) {
+            return false;
+        }
+        return response.headers()
+                .firstValue("Content-Type")
+                .map(type -> PARSEABLE_CONTENT_TYPE.matcher(type.strip()).matches())
+                .orElse(true);
+    }
+
+    /**
+     * Returns the {@code charset} parameter of the response's {@code Content-Type} header, if any.
+     */
+    private static String charsetOf(HttpResponse<?> response) {
+        String contentType = response.headers().firstValue("Content-Type").orElse("");
+        for (String parameter : contentType.split(";")) {
+            String trimmed = parameter.strip();
+            if (trimmed.toLowerCase(Locale.ROOT).startsWith("charset=")) {
+                return trimmed.substring("charset=".length()).replace("\"", "");
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+/**
+ * Utilities to recognize configured regular expressions that are really literal strings, and to
+ * merge the others into a single regular expression.
+ *
+ * <p>All the methods assume that the expressions are only ever used with
+ * {@link java.util.regex.Matcher#matches()}, which must match the whole input.
+ */
+public final class LiteralPatterns {
+
+    /**
+     * Characters that have a special meaning in a regular expression when they are not escaped.
+     */
+    private static final String METACHARACTERS = ".$|()[]{}^?*+\\";
+
+    /**
+     * Matches back-references, named groups, quoted sections and the inline comments flag.
+     */
+    private static final Pattern UNCOMBINABLE =
+            Pattern.compile("\\\\[1-9kQ]|\\(\\?<[a-zA-Z]|\\(\\?[a-zA-Z-]*x");
+
+    // This class cannot be instantiated
+    private LiteralPatterns() {
+    }
+
+    /**
+     * Removes a leading {@code ^} and a trailing unescaped {@code $} from the given regular
+     * expression. Both are redundant when the whole input must match.
+     */
+    public static String stripAnchors(String regex) {
+        if (regex.contains("\\Q")) {
+            // A trailing $ may be quoted.
+            return regex;
+        }
+        int start = regex.startsWith("^") ? 1 : 0;
+        int end = regex.length();
+        if (end > start && regex.charAt(end - 1) == '$') {
+            int backslashes = 0;
+            while (end - 2 - backslashes >= start && regex.charAt(end - 2 - backslashes) == '\\') {
+                backslashes++;
+            }
+            if (backslashes % 2 == 0) {
+                end--;
+            }
+        }
+        return regex.substring(start, end);
+    }
+
+    /**
+     * Returns the string the given regular expression matches if it has no construct other than
+     * literal characters, escaped metacharacters and quoted sections; otherwise returns null.
+     */
+    public static String literalOf(String regex) {
+        StringBuilder literal = new StringBuilder(regex.length());
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c != '\\') {
+                if (METACHARACTERS.indexOf(c) >= 0) {
+                    return null;
+                }
+                literal.append(c);
+                continue;
+            }
+            if (i + 1 == regex.length()) {
+                return null;
+            }
+            char escaped = regex.charAt(++i);
+            if (escaped == 'Q') {
+                int end = regex.indexOf("\\E", i + 1);
+                if (end < 0) {
+                    literal.append(regex, i + 1, regex.length());
+                    break;
+                }
+                literal.append(regex, i + 1, end);
+                i = end + 1;
+            } else if (Character.isLetterOrDigit(escaped)) {
+                // A character class such as \d, a back-reference, or another construct.
+                return null;
+            } else {
+                literal.append(escaped);
+            }
+        }
+        return literal.toString();
+    }
+
+    /**
+     * Returns patterns that together match the same inputs as the given ones: a single alternation
+     * of all the patterns that can safely be combined, followed by the ones that cannot. Patterns
+     * with flags, back-references, named groups, quoted sections or inline comments are not
+     * combined.
+     */
+    public static List<Pattern> combine(List<Pattern> patterns) {
+        List<Pattern> result = new ArrayList<>();
+        List<Pattern> combinable = new ArrayList<>();
+        for (Pattern pattern : patterns) {
+            if (pattern.flags() == 0 && !UNCOMBINABLE.matcher(pattern.pattern()).find()) {
+                combinable.add(pattern);
+            } else {
+                result.add(pattern);
+            }
+        }
+        if (combinable.size() <= 1) {
+            result.addAll(0, combinable);
+            return result;
+        }
+        try {
+            // Inline flags such as (?i) only apply until the end of the enclosing group.
+            result.add(0, Pattern.compile(combinable.stream()
+                    .map(pattern -> "(?:" + pattern.pattern() + ")")
+                    .collect(Collectors.joining("|"))));
+        } catch (PatternSyntaxException e) {
+            result.addAll(0, combinable);
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if the given string holds a character that {@code .} does not match.
+     */
+    public static boolean hasLineTerminator(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler.parser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A persistent store of the pages downloaded by earlier crawls, keyed by URL, so that later crawls
+ * can revalidate them with a conditional GET instead of downloading and parsing them again.
+ *
+ * <p>For every remote page whose response carried an {@code ETag} or a {@code Last-Modified}
+ * header, the cache keeps those validators and the {@link PageParser.Result} of the page. The next
+ * request for the page sends them back as {@code If-None-Match} and {@code If-Modified-Since}, and
+ * if the server answers {@code 304 Not Modified}, the stored result is used as is.
+ *
+ * <p>Each page is stored in its own small file, named after a hash of its URL, which is written
+ * to a temporary file first and then atomically moved into place. Concurrent crawls can therefore
+ * share a cache directory, and a crawl that dies never leaves a partly written entry behind. An
+ * entry that cannot be read is treated as missing.
+ *
+ * <p>The stored results were computed with the ignored words of the crawl that stored them, so the
+ * cache directory should be emptied when the ignored words change.
+ */
+final class PageCache {
+    private static final int VERSION = 1;
+    private static final PageCache DISABLED = new PageCache(null);
+
+    private final Path directory;
+
+    /**
+     * Creates a cache that stores its entries in the given directory, which is created if needed.
+     */
+    PageCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns a cache that never holds any page.
+     */
+    static PageCache disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Returns the entry stored for the given URL, or {@code null} if there is none.
+     */
+    Entry get(String url) {
+        if (directory == null) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(fileOf(url))))) {
+            if (in.readInt() != VERSION || !in.readUTF().equals(url)) {
+                // Written by another version, or a hash collision.
+                return null;
+            }
+            String etag = readNullable(in);
+            String lastModified = readNullable(in);
+            PageParser.Result.Builder builder = new PageParser.Result.Builder();
+            for (int i = in.readInt(); i > 0; i--) {
+                builder.addWord(in.readUTF(), in.readInt());
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                builder.addLink(in.readUTF());
+            }
+            return new Entry(etag, lastModified, builder.build());
+        } catch (IOException e) {
+            // A missing or unreadable entry is treated as a page that was never cached.
+            return null;
+        }
+    }
+
+    /**
+     * Stores the result of a page that was just downloaded, if the server sent validators for it.
+     * A page that cannot be stored is simply not cached.
+     *
+     * @param etag         the {@code ETag} header of the response, or {@code null}.
+     * @param lastModified the {@code Last-Modified} header of the response, or {@code null}.
+     */
+    void put(String url, String etag, String lastModified, PageParser.Result result) {
+        if (directory == null || (etag == null && lastModified == null)) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "page", ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(VERSION);
+                    out.writeUTF(url);
+                    writeNullable(out, etag);
+                    writeNullable(out, lastModified);
+                    out.writeInt(result.getWordCounts().size());
+                    for (Map.Entry<String, Integer> e : result.getWordCounts().entrySet()) {
+                        out.writeUTF(e.getKey());
+                        out.writeInt(e.getValue());
+                    }
+                    out.writeInt(result.getLinks().size());
+                    for (String link : result.getLinks()) {
+                        out.writeUTF(link);
+                    }
+                }
+                Files.move(
+                        temp,
+                        fileOf(url),
+                        StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            // Strings longer than 64 KB cannot be written with writeUTF; such pages are not cached.
+        }
+    }
+
+    private Path fileOf(String url) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(url.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(hash) + ".page");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * The validators and parse result stored for a page.
+     */
+    static final class Entry {
+        private final String etag;
+        private final String lastModified;
+        private final PageParser.Result result;
+
+        private Entry(String etag, String lastModified, PageParser.Result result) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.result = Objects.requireNonNull(result);
+        }
+
+        /**
+         * Returns the {@code ETag} the page was served with, or {@code null}.
+         */
+        String getEtag() {
+            return etag;
+        }
+
+        /**
+         * Returns the {@code Last-Modified} date the page was served with, or {@code null}.
+         */
+        String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Returns the result of parsing the page when it was stored.
+         */
+        PageParser.Result getResult() {
+            return result;
+        }
+    }
+}
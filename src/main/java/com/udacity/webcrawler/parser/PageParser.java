@@ -44,20 +44,49 @@ public interface PageParser {
      * A data class that represents the outcome of processing an HTML page.
      */
     final class Result {
-        private final Map<String, Integer> wordCounts;
+        private final WordDictionary dictionary;
+        private final WordIdCounts wordIds;
         private final List<String> links;
+        private volatile Map<String, Integer> wordCounts;
 
-        private Result(Map<String, Integer> wordCounts, List<String> links) {
-            this.wordCounts = Objects.requireNonNull(wordCounts);
+        private Result(WordDictionary dictionary, WordIdCounts wordIds, List<String> links) {
+            this.dictionary = Objects.requireNonNull(dictionary);
+            this.wordIds = Objects.requireNonNull(wordIds);
             this.links = Objects.requireNonNull(links);
         }
 
         /**
          * Returns an unmodifiable {@link Map} containing the words and word frequencies encountered
          * when parsing the web page.
+         *
+         * <p>The words are counted by ID, and this map is only built the first time it is asked for.
+         * Code that adds up many pages should read {@link #getWordIds()} instead.
          */
         public Map<String, Integer> getWordCounts() {
-            return wordCounts;
+            Map<String, Integer> counts = wordCounts;
+            if (counts == null) {
+                Map<String, Integer> words = new HashMap<>(wordIds.size() * 4 / 3 + 1);
+                wordIds.forEach((id, count) -> words.put(dictionary.wordOf(id), count));
+                counts = Collections.unmodifiableMap(words);
+                wordCounts = counts;
+            }
+            return counts;
+        }
+
+        /**
+         * Returns the word counts of the page, keyed by the IDs that {@link #getWordDictionary()}
+         * gave the words.
+         */
+        public WordIdCounts getWordIds() {
+            return wordIds;
+        }
+
+        /**
+         * Returns the dictionary that gave the words of the page their IDs. Pages parsed for the same
+         * crawl share a dictionary, unless it counts words by {@link String}.
+         */
+        public WordDictionary getWordDictionary() {
+            return dictionary;
         }
 
         /**
@@ -72,15 +101,37 @@ public interface PageParser {
          * hyperlinks encountered while parsing a web page.
          */
         static final class Builder {
-            private final Map<String, Integer> wordCounts = new HashMap<>();
+            private final WordDictionary dictionary;
+            private final WordIdCounts wordIds = new WordIdCounts();
             private final Set<String> links = new HashSet<>();
 
+            /**
+             * Creates a builder whose words get their IDs from a dictionary of their own.
+             */
+            Builder() {
+                this(new WordDictionary());
+            }
+
+            /**
+             * Creates a builder whose words get their IDs from the given dictionary.
+             */
+            Builder(WordDictionary dictionary) {
+                this.dictionary = Objects.requireNonNull(dictionary);
+            }
+
             /**
              * Increments the frequency counter for the given word.
              */
             void addWord(String word) {
+                addWord(word, 1);
+            }
+
+            /**
+             * Adds the given number of occurrences of the given word.
+             */
+            void addWord(String word, int count) {
                 Objects.requireNonNull(word);
-                wordCounts.compute(word, (k, v) -> (v == null) ? 1 : v + 1);
+                wordIds.add(dictionary.idOf(word), count);
             }
 
             /**
@@ -95,7 +146,8 @@ public interface PageParser {
              */
             Result build() {
                 return new Result(
-                        Collections.unmodifiableMap(wordCounts),
+                        dictionary,
+                        wordIds,
                         links.stream().collect(Collectors.toUnmodifiableList()));
             }
         }
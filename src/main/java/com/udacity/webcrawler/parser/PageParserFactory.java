@@ -24,6 +24,8 @@
 
 package com.udacity.webcrawler.parser;
 
+import java.time.Instant;
+
 /**
  * A factory interface that supplies instances of {@link PageParser} that have common parameters
  * (such as the timeout and ignored words) preset from injected values.
@@ -34,4 +36,41 @@ public interface PageParserFactory {
      * Returns a {@link PageParser} that parses the given {@link url}.
      */
     PageParser get(String url);
+
+    /**
+     * Returns a {@link PageParser} that parses the given {@link url}, and gives up when the given
+     * deadline passes: the download is limited to the time left until the deadline, and parsing
+     * stops with an empty result if the deadline passes while it is running.
+     */
+    PageParser get(String url, Instant deadline);
+
+    /**
+     * Returns a {@link PageParser} like {@link #get(String, Instant)}, whose result counts the words
+     * of the page by the IDs that the given dictionary gives them.
+     *
+     * @param dictionary the dictionary of the crawl, or {@code null} to give the page a dictionary
+     *                   of its own.
+     */
+    PageParser get(String url, Instant deadline, WordDictionary dictionary);
+
+    /**
+     * Returns a {@link PageParser} that parses a page that has already been downloaded, for example
+     * by a {@link PageFetcher}.
+     */
+    PageParser get(FetchedPage page);
+
+    /**
+     * Returns a {@link PageParser} that parses a page that has already been downloaded, and stops
+     * with an empty result if the given deadline passes while it is running.
+     */
+    PageParser get(FetchedPage page, Instant deadline);
+
+    /**
+     * Returns a {@link PageParser} like {@link #get(FetchedPage, Instant)}, whose result counts the
+     * words of the page by the IDs that the given dictionary gives them.
+     *
+     * @param dictionary the dictionary of the crawl, or {@code null} to give the page a dictionary
+     *                   of its own.
+     */
+    PageParser get(FetchedPage page, Instant deadline, WordDictionary dictionary);
 }
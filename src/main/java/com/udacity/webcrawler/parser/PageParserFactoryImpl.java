@@ -28,31 +28,79 @@ import com.udacity.webcrawler.Timeout;
 import com.udacity.webcrawler.profiler.Profiler;
 
 import javax.inject.Inject;
+import java.time.Clock;
 import java.time.Duration;
-import java.util.List;
-import java.util.regex.Pattern;
+import java.time.Instant;
 
 /**
  * A {@link PageParserFactory} that wraps its returned instances using a {@link Profiler}.
+ *
+ * <p>The words of a page get their IDs from the {@link WordDictionary} of its crawl, if one is
+ * given, and from a dictionary of its own otherwise. Pages are parsed by a
+ * {@link StreamingPageParser} if the module asks for one, and by a {@link PageParserImpl}
+ * otherwise.
  */
 final class PageParserFactoryImpl implements PageParserFactory {
     private final Profiler profiler;
-    private final List<Pattern> ignoredWords;
+    private final WordFilter ignoredWords;
     private final Duration timeout;
+    private final Clock clock;
+    private final PageCache cache;
+    private final boolean streaming;
 
     @Inject
     PageParserFactoryImpl(
-            Profiler profiler, @IgnoredWords List<Pattern> ignoredWords, @Timeout Duration timeout) {
+            Profiler profiler,
+            WordFilter ignoredWords,
+            @Timeout Duration timeout,
+            Clock clock,
+            PageCache cache,
+            @StreamingParser boolean streaming) {
         this.profiler = profiler;
         this.ignoredWords = ignoredWords;
         this.timeout = timeout;
+        this.clock = clock;
+        this.cache = cache;
+        this.streaming = streaming;
     }
 
     @Override
     public PageParser get(String url) {
         // Here, parse the page with the initial timeout (instead of just the time remaining), to make
         // the download less likely to fail. Deadline enforcement should happen at a higher level.
-        PageParser delegate = new PageParserImpl(url, timeout, ignoredWords);
+        return get(url, Instant.MAX);
+    }
+
+    @Override
+    public PageParser get(String url, Instant deadline) {
+        return get(url, deadline, null);
+    }
+
+    @Override
+    public PageParser get(String url, Instant deadline, WordDictionary dictionary) {
+        WordDictionary ids = dictionary != null ? dictionary : new WordDictionary();
+        PageParser delegate = streaming
+                ? new StreamingPageParser(url, timeout, clock, deadline, cache, ignoredWords, ids)
+                : new PageParserImpl(url, timeout, clock, deadline, cache, ignoredWords, ids);
+        return profiler.wrap(PageParser.class, delegate);
+    }
+
+    @Override
+    public PageParser get(FetchedPage page) {
+        return get(page, Instant.MAX);
+    }
+
+    @Override
+    public PageParser get(FetchedPage page, Instant deadline) {
+        return get(page, deadline, null);
+    }
+
+    @Override
+    public PageParser get(FetchedPage page, Instant deadline, WordDictionary dictionary) {
+        WordDictionary ids = dictionary != null ? dictionary : new WordDictionary();
+        PageParser delegate = streaming
+                ? new StreamingPageParser(page, clock, deadline, cache, ignoredWords, ids)
+                : new PageParserImpl(page, clock, deadline, cache, ignoredWords, ids);
         return profiler.wrap(PageParser.class, delegate);
     }
 }
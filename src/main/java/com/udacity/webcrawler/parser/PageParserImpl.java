@@ -24,14 +24,18 @@
 
 package com.udacity.webcrawler.parser;
 
+import org.jsoup.Connection;
 import org.jsoup.Jsoup;
+import org.jsoup.helper.HttpConnection;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 import org.jsoup.nodes.TextNode;
 import org.jsoup.select.Evaluator.Tag;
-import org.jsoup.select.NodeVisitor;
+import org.jsoup.select.NodeFilter;
+import org.jsoup.select.NodeTraversor;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -39,10 +43,12 @@ import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Clock;
 import java.time.Duration;
-import java.util.Arrays;
+import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 /**
@@ -55,18 +61,30 @@ import java.util.regex.Pattern;
 final class PageParserImpl implements PageParser {
 
     /**
-     * Matches whitespace characters.
+     * The number of nodes visited between two checks of the deadline.
      */
-    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int NODES_PER_DEADLINE_CHECK = 64;
 
     /**
-     * Matches non-word characters.
+     * The longest download timeout Jsoup can take, which is given in milliseconds as an int: about
+     * 24 days. Longer timeouts are cut to it.
      */
-    private static final Pattern NON_WORD_CHARACTERS = Pattern.compile("\\W");
+    private static final Duration MAX_DOWNLOAD_TIMEOUT = Duration.ofMillis(Integer.MAX_VALUE);
 
     private final String uri;
     private final Duration timeout;
-    private final List<Pattern> ignoredWords;
+    private final WordFilter ignoredWords;
+    private final FetchedPage page;
+    private final Clock clock;
+    private final Instant deadline;
+    private final PageCache cache;
+    private final WordDictionary dictionary;
+
+    /**
+     * The cache validators of the downloaded page, set once it has been downloaded.
+     */
+    private String etag;
+    private String lastModified;
 
     /**
      * Constructs a page parser with the given parameters.
@@ -76,15 +94,142 @@ final class PageParserImpl implements PageParser {
      * @param ignoredWords patterns of which words should be ignored by the {@link #parse()} method.
      */
     PageParserImpl(String uri, Duration timeout, List<Pattern> ignoredWords) {
+        this(uri, timeout, Clock.systemUTC(), Instant.MAX, ignoredWords);
+    }
+
+    /**
+     * Constructs a page parser that gives up when the given deadline passes.
+     *
+     * <p>The download gets the given timeout or the time left until the deadline, whichever is
+     * shorter. If the deadline passes while the page is being parsed, {@link #parse()} stops and
+     * returns an empty result.
+     *
+     * @param uri          the URI of the file to parse.
+     * @param timeout      the longest timeout to use when downloading the file, if it is remote.
+     * @param clock        the clock used to check the deadline.
+     * @param deadline     the instant after which the parser gives up.
+     * @param ignoredWords patterns of which words should be ignored by the {@link #parse()} method.
+     */
+    PageParserImpl(
+            String uri, Duration timeout, Clock clock, Instant deadline, List<Pattern> ignoredWords) {
+        this(uri, timeout, clock, deadline, PageCache.disabled(), new WordFilter(ignoredWords));
+    }
+
+    /**
+     * Constructs a page parser that gives up when the given deadline passes, and that revalidates
+     * remote pages stored in the given cache with a conditional request instead of downloading
+     * them again.
+     *
+     * @param uri          the URI of the file to parse.
+     * @param timeout      the longest timeout to use when downloading the file, if it is remote.
+     * @param clock        the clock used to check the deadline.
+     * @param deadline     the instant after which the parser gives up.
+     * @param cache        the results of pages downloaded by earlier crawls.
+     * @param ignoredWords the words that should be ignored by the {@link #parse()} method.
+     */
+    PageParserImpl(
+            String uri,
+            Duration timeout,
+            Clock clock,
+            Instant deadline,
+            PageCache cache,
+            WordFilter ignoredWords) {
+        this(uri, timeout, clock, deadline, cache, ignoredWords, new WordDictionary());
+    }
+
+    /**
+     * Constructs a page parser like
+     * {@link #PageParserImpl(String, Duration, Clock, Instant, PageCache, WordFilter)}, whose words
+     * get their IDs from the given dictionary.
+     */
+    PageParserImpl(
+            String uri,
+            Duration timeout,
+            Clock clock,
+            Instant deadline,
+            PageCache cache,
+            WordFilter ignoredWords,
+            WordDictionary dictionary) {
         this.uri = Objects.requireNonNull(uri);
         this.timeout = Objects.requireNonNull(timeout);
         this.ignoredWords = Objects.requireNonNull(ignoredWords);
+        this.page = null;
+        this.clock = Objects.requireNonNull(clock);
+        this.deadline = Objects.requireNonNull(deadline);
+        this.cache = Objects.requireNonNull(cache);
+        this.dictionary = Objects.requireNonNull(dictionary);
+    }
+
+    /**
+     * Constructs a page parser for a page that has already been downloaded.
+     *
+     * @param page         the downloaded page.
+     * @param ignoredWords patterns of which words should be ignored by the {@link #parse()} method.
+     */
+    PageParserImpl(FetchedPage page, List<Pattern> ignoredWords) {
+        this(page, Clock.systemUTC(), Instant.MAX, ignoredWords);
+    }
+
+    /**
+     * Constructs a page parser for a page that has already been downloaded, which stops parsing and
+     * returns an empty result if the given deadline passes.
+     *
+     * @param page         the downloaded page.
+     * @param clock        the clock used to check the deadline.
+     * @param deadline     the instant after which the parser gives up.
+     * @param ignoredWords patterns of which words should be ignored by the {@link #parse()} method.
+     */
+    PageParserImpl(FetchedPage page, Clock clock, Instant deadline, List<Pattern> ignoredWords) {
+        this(page, clock, deadline, PageCache.disabled(), new WordFilter(ignoredWords));
+    }
+
+    /**
+     * Constructs a page parser for a page that has already been downloaded, which stores its result
+     * in the given cache, or takes the result from the cache if the page was not modified.
+     *
+     * @param page         the downloaded page.
+     * @param clock        the clock used to check the deadline.
+     * @param deadline     the instant after which the parser gives up.
+     * @param cache        the results of pages downloaded by earlier crawls.
+     * @param ignoredWords the words that should be ignored by the {@link #parse()} method.
+     */
+    PageParserImpl(
+            FetchedPage page,
+            Clock clock,
+            Instant deadline,
+            PageCache cache,
+            WordFilter ignoredWords) {
+        this(page, clock, deadline, cache, ignoredWords, new WordDictionary());
+    }
+
+    /**
+     * Constructs a page parser like
+     * {@link #PageParserImpl(FetchedPage, Clock, Instant, PageCache, WordFilter)}, whose words get
+     * their IDs from the given dictionary.
+     */
+    PageParserImpl(
+            FetchedPage page,
+            Clock clock,
+            Instant deadline,
+            PageCache cache,
+            WordFilter ignoredWords,
+            WordDictionary dictionary) {
+        this.uri = page.getUrl();
+        this.timeout = Duration.ZERO;
+        this.ignoredWords = Objects.requireNonNull(ignoredWords);
+        this.page = page;
+        this.clock = Objects.requireNonNull(clock);
+        this.deadline = Objects.requireNonNull(deadline);
+        this.cache = Objects.requireNonNull(cache);
+        this.dictionary = Objects.requireNonNull(dictionary);
+        this.etag = page.getEtag();
+        this.lastModified = page.getLastModified();
     }
 
     /**
      * Returns true if and only if the given {@link URI} represents a local file.
      */
-    private static boolean isLocalFile(URI uri) {
+    static boolean isLocalFile(URI uri) {
         return uri.getScheme() != null && uri.getScheme().equals("file");
     }
 
@@ -98,28 +243,44 @@ final class PageParserImpl implements PageParser {
             return new Result.Builder().build();
         }
 
+        PageCache.Entry cached = isLocalFile(parsedUri) ? null : cache.get(uri);
+        if (page != null && page.isNotModified()) {
+            return cached != null ? cached.getResult() : new Result.Builder().build();
+        }
+
         Document document;
         try {
-            document = parseDocument(parsedUri);
+            document = parseDocument(parsedUri, cached);
         } catch (Exception e) {
             // There are multiple exceptions that can be encountered due to invalid URIs or Mimetypes that
             // Jsoup does not handle. There is not much we can do here.
             return new Result.Builder().build();
         }
+        if (document == null) {
+            // The server says the cached page is still current.
+            return cached.getResult();
+        }
+
+        Result.Builder builder = new Result.Builder(dictionary);
+        WordTokenizer tokenizer = new WordTokenizer(ignoredWords);
+        Consumer<String> addWord = builder::addWord;
+        // Do a single pass over the document to gather all hyperlinks and text, checking the deadline
+        // every few nodes so that a huge page cannot hold up the crawl after it has timed out.
+        NodeFilter.FilterResult outcome = NodeTraversor.filter(new NodeFilter() {
+            private int visitedNodes;
 
-        Result.Builder builder = new Result.Builder();
-        // Do a single pass over the document to gather all hyperlinks and text.
-        document.traverse(new NodeVisitor() {
             @Override
-            public void head(Node node, int depth) {
+            public FilterResult head(Node node, int depth) {
+                if (visitedNodes++ % NODES_PER_DEADLINE_CHECK == 0 && isPastDeadline()) {
+                    return FilterResult.STOP;
+                }
+                visit(node);
+                return FilterResult.CONTINUE;
+            }
+
+            private void visit(Node node) {
                 if (node instanceof TextNode) {
-                    String text = ((TextNode) node).text().strip();
-                    Arrays.stream(WHITESPACE.split(text))
-                            .filter(s -> !s.isBlank())
-                            .filter(s -> ignoredWords.stream().noneMatch(p -> p.matcher(s).matches()))
-                            .map(s -> NON_WORD_CHARACTERS.matcher(s).replaceAll(""))
-                            .map(String::toLowerCase)
-                            .forEach(builder::addWord);
+                    tokenizer.tokenize(((TextNode) node).text(), addWord);
                     return;
                 }
                 if (!(node instanceof Element)) {
@@ -141,19 +302,47 @@ final class PageParserImpl implements PageParser {
             }
 
             @Override
-            public void tail(Node node, int depth) {
+            public FilterResult tail(Node node, int depth) {
+                return FilterResult.CONTINUE;
             }
-        });
-        return builder.build();
+        }, document);
+        if (outcome == NodeFilter.FilterResult.STOP) {
+            return new Result.Builder().build();
+        }
+        Result result = builder.build();
+        cache.put(uri, etag, lastModified, result);
+        return result;
+    }
+
+    private boolean isPastDeadline() {
+        return clock.instant().isAfter(deadline);
     }
 
     /**
      * Returns a Jsoup {@link Document} representation of the file at the given {@link URI}, which may
-     * refer to a local document or a remote web page.
+     * refer to a local document or a remote web page. If the page has already been downloaded, its
+     * content is parsed instead.
+     *
+     * <p>If the page is remote and cached, the download is a conditional request, and {@code null}
+     * is returned if the server answers that the page has not been modified.
      */
-    private Document parseDocument(URI uri) throws IOException {
+    private Document parseDocument(URI uri, PageCache.Entry cached) throws IOException {
+        if (page != null) {
+            // Use the same base URI as below, so that links are resolved the same way: relative to
+            // the page the server redirected to, if it did.
+            return Jsoup.parse(
+                    new ByteArrayInputStream(page.getContent()),
+                    page.getCharset(),
+                    isLocalFile(uri) ? "" : page.getFinalUrl());
+        }
         if (!isLocalFile(uri)) {
-            return Jsoup.parse(uri.toURL(), (int) timeout.toMillis());
+            Connection.Response response = download(uri, timeout, clock, deadline, cached);
+            if (cached != null && response.statusCode() == 304) {
+                return null;
+            }
+            etag = response.header("ETag");
+            lastModified = response.header("Last-Modified");
+            return response.parse();
         }
 
         // Unfortunately, Jsoup.parse() has a baseUri parameter that does not work with local
@@ -164,4 +353,32 @@ final class PageParserImpl implements PageParser {
             return Jsoup.parse(in, StandardCharsets.UTF_8.name(), "");
         }
     }
+
+    /**
+     * Downloads the remote page at the given {@link URI}, with the given timeout or the time left
+     * until the deadline, whichever is shorter. If the page is cached, the download is a conditional
+     * request, which the server may answer with a 304 (Not Modified) response.
+     */
+    static Connection.Response download(
+            URI uri, Duration timeout, Clock clock, Instant deadline, PageCache.Entry cached)
+            throws IOException {
+        Duration remaining = Duration.between(clock.instant(), deadline);
+        Duration downloadTimeout = remaining.compareTo(timeout) < 0 ? remaining : timeout;
+        if (downloadTimeout.toMillis() <= 0) {
+            // Jsoup treats a timeout of 0 as no timeout at all.
+            throw new IOException("The crawl deadline has passed");
+        }
+        if (downloadTimeout.compareTo(MAX_DOWNLOAD_TIMEOUT) > 0) {
+            downloadTimeout = MAX_DOWNLOAD_TIMEOUT;
+        }
+        Connection connection =
+                HttpConnection.connect(uri.toURL()).timeout((int) downloadTimeout.toMillis());
+        if (cached != null && cached.getEtag() != null) {
+            connection.header("If-None-Match", cached.getEtag());
+        }
+        if (cached != null && cached.getLastModified() != null) {
+            connection.header("If-Modified-Since", cached.getLastModified());
+        }
+        return connection.execute();
+    }
 }
\ No newline at end of file
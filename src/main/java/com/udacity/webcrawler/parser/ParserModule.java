@@ -26,7 +26,9 @@ package com.udacity.webcrawler.parser;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Key;
+import com.google.inject.Singleton;
 
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
@@ -34,18 +36,27 @@ import java.util.regex.Pattern;
 
 /**
  * Guice dependency injection module that installs a {@link PageParserFactory} that can be used to
- * create page parsers.
+ * create page parsers, and a {@link PageFetcher} that downloads pages for them.
  */
 public final class ParserModule extends AbstractModule {
     private final Duration timeout;
     private final List<Pattern> ignoredWords;
+    private final Path pageCacheDirectory;
+    private final boolean streaming;
 
     /**
-     * Creates a {@link ParserModule} from the given timeout and ignored word patterns.
+     * Creates a {@link ParserModule} from the given timeout, ignored word patterns, page cache
+     * directory and choice of parser.
      */
-    private ParserModule(Duration timeout, List<Pattern> ignoredWords) {
+    private ParserModule(
+            Duration timeout,
+            List<Pattern> ignoredWords,
+            Path pageCacheDirectory,
+            boolean streaming) {
         this.timeout = timeout;
         this.ignoredWords = ignoredWords;
+        this.pageCacheDirectory = pageCacheDirectory;
+        this.streaming = streaming;
     }
 
     @Override
@@ -53,7 +64,13 @@ public final class ParserModule extends AbstractModule {
         bind(Key.get(Duration.class, ParseDeadline.class)).toInstance(timeout);
         bind(new Key<List<Pattern>>(IgnoredWords.class) {
         }).toInstance(ignoredWords);
+        bind(WordFilter.class).toInstance(new WordFilter(ignoredWords));
+        bind(PageCache.class).toInstance(pageCacheDirectory == null
+                ? PageCache.disabled()
+                : new PageCache(pageCacheDirectory));
+        bind(Key.get(Boolean.class, StreamingParser.class)).toInstance(streaming);
         bind(PageParserFactory.class).to(PageParserFactoryImpl.class);
+        bind(PageFetcher.class).to(HttpPageFetcher.class).in(Singleton.class);
     }
 
     /**
@@ -62,6 +79,8 @@ public final class ParserModule extends AbstractModule {
     public static final class Builder {
         private Duration timeout;
         private List<Pattern> ignoredWords;
+        private Path pageCacheDirectory;
+        private boolean streaming;
 
         /**
          * Sets the timeout that will be used by the page parser.
@@ -79,11 +98,29 @@ public final class ParserModule extends AbstractModule {
             return this;
         }
 
+        /**
+         * Sets the directory in which the results of downloaded pages are kept, so that later crawls
+         * can revalidate them with conditional requests. Pages are not cached if this is not set.
+         */
+        public Builder setPageCacheDirectory(Path pageCacheDirectory) {
+            this.pageCacheDirectory = Objects.requireNonNull(pageCacheDirectory);
+            return this;
+        }
+
+        /**
+         * Sets whether pages are read by a streaming HTML lexer, which never builds a tree of the
+         * page, instead of being parsed into a Jsoup document. Jsoup is used if this is not set.
+         */
+        public Builder setStreaming(boolean streaming) {
+            this.streaming = streaming;
+            return this;
+        }
+
         /**
          * Builds a {@link ParserModule} from this {@link Builder}.
          */
         public ParserModule build() {
-            return new ParserModule(timeout, ignoredWords);
+            return new ParserModule(timeout, ignoredWords, pageCacheDirectory, streaming);
         }
     }
 }
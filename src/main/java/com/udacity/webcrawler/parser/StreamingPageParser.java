@@ -0,0 +1,523 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler.parser;
+
+import org.jsoup.Connection;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link PageParser} that reads pages with an {@link HtmlLexer} as they are decoded, instead of
+ * building a Jsoup {@link org.jsoup.nodes.Document} of every page first.
+ *
+ * <p>It finds the same words and hyperlinks as {@link PageParserImpl}: it decodes pages the way
+ * Jsoup does, uses Jsoup's own tables to decode character references, and normalizes whitespace
+ * and resolves hyperlinks by Jsoup's rules. It does not build the tree of the page, so the few
+ * pages whose text Jsoup's tree construction drops, such as the text of a frameset, are counted
+ * differently.
+ */
+final class StreamingPageParser implements PageParser {
+
+    /**
+     * The number of bytes at the start of a page in which Jsoup looks for the character set of a
+     * page that the server did not name one for.
+     */
+    private static final int CHARSET_SNIFFING_LENGTH = 5 * 1024 - 1;
+
+    /**
+     * The {@code charset} parameter of a content type, as Jsoup finds it.
+     */
+    private static final Pattern CONTENT_TYPE_CHARSET =
+            Pattern.compile("(?i)\\bcharset=\\s*(?:[\"'])?([^\\s,;\"']*)");
+
+    /**
+     * An end tag that Jsoup ignores before the {@code html} element.
+     */
+    private static final String IGNORED_END_TAG = "</(?!(?:head|body|html|br)[\\s/>])[a-z][^>]*>";
+
+    /**
+     * A processing instruction at the start of a page, which Jsoup keeps as a comment that is the
+     * first node of the document. Leading whitespace, even in CDATA sections, and ignored end tags
+     * before it do not make nodes, and neither do doctypes after an end tag, but whitespace after
+     * an end tag does.
+     */
+    private static final Pattern FIRST_PROCESSING_INSTRUCTION = Pattern.compile(
+            "^(?:\\s|<!\\[CDATA\\[\\s*]]>)*"
+                    + "(?:" + IGNORED_END_TAG + "(?:" + IGNORED_END_TAG + "|<!doctype[^>]*>)*)?"
+                    + "<(\\?[^>]*)",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * The {@code encoding} attribute of an XML declaration.
+     */
+    private static final Pattern XML_DECLARATION_ENCODING = Pattern.compile(
+            "(?i)^xml(?:[\\s/].*?)?[\\s/]encoding\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s>]*))",
+            Pattern.DOTALL);
+
+    private final String uri;
+    private final Duration timeout;
+    private final WordFilter ignoredWords;
+    private final FetchedPage page;
+    private final Clock clock;
+    private final Instant deadline;
+    private final PageCache cache;
+    private final WordDictionary dictionary;
+
+    /**
+     * Constructs a page parser that downloads the page at the given URI.
+     *
+     * @param uri          the URI of the file to parse.
+     * @param timeout      the longest timeout to use when downloading the file, if it is remote.
+     * @param clock        the clock used to check the deadline.
+     * @param deadline     the instant after which the parser gives up.
+     * @param cache        the results of pages downloaded by earlier crawls.
+     * @param ignoredWords the words that should be ignored by the {@link #parse()} method.
+     * @param dictionary   the dictionary that the words of the page get their IDs from.
+     */
+    StreamingPageParser(
+            String uri,
+            Duration timeout,
+            Clock clock,
+            Instant deadline,
+            PageCache cache,
+            WordFilter ignoredWords,
+            WordDictionary dictionary) {
+        this.uri = Objects.requireNonNull(uri);
+        this.timeout = Objects.requireNonNull(timeout);
+        this.ignoredWords = Objects.requireNonNull(ignoredWords);
+        this.page = null;
+        this.clock = Objects.requireNonNull(clock);
+        this.deadline = Objects.requireNonNull(deadline);
+        this.cache = Objects.requireNonNull(cache);
+        this.dictionary = Objects.requireNonNull(dictionary);
+    }
+
+    /**
+     * Constructs a page parser for a page that has already been downloaded.
+     *
+     * @param page         the downloaded page.
+     * @param clock        the clock used to check the deadline.
+     * @param deadline     the instant after which the parser gives up.
+     * @param cache        the results of pages downloaded by earlier crawls.
+     * @param ignoredWords the words that should be ignored by the {@link #parse()} method.
+     * @param dictionary   the dictionary that the words of the page get their IDs from.
+     */
+    StreamingPageParser(
+            FetchedPage page,
+            Clock clock,
+            Instant deadline,
+            PageCache cache,
+            WordFilter ignoredWords,
+            WordDictionary dictionary) {
+        this.uri = page.getUrl();
+        this.timeout = Duration.ZERO;
+        this.ignoredWords = Objects.requireNonNull(ignoredWords);
+        this.page = page;
+        this.clock = Objects.requireNonNull(clock);
+        this.deadline = Objects.requireNonNull(deadline);
+        this.cache = Objects.requireNonNull(cache);
+        this.dictionary = Objects.requireNonNull(dictionary);
+    }
+
+    @Override
+    public Result parse() {
+        URI parsedUri;
+        try {
+            parsedUri = new URI(uri);
+        } catch (URISyntaxException e) {
+            // Invalid link; ignore
+            return new Result.Builder().build();
+        }
+
+        boolean localFile = PageParserImpl.isLocalFile(parsedUri);
+        PageCache.Entry cached = localFile ? null : cache.get(uri);
+        if (page != null && page.isNotModified()) {
+            return cached != null ? cached.getResult() : new Result.Builder().build();
+        }
+
+        Result.Builder builder = new Result.Builder(dictionary);
+        PageListener listener = new PageListener(builder);
+        String etag;
+        String lastModified;
+        try {
+            Content content = open(parsedUri, cached);
+            if (content == null) {
+                // The server says the cached page is still current.
+                return cached.getResult();
+            }
+            etag = content.etag;
+            lastModified = content.lastModified;
+            listener.baseUri = content.baseUri;
+            try (InputStream in = content.in; Reader reader = decode(in, content.charset)) {
+                if (isPastDeadline()
+                        || !new HtmlLexer(reader, Set.of("href"), listener).run()) {
+                    return new Result.Builder().build();
+                }
+            }
+        } catch (Exception e) {
+            // As with Jsoup, there is not much we can do about pages that cannot be downloaded or
+            // decoded.
+            return new Result.Builder().build();
+        }
+
+        for (String href : listener.hrefs) {
+            if (localFile) {
+                // Resolve the links of local files the same way as PageParserImpl.
+                String basePath = Path.of(parsedUri).getParent().toString();
+                builder.addLink(Path.of(basePath, href).toUri().toString());
+            } else {
+                builder.addLink(resolve(listener.baseUri, href));
+            }
+        }
+        Result result = builder.build();
+        cache.put(uri, etag, lastModified, result);
+        return result;
+    }
+
+    private boolean isPastDeadline() {
+        return clock.instant().isAfter(deadline);
+    }
+
+    /**
+     * A page to be read, with the character set named for it, the URI its links are relative to,
+     * and its cache validators.
+     */
+    private static final class Content {
+        final InputStream in;
+        final String charset;
+        final String baseUri;
+        final String etag;
+        final String lastModified;
+
+        Content(InputStream in, String charset, String baseUri, String etag, String lastModified) {
+            this.in = in;
+            this.charset = charset;
+            this.baseUri = baseUri;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * Opens the page at the given {@link URI}, which may be a local file, a remote web page, or the
+     * page that has already been downloaded. Returns {@code null} if the page is remote and cached,
+     * and the server answers that it has not been modified.
+     */
+    private Content open(URI uri, PageCache.Entry cached) throws IOException {
+        boolean localFile = PageParserImpl.isLocalFile(uri);
+        if (page != null) {
+            return new Content(
+                    new ByteArrayInputStream(page.getContent()),
+                    page.getCharset(),
+                    localFile ? "" : page.getFinalUrl(),
+                    page.getEtag(),
+                    page.getLastModified());
+        }
+        if (!localFile) {
+            Connection.Response response =
+                    PageParserImpl.download(uri, timeout, clock, deadline, cached);
+            if (cached != null && response.statusCode() == 304) {
+                return null;
+            }
+            // Read the body as it arrives, instead of buffering all of it first.
+            return new Content(
+                    response.bodyStream(),
+                    response.charset(),
+                    response.url().toExternalForm(),
+                    response.header("ETag"),
+                    response.header("Last-Modified"));
+        }
+        return new Content(
+                Files.newInputStream(Path.of(uri)), StandardCharsets.UTF_8.name(), "", null, null);
+    }
+
+    /**
+     * Decodes the given page the way Jsoup does: a byte order mark overrides the given character
+     * set, and if there is neither, the character set is looked for at the start of the page.
+     */
+    private static Reader decode(InputStream content, String charsetName) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(content, CHARSET_SNIFFING_LENGTH + 1);
+        in.mark(CHARSET_SNIFFING_LENGTH + 1);
+        byte[] start = in.readNBytes(CHARSET_SNIFFING_LENGTH);
+        in.reset();
+        if (startsWith(start, 0x00, 0x00, 0xFE, 0xFF)) {
+            charsetName = "UTF-32BE";
+        } else if (startsWith(start, 0xFF, 0xFE, 0x00, 0x00)) {
+            charsetName = "UTF-32LE";
+        } else if (startsWith(start, 0xFE, 0xFF)) {
+            charsetName = "UTF-16BE";
+        } else if (startsWith(start, 0xFF, 0xFE)) {
+            charsetName = "UTF-16LE";
+        } else if (startsWith(start, 0xEF, 0xBB, 0xBF)) {
+            charsetName = "UTF-8";
+            in.skipNBytes(3);
+        } else if (charsetName == null) {
+            charsetName = sniffCharset(new String(start, StandardCharsets.UTF_8));
+        }
+        return new InputStreamReader(in, Charset.forName(charsetName));
+    }
+
+    private static boolean startsWith(byte[] bytes, int... prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((bytes[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the character set named by the first {@code meta} tag or the XML declaration at the
+     * given start of a page, or UTF-8 if there is none.
+     */
+    private static String sniffCharset(String start) throws IOException {
+        String[] found = new String[1];
+        new HtmlLexer(
+                new StringReader(start),
+                Set.of("http-equiv", "content", "charset"),
+                new HtmlLexer.Listener() {
+                    @Override
+                    public void text(String text, boolean cdata) {
+                    }
+
+                    @Override
+                    public void startTag(String name, Map<String, String> attributes) {
+                        if (found[0] != null || !name.equals("meta")) {
+                            return;
+                        }
+                        String httpEquiv = attributes.get("http-equiv");
+                        String charset = attributes.get("charset");
+                        if (charset == null && (httpEquiv == null
+                                || !httpEquiv.trim().equalsIgnoreCase("content-type"))) {
+                            return;
+                        }
+                        if (httpEquiv != null) {
+                            found[0] = charsetOfContentType(attributes.get("content"));
+                        }
+                        if (found[0] == null) {
+                            // Like Jsoup, the first tag that names a character set decides, even if
+                            // the character set is not supported.
+                            found[0] = charset;
+                        }
+                    }
+                }).run();
+        if (found[0] == null) {
+            found[0] = xmlDeclarationEncoding(start);
+        }
+        String charset = validateCharset(found[0]);
+        return charset != null ? charset : StandardCharsets.UTF_8.name();
+    }
+
+    /**
+     * Returns the {@code encoding} of the XML declaration at the given start of a page, or
+     * {@code null} if there is none.
+     */
+    private static String xmlDeclarationEncoding(String start) {
+        Matcher instruction = FIRST_PROCESSING_INSTRUCTION.matcher(start);
+        if (!instruction.find() || instruction.group(1).length() < 2) {
+            return null;
+        }
+        // Like Jsoup, drop the "?" and the last character, which is the closing "?" of a
+        // well-formed declaration.
+        String data = instruction.group(1);
+        Matcher encoding =
+                XML_DECLARATION_ENCODING.matcher(data.substring(1, data.length() - 1));
+        if (!encoding.find()) {
+            return null;
+        }
+        for (int group = 1; group <= 3; group++) {
+            if (encoding.group(group) != null) {
+                return encoding.group(group);
+            }
+        }
+        return null;
+    }
+
+    private static String charsetOfContentType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        Matcher matcher = CONTENT_TYPE_CHARSET.matcher(contentType);
+        return matcher.find()
+                ? validateCharset(matcher.group(1).trim().replace("charset=", ""))
+                : null;
+    }
+
+    /**
+     * Returns the given character set name without quotes, if it is supported, or {@code null}.
+     */
+    private static String validateCharset(String charset) {
+        if (charset == null || charset.isEmpty()) {
+            return null;
+        }
+        charset = charset.trim().replaceAll("[\"']", "");
+        try {
+            if (Charset.isSupported(charset)) {
+                return charset;
+            }
+            charset = charset.toUpperCase(Locale.ENGLISH);
+            if (Charset.isSupported(charset)) {
+                return charset;
+            }
+        } catch (IllegalCharsetNameException e) {
+            // Not a character set name.
+        }
+        return null;
+    }
+
+    /**
+     * Resolves a hyperlink against the base URI of its page the way Jsoup does, or returns an empty
+     * string if it cannot be resolved.
+     *
+     * <p>This parses with {@link URL} rather than {@link URI}, which rejects many of the links that
+     * browsers, and Jsoup, accept.
+     */
+    @SuppressWarnings("deprecation")
+    private static String resolve(String baseUri, String href) {
+        URL base;
+        try {
+            base = new URL(baseUri);
+        } catch (MalformedURLException e) {
+            // Without a base, only absolute links can be resolved.
+            try {
+                return new URL(href).toExternalForm();
+            } catch (MalformedURLException notAbsolute) {
+                return "";
+            }
+        }
+        try {
+            if (href.startsWith("?")) {
+                // A link that is only a query keeps the path of the base.
+                href = base.getPath() + href;
+            }
+            if (href.indexOf('.') == 0 && base.getFile().indexOf('/') != 0) {
+                base = new URL(
+                        base.getProtocol(), base.getHost(), base.getPort(), "/" + base.getFile());
+            }
+            return new URL(base, href).toExternalForm();
+        } catch (MalformedURLException e) {
+            return "";
+        }
+    }
+
+    /**
+     * Replaces every run of whitespace in the given text with a single space, and drops invisible
+     * characters, the way Jsoup normalizes the text of a page.
+     */
+    private static String normalizeWhitespace(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean afterWhitespace = false;
+        for (int i = 0; i < text.length(); ) {
+            int c = text.codePointAt(i);
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r' || c == '\u00A0') {
+                if (!afterWhitespace) {
+                    normalized.append(' ');
+                    afterWhitespace = true;
+                }
+            } else if (c != '\u200B' && c != '\u00AD') {
+                normalized.appendCodePoint(c);
+                afterWhitespace = false;
+            }
+            i += Character.charCount(c);
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Counts the words of a page and collects its hyperlinks as the lexer reads it.
+     */
+    private final class PageListener implements HtmlLexer.Listener {
+        private final WordTokenizer tokenizer = new WordTokenizer(ignoredWords);
+        private final Consumer<String> addWord;
+        private final List<String> hrefs = new ArrayList<>();
+        private boolean baseSet;
+
+        /**
+         * The URI that the hyperlinks of the page are relative to, which the first {@code base} tag
+         * with a hyperlink sets for the whole page.
+         */
+        private String baseUri;
+
+        PageListener(Result.Builder builder) {
+            this.addWord = builder::addWord;
+        }
+
+        @Override
+        public void text(String text, boolean cdata) {
+            tokenizer.tokenize(cdata ? text : normalizeWhitespace(text), addWord);
+        }
+
+        @Override
+        public void startTag(String name, Map<String, String> attributes) {
+            String href = attributes.get("href");
+            if (href == null) {
+                return;
+            }
+            if (name.equals("a")) {
+                hrefs.add(href);
+            } else if (name.equals("base") && !baseSet) {
+                String resolved = resolve(baseUri, href);
+                if (!resolved.isEmpty()) {
+                    baseUri = resolved;
+                    baseSet = true;
+                }
+            }
+        }
+
+        @Override
+        public boolean isStopped() {
+            return isPastDeadline();
+        }
+    }
+}
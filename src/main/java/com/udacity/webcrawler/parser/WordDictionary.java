@@ -0,0 +1,89 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler.parser;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives every distinct word a stable {@code int} ID, so that word counts can be kept in primitive
+ * tables keyed by ID instead of maps keyed by {@link String}.
+ *
+ * <p>IDs are dense: they are handed out in order, from 0 to {@link #size()} - 1, so a table of
+ * counts for every word can simply be an array indexed by ID. Each word is stored once, and only
+ * turned back into a {@link String} when its ID is looked up with {@link #wordOf(int)}.
+ *
+ * <p>This class is thread-safe. Looking up a word that already has an ID does not take a lock;
+ * new words are added under one.
+ */
+public final class WordDictionary {
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] words = new String[16];
+    private volatile int size;
+
+    /**
+     * Returns the ID of the given word, giving it the next free ID if it has none yet.
+     */
+    public int idOf(String word) {
+        Integer id = ids.get(word);
+        return id != null ? id : add(word);
+    }
+
+    private synchronized int add(String word) {
+        Integer existing = ids.get(word);
+        if (existing != null) {
+            return existing;
+        }
+        // The word must be readable by ID before its ID is published: the volatile write of the
+        // size makes it visible to wordOf, and only then can idOf return the ID.
+        int id = size;
+        String[] current = words;
+        if (id == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            words = current;
+        }
+        current[id] = word;
+        size = id + 1;
+        ids.put(word, id);
+        return id;
+    }
+
+    /**
+     * Returns the word with the given ID.
+     */
+    public String wordOf(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("unknown word ID " + id);
+        }
+        return words[id];
+    }
+
+    /**
+     * Returns the number of words that have an ID, which is one more than the highest ID.
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler.parser;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether a word matches any of the configured {@link IgnoredWords} patterns, without
+ * running every pattern against every word.
+ *
+ * <p>Ignored word lists are mostly stop words, and length rules such as {@code ^.{1,3}$}. The
+ * patterns are therefore sorted once, when the filter is built, ignoring {@code ^} and {@code $}
+ * anchors at their ends:
+ *
+ * <ul>
+ *   <li>Patterns without any regular expression construct, such as {@code the}, go into a hash set.
+ *   <li>Patterns that only limit the length of the word, such as {@code .{1,3}} or {@code ...},
+ *       become a comparison of the number of code points in the word.
+ *   <li>All the other patterns are combined by {@link LiteralPatterns#combine(List)} into a single
+ *       alternation, compiled once.
+ * </ul>
+ *
+ * <p>A word is ignored if and only if it matches one of the patterns. Words that hold a line
+ * terminator, which {@code .} does not match, are checked against the original length patterns.
+ */
+final class WordFilter {
+
+    /**
+     * Matches the length patterns: either a run of dots, or a dot with a bounded repetition.
+     */
+    private static final Pattern LENGTH_PATTERN =
+            Pattern.compile("(\\.+)|\\.\\{(\\d+)(,(\\d*))?\\}");
+
+    private final Set<String> ignoredWords = new HashSet<>();
+    private final List<Pattern> lengthPatterns = new ArrayList<>();
+    private final int[] minLengths;
+    private final int[] maxLengths;
+    private final List<Pattern> regexes;
+
+    /**
+     * Compiles a filter for the given patterns.
+     */
+    WordFilter(List<Pattern> patterns) {
+        List<int[]> lengths = new ArrayList<>();
+        List<Pattern> otherPatterns = new ArrayList<>();
+        for (Pattern pattern : patterns) {
+            if (pattern.flags() != 0) {
+                otherPatterns.add(pattern);
+                continue;
+            }
+            String regex = LiteralPatterns.stripAnchors(pattern.pattern());
+            String literal = LiteralPatterns.literalOf(regex);
+            if (literal != null) {
+                ignoredWords.add(literal);
+                continue;
+            }
+            int[] range = lengthRange(regex);
+            if (range != null) {
+                lengths.add(range);
+                lengthPatterns.add(pattern);
+                continue;
+            }
+            otherPatterns.add(pattern);
+        }
+        this.minLengths = lengths.stream().mapToInt(range -> range[0]).toArray();
+        this.maxLengths = lengths.stream().mapToInt(range -> range[1]).toArray();
+        this.regexes = LiteralPatterns.combine(otherPatterns);
+    }
+
+    /**
+     * Returns true if there are no patterns, so that no word is ignored.
+     */
+    boolean isEmpty() {
+        return ignoredWords.isEmpty() && minLengths.length == 0 && regexes.isEmpty();
+    }
+
+    /**
+     * Returns true if the given word matches any of the patterns.
+     */
+    boolean isIgnored(String word) {
+        if (ignoredWords.contains(word)) {
+            return true;
+        }
+        if (minLengths.length > 0) {
+            if (LiteralPatterns.hasLineTerminator(word)) {
+                for (Pattern pattern : lengthPatterns) {
+                    if (pattern.matcher(word).matches()) {
+                        return true;
+                    }
+                }
+            } else {
+                int length = word.codePointCount(0, word.length());
+                for (int i = 0; i < minLengths.length; i++) {
+                    if (length >= minLengths[i] && length <= maxLengths[i]) {
+                        return true;
+                    }
+                }
+            }
+        }
+        for (Pattern regex : regexes) {
+            if (regex.matcher(word).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the smallest and largest number of code points matched by the given length pattern,
+     * or null if it is not one.
+     */
+    private static int[] lengthRange(String regex) {
+        Matcher matcher = LENGTH_PATTERN.matcher(regex);
+        if (!matcher.matches()) {
+            return null;
+        }
+        if (matcher.group(1) != null) {
+            return new int[]{regex.length(), regex.length()};
+        }
+        try {
+            int min = Integer.parseInt(matcher.group(2));
+            if (matcher.group(3) == null) {
+                return new int[]{min, min};
+            }
+            String max = matcher.group(4);
+            return new int[]{min, max.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(max)};
+        } catch (NumberFormatException e) {
+            // Too large to be a length; leave it to the regular expression.
+            return null;
+        }
+    }
+}
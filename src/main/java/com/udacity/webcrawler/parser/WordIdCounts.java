@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler.parser;
+
+import java.util.Arrays;
+
+/**
+ * The word counts of a single page, as a hash table from the {@code int} ID of each word in a
+ * {@link WordDictionary} to its primitive {@code int} count, using open addressing with linear
+ * probing.
+ *
+ * <p>IDs and counts live in two parallel arrays, so counting a word neither allocates an entry
+ * object nor boxes an {@link Integer}. A table is only modified by the parser that fills it, and is
+ * read-only once its {@link PageParser.Result} has been built.
+ */
+public final class WordIdCounts {
+    private static final int MIN_CAPACITY = 16;
+    private static final int EMPTY = -1;
+
+    private int[] ids;
+    private int[] counts;
+    private int size;
+
+    WordIdCounts() {
+        this.ids = new int[MIN_CAPACITY];
+        this.counts = new int[MIN_CAPACITY];
+        Arrays.fill(ids, EMPTY);
+    }
+
+    /**
+     * Adds the given amount to the count of the word with the given ID. Missing words start at 0.
+     */
+    void add(int id, int delta) {
+        int mask = ids.length - 1;
+        int index = spread(id) & mask;
+        while (ids[index] != EMPTY) {
+            if (ids[index] == id) {
+                counts[index] += delta;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        ids[index] = id;
+        counts[index] = delta;
+        if (++size > ids.length * 3 / 4) {
+            grow();
+        }
+    }
+
+    private void grow() {
+        int[] oldIds = ids;
+        int[] oldCounts = counts;
+        ids = new int[oldIds.length * 2];
+        counts = new int[oldIds.length * 2];
+        Arrays.fill(ids, EMPTY);
+        int mask = ids.length - 1;
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] != EMPTY) {
+                int index = spread(oldIds[i]) & mask;
+                while (ids[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                ids[index] = oldIds[i];
+                counts[index] = oldCounts[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the number of distinct words counted.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Calls the given consumer once for every word, with its ID and its count, in no particular
+     * order.
+     */
+    public void forEach(Consumer consumer) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] != EMPTY) {
+                consumer.accept(ids[i], counts[i]);
+            }
+        }
+    }
+
+    /**
+     * IDs are handed out in order, so the words of a page often have close IDs. Scatter them over
+     * the table, like {@code StringIntHashMap} does with string hash codes.
+     */
+    private static int spread(int id) {
+        int hash = id * 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Receives the words of a {@link WordIdCounts} table.
+     */
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(int id, int count);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler.parser;
+
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Splits the text of a page into the words to count, in a single pass over its characters.
+ *
+ * <p>The words are exactly those of the original pipeline, which stripped the text, split it on
+ * runs of {@code \s}, dropped blank and ignored tokens, removed the {@code \W} characters of the
+ * rest and lowercased them in the default locale. Instead of a string per step, every token is
+ * filtered and lowercased into a reusable buffer, and becomes a single string when it is emitted.
+ * Like before, ignored word patterns are matched against the token as it appears in the text, and
+ * a token made only of non-word characters is counted as the empty word.
+ *
+ * <p>An instance is not thread-safe; every parser makes its own.
+ */
+final class WordTokenizer {
+    private final WordFilter ignoredWords;
+    private final boolean dotlessI;
+    private char[] buffer = new char[64];
+
+    /**
+     * Creates a tokenizer that drops the given ignored words, and lowercases in the default locale.
+     */
+    WordTokenizer(WordFilter ignoredWords) {
+        this(ignoredWords, Locale.getDefault());
+    }
+
+    /**
+     * Creates a tokenizer that drops the given ignored words, and lowercases in the given locale.
+     */
+    WordTokenizer(WordFilter ignoredWords, Locale locale) {
+        this.ignoredWords = ignoredWords;
+        // Only word characters are left to lowercase, and of those, only the capital I differs
+        // between locales: Turkish and Azerbaijani lowercase it to a dotless i.
+        String language = locale.getLanguage();
+        this.dotlessI = language.equals("tr") || language.equals("az");
+    }
+
+    /**
+     * Passes every word of the given text to the given consumer, in order.
+     */
+    void tokenize(String text, Consumer<String> words) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        int i = start;
+        while (i < end) {
+            int tokenStart = i;
+            while (i < end && !isSeparator(text.charAt(i))) {
+                i++;
+            }
+            addToken(text, tokenStart, i, words);
+            while (i < end && isSeparator(text.charAt(i))) {
+                i++;
+            }
+        }
+    }
+
+    private void addToken(String text, int from, int to, Consumer<String> words) {
+        if (buffer.length < to - from) {
+            buffer = new char[Math.max(to - from, buffer.length * 2)];
+        }
+        int length = 0;
+        boolean blank = true;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (blank && !Character.isWhitespace(c)) {
+                blank = false;
+            }
+            if (isWordCharacter(c)) {
+                buffer[length++] = toLowerCase(c);
+            }
+        }
+        if (blank) {
+            return;
+        }
+        if (!ignoredWords.isEmpty() && ignoredWords.isIgnored(text.substring(from, to))) {
+            return;
+        }
+        words.accept(new String(buffer, 0, length));
+    }
+
+    private char toLowerCase(char c) {
+        if (c < 'A' || c > 'Z') {
+            return c;
+        }
+        return c == 'I' && dotlessI ? '\u0131' : (char) (c + ('a' - 'A'));
+    }
+
+    /**
+     * Returns whether the given character is matched by {@code \s}.
+     */
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Returns whether the given character is matched by {@code \w}.
+     */
+    private static boolean isWordCharacter(char c) {
+        return (c >= 'a' && c <= 'z')
+                || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9')
+                || c == '_';
+    }
+}
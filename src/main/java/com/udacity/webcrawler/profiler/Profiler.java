@@ -33,6 +33,9 @@ import java.nio.file.Path;
  *
  * <p>The profiler aggregates information about profiled method calls, and how long they took. The
  * aggregate information can then be written to a file with {@link #writeData(Writer) writeData}.
+ *
+ * <p>The application can also record named values with the profile data, such as a setting it
+ * tuned while it was running.
  */
 public interface Profiler {
 
@@ -50,6 +53,16 @@ public interface Profiler {
      */
     <T> T wrap(Class<T> klass, T delegate);
 
+    /**
+     * Records a named value to be written with the profile data.
+     *
+     * <p>Only the last value recorded under each name is kept.
+     *
+     * @param name  the name of the value, such as {@code "com.example.Worker#threads"}.
+     * @param value the value.
+     */
+    void recordValue(String name, long value);
+
     /**
      * Formats the profile data as a string and writes it to the given {@link Path}.
      *
@@ -77,6 +77,11 @@ final class ProfilerImpl implements Profiler {
                 new ProfilingMethodInterceptor(clock, delegate, state));
     }
 
+    @Override
+    public void recordValue(String name, long value) {
+        state.recordValue(name, value);
+    }
+
     @Override
     public void writeData(Path path) {
         Objects.requireNonNull(path);
@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.io.Writer;
 import java.lang.reflect.Method;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -39,6 +40,7 @@ import java.util.stream.Collectors;
  */
 final class ProfilingState {
     private final Map<String, Duration> data = new ConcurrentHashMap<>();
+    private final Map<String, Long> values = new ConcurrentHashMap<>();
 
     /**
      * Formats the given method call for writing to a text file.
@@ -77,6 +79,13 @@ final class ProfilingState {
         data.compute(key, (k, v) -> (v == null) ? elapsed : v.plus(elapsed));
     }
 
+    /**
+     * Records the given named value, replacing the value previously recorded under that name.
+     */
+    void recordValue(String name, long value) {
+        values.put(Objects.requireNonNull(name), value);
+    }
+
     /**
      * Writes the method invocation data to the given {@link Writer}.
      *
@@ -84,6 +93,8 @@ final class ProfilingState {
      * {@link #record(Class, Method, Duration) record} is called three times for the same method
      * {@code M()}, with each invocation taking 1 second. The total {@link Duration} reported by
      * this {@code write()} method for {@code M()} should be 3 seconds.
+     *
+     * <p>The recorded named values are written after the method invocation data.
      */
     void write(Writer writer) throws IOException {
         List<String> entries =
@@ -91,7 +102,12 @@ final class ProfilingState {
                         .stream()
                         .sorted(Map.Entry.comparingByKey())
                         .map(e -> e.getKey() + " took " + formatDuration(e.getValue()) + System.lineSeparator())
-                        .collect(Collectors.toList());
+                        .collect(Collectors.toCollection(ArrayList::new));
+        values.entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> e.getKey() + " = " + e.getValue() + System.lineSeparator())
+                .forEach(entries::add);
 
         // We have to use a for-loop here instead of a Stream API method because Writer#write() can
         // throw an IOException, and lambdas are not allowed to throw checked exceptions.
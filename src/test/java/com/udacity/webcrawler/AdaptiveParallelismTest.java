@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import com.google.inject.Guice;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.FetchedPage;
+import com.udacity.webcrawler.parser.PageFetcher;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class AdaptiveParallelismTest {
+  private final PageParserFactory parserFactory =
+      Guice.createInjector(
+              new WebCrawlerModule(new CrawlerConfiguration.Builder().build()),
+              new NoOpProfilerModule())
+          .getInstance(PageParserFactory.class);
+
+  @Test
+  public void growsWithTheTimeSpentWaiting() {
+    AdaptiveParallelism parallelism = newAdaptiveParallelism(1, 64, (url, deadline) -> null);
+
+    assertThat(parallelism.chooseParallelism(4, 0, 0.5)).isEqualTo(4);
+    assertThat(parallelism.chooseParallelism(4, 3, 0.5)).isEqualTo(8);
+    assertThat(parallelism.chooseParallelism(8, 3, 0.5)).isEqualTo(16);
+    assertThat(parallelism.chooseParallelism(16, 3, 0.5)).isEqualTo(16);
+    assertThat(parallelism.chooseParallelism(16, 1, -1)).isEqualTo(8);
+  }
+
+  @Test
+  public void shrinksWhenTheCpuIsSaturated() {
+    AdaptiveParallelism parallelism = newAdaptiveParallelism(2, 64, (url, deadline) -> null);
+
+    assertThat(parallelism.chooseParallelism(16, 3, 0.95)).isEqualTo(15);
+    assertThat(parallelism.chooseParallelism(2, 3, 1.0)).isEqualTo(2);
+  }
+
+  @Test
+  public void staysWithinItsBounds() {
+    AdaptiveParallelism parallelism = newAdaptiveParallelism(6, 10, (url, deadline) -> null);
+
+    assertThat(parallelism.chooseParallelism(8, 100, 0)).isEqualTo(10);
+    assertThat(parallelism.chooseParallelism(8, 0, 0)).isEqualTo(6);
+    assertThat(parallelism.newPool(1).getParallelism()).isEqualTo(6);
+  }
+
+  @Test
+  public void compensatesForWorkersWaitingOnDownloads() {
+    // Every download only completes once all of them have started, which a pool of a single
+    // thread can only do if it starts spare threads while its workers are blocked.
+    int pageCount = 3;
+    List<CompletableFuture<FetchedPage>> downloads = new ArrayList<>();
+    PageFetcher fetcher = (url, deadline) -> {
+      CompletableFuture<FetchedPage> download = new CompletableFuture<>();
+      synchronized (downloads) {
+        downloads.add(download);
+        if (downloads.size() == pageCount) {
+          for (CompletableFuture<FetchedPage> started : downloads) {
+            started.complete(new FetchedPage(
+                url, "<p>the quick brown fox</p>".getBytes(StandardCharsets.UTF_8), "UTF-8"));
+          }
+        }
+      }
+      return download;
+    };
+    AdaptiveParallelism parallelism = newAdaptiveParallelism(1, pageCount + 1, fetcher);
+    ForkJoinPool pool = parallelism.newPool(1);
+    try {
+      List<ForkJoinTask<PageParser.Result>> loads = new ArrayList<>();
+      for (int i = 0; i < pageCount; i++) {
+        String url = "http://example.com/" + i;
+        loads.add(pool.submit(() -> parallelism.load(url, Instant.MAX, null)));
+      }
+      for (ForkJoinTask<PageParser.Result> load : loads) {
+        assertThat(load.join().getWordCounts())
+            .containsExactly("the", 1, "quick", 1, "brown", 1, "fox", 1);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private AdaptiveParallelism newAdaptiveParallelism(int min, int max, PageFetcher fetcher) {
+    return new AdaptiveParallelism(
+        fetcher, parserFactory, new NoOpProfiler(), min, max, 4, () -> -1);
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class CrawlSnapshotsTest {
+
+  @Test
+  public void publishesTheRunningStateOfTheCrawl() throws Exception {
+    Clock clock = Clock.systemUTC();
+    LinkedBlockingQueue<CrawlResult> received = new LinkedBlockingQueue<>();
+    RunningTopWordsAggregator counts = new RunningTopWordsAggregator(2);
+    counts.add(Map.of("the", 3, "quick", 1, "fox", 2));
+    try (CrawlContext context = new CrawlContext(
+             clock,
+             clock.instant().plusSeconds(60),
+             url -> false,
+             new UrlCanonicalizer(List.of()),
+             new ConcurrentVisitedUrlSet(),
+             counts,
+             new NearDuplicateDetector(0, true),
+             () -> new SpillingUrlQueue(Integer.MAX_VALUE, Path.of("")));
+         CrawlSnapshots snapshots =
+             new CrawlSnapshots(Duration.ofMillis(10), 2, Set.of(received::add))) {
+      context.startFrontier(List.of("http://example.com/a", "http://example.com/b"));
+      context.markVisited("http://example.com/");
+      snapshots.start(context, context::getFrontierSize);
+
+      CrawlResult snapshot = received.poll(10, TimeUnit.SECONDS);
+      assertThat(snapshot).isNotNull();
+      assertThat(snapshot.getUrlsVisited()).isEqualTo(1);
+      assertThat(snapshot.getFrontierSize()).isEqualTo(2);
+      assertThat(snapshot.getWordCounts().entrySet())
+          .containsExactly(Map.entry("the", 3), Map.entry("fox", 2))
+          .inOrder();
+    }
+  }
+
+  @Test
+  public void isDisabledWithoutIntervalOrListener() {
+    assertThat(new CrawlSnapshots(Duration.ZERO, 3, Set.of(snapshot -> {})).isEnabled()).isFalse();
+    assertThat(new CrawlSnapshots(Duration.ofSeconds(1), 3, Set.of()).isEnabled()).isFalse();
+  }
+}
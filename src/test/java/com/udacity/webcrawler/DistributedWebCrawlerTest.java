@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import com.google.inject.Guice;
+import com.sun.net.httpserver.HttpServer;
+import com.udacity.webcrawler.json.ConfigurationLoader;
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.main.WebCrawlerMain;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class DistributedWebCrawlerTest {
+
+  /**
+   * Four pages on four hosts of the loopback interface, which two workers share between them.
+   */
+  private static final Map<String, String> PAGES = Map.of(
+      "/a", "<p>the quick brown fox</p><a href='http://127.0.0.2:%1$d/b'>b</a>"
+          + "<a href='http://127.0.0.6:%1$d/c'>c</a>",
+      "/b", "<p>the lazy dog</p><a href='http://127.0.0.4:%1$d/d'>d</a>"
+          + "<a href='http://127.0.0.1:%1$d/a'>a</a>",
+      "/c", "<p>the quick dog</p><a href='http://127.0.0.4:%1$d/d'>d</a>",
+      "/d", "<p>the end</p><a href='http://127.0.0.1:%1$d/a'>a</a>");
+
+  @TempDir
+  public Path tempDirectory;
+
+  @Test
+  public void givesTheSameResultAsASingleProcess() throws Exception {
+    HttpServer server = HttpServer.create(new InetSocketAddress(0), 0);
+    int port = server.getAddress().getPort();
+    server.createContext("/", exchange -> {
+      String page = PAGES.get(exchange.getRequestURI().getPath());
+      byte[] body = String.format(page, port).getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.start();
+    try {
+      Path configPath = tempDirectory.resolve("config.json");
+      Files.writeString(
+          configPath,
+          "{\"maxDepth\": 10, \"popularWordCount\": 3, \"timeoutSeconds\": 30,"
+              + " \"workerProcesses\": 2}");
+      CrawlerConfiguration config = new ConfigurationLoader(configPath).load();
+      List<String> startPages = List.of("http://127.0.0.1:" + port + "/a");
+
+      HostPartitioner partitioner = new HostPartitioner(2);
+      Set<Integer> partitions = new HashSet<>();
+      for (String host : List.of("127.0.0.1", "127.0.0.2", "127.0.0.4", "127.0.0.6")) {
+        partitions.add(partitioner.partitionOf("http://" + host + ":" + port + "/"));
+      }
+      assertThat(partitions).containsExactly(0, 1);
+
+      List<String> workerCommand = List.of(
+          Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+          "-cp",
+          System.getProperty("java.class.path"),
+          WebCrawlerMain.class.getName(),
+          configPath.toString(),
+          "--worker");
+      WebCrawler distributed =
+          Guice.createInjector(
+                  new WebCrawlerModule(config, false, workerCommand), new NoOpProfilerModule())
+              .getInstance(WebCrawler.class);
+      WebCrawler parallel =
+          Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+              .getInstance(ParallelWebCrawler.class);
+
+      CrawlResult expected = parallel.crawl(startPages);
+      CrawlResult result = distributed.crawl(startPages);
+
+      assertThat(result.getUrlsVisited()).isEqualTo(4);
+      assertThat(result.getUrlsVisited()).isEqualTo(expected.getUrlsVisited());
+      assertThat(result.getWordCounts()).containsExactlyEntriesIn(expected.getWordCounts()).inOrder();
+    } finally {
+      server.stop(0);
+    }
+  }
+}
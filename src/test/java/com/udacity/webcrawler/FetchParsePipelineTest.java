@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import com.google.inject.Guice;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.FetchedPage;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public final class FetchParsePipelineTest {
+  private final PageParserFactory parserFactory =
+      Guice.createInjector(
+              new WebCrawlerModule(new CrawlerConfiguration.Builder().build()),
+              new NoOpProfilerModule())
+          .getInstance(PageParserFactory.class);
+
+  @Test
+  public void releasesTheHostOfAUrlItCouldNotStart() throws InterruptedException {
+    PolitenessScheduler scheduler = new PolitenessScheduler(0, 1);
+    scheduler.addAll(List.of("http://a.com/1", "http://b.com/1", "http://b.com/2"));
+    ForkJoinPool pool = new ForkJoinPool(1);
+    // Holds the only download slot until the deadline, so b.com/1 is never started.
+    try (CrawlContext context = newContext(Instant.now().plusMillis(300))) {
+      new FetchParsePipeline(
+          context, (url, deadline) -> new CompletableFuture<>(), parserFactory, pool, 1, 4)
+          .crawl(scheduler);
+    } finally {
+      pool.shutdown();
+    }
+
+    try (CrawlContext context = newContext(Instant.now().plusSeconds(5))) {
+      assertThat(scheduler.take(context)).isEqualTo("http://b.com/2");
+    }
+  }
+
+  @Test
+  public void finishesALevelLongBeforeTheDeadline() {
+    List<String> urls = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      urls.add("http://a.com/" + i);
+    }
+    byte[] content = "<p>page</p>".getBytes(StandardCharsets.UTF_8);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try (CrawlContext context = newContext(Instant.now().plus(Duration.ofMinutes(1)))) {
+      // Idle parse workers must be told that the level is over, not find out at the deadline.
+      assertTimeoutPreemptively(Duration.ofSeconds(10), () -> new FetchParsePipeline(
+          context,
+          (url, deadline) -> CompletableFuture.completedFuture(
+              new FetchedPage(url, content, "UTF-8")),
+          parserFactory,
+          pool,
+          2,
+          4)
+          .crawl(urls));
+      assertThat(context.getUrlsVisited()).isEqualTo(20);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static CrawlContext newContext(Instant deadline) {
+    return new CrawlContext(
+        Clock.systemUTC(),
+        deadline,
+        url -> false,
+        new UrlCanonicalizer(List.of()),
+        new ConcurrentVisitedUrlSet(),
+        new ConcurrentWordCountAggregator(),
+        new NearDuplicateDetector(0, true),
+        () -> new SpillingUrlQueue(Integer.MAX_VALUE, Path.of("")));
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class HeavyHitterWordCountAggregatorTest {
+
+  @Test
+  public void boundsTheErrorOfTheMostFrequentWords() {
+    // 200,000 distinct words with Zipf-like counts, far more than the 100 counters of the list.
+    double error = 0.01;
+    Random random = new Random(11);
+    Map<String, Integer> trueCounts = new HashMap<>();
+    long total = 0;
+    try (HeavyHitterWordCountAggregator aggregator =
+             new HeavyHitterWordCountAggregator(error, 5)) {
+      for (int page = 0; page < 20_000; page++) {
+        Map<String, Integer> pageCounts = new HashMap<>();
+        for (int i = 0; i < 50; i++) {
+          int rank = (int) Math.min(200_000, 1 / (random.nextDouble() + 1e-6));
+          pageCounts.merge("w" + rank, 1, Integer::sum);
+        }
+        pageCounts.forEach((word, count) -> trueCounts.merge(word, count, Integer::sum));
+        total += 50;
+        aggregator.add(pageCounts);
+      }
+
+      Map<String, Integer> popularWords = aggregator.getPopularWords(5);
+      assertThat(popularWords.keySet())
+          .containsExactlyElementsIn(WordCounts.sort(trueCounts, 5).keySet())
+          .inOrder();
+
+      long countError = aggregator.getCountError(popularWords.keySet());
+      assertThat(countError).isAtMost((long) (error * total));
+      popularWords.forEach((word, count) -> {
+        assertWithMessage("Count of %s", word).that(count).isAtLeast(trueCounts.get(word));
+        assertWithMessage("Count of %s", word)
+            .that((long) count)
+            .isAtMost(trueCounts.get(word) + countError);
+      });
+
+      // Every count of the list is an upper bound of the true count of its word.
+      aggregator.getCounts().forEach((word, count) ->
+          assertWithMessage("Count of %s", word).that(count).isAtLeast(trueCounts.get(word)));
+    }
+  }
+
+  @Test
+  public void isExactWhileTheWordsFit() {
+    try (HeavyHitterWordCountAggregator aggregator =
+             new HeavyHitterWordCountAggregator(0.25, 2)) {
+      aggregator.add(Map.of("the", 3, "quick", 1, "fox", 2));
+      aggregator.add(Map.of("the", 1, "dog", 1));
+      assertThat(aggregator.getCounts()).containsExactly("the", 4, "quick", 1, "fox", 2, "dog", 1);
+      assertThat(aggregator.getCountError(aggregator.getCounts().keySet())).isEqualTo(0);
+    }
+  }
+}
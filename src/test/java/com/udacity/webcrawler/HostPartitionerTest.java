@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import com.google.common.collect.Range;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class HostPartitionerTest {
+
+  @Test
+  public void keepsTheUrlsOfAHostTogether() {
+    HostPartitioner partitioner = new HostPartitioner(8);
+
+    int partition = partitioner.partitionOf("http://example.com/a");
+    assertThat(partitioner.partitionOf("http://example.com/b?q=1")).isEqualTo(partition);
+    assertThat(partitioner.partitionOf("https://example.com:8443/")).isEqualTo(partition);
+    assertThat(new HostPartitioner(8).partitionOf("http://example.com/c")).isEqualTo(partition);
+  }
+
+  @Test
+  public void spreadsHostsEvenly() {
+    HostPartitioner partitioner = new HostPartitioner(4);
+    int[] hosts = new int[4];
+    for (int i = 0; i < 4000; i++) {
+      hosts[partitioner.partitionOf("http://host-" + i + ".example.com/")]++;
+    }
+
+    for (int count : hosts) {
+      assertThat(count).isIn(Range.closed(700, 1300));
+    }
+  }
+
+  @Test
+  public void addingAPartitionMovesFewHosts() {
+    HostPartitioner four = new HostPartitioner(4);
+    HostPartitioner five = new HostPartitioner(5);
+    int moved = 0;
+    for (int i = 0; i < 4000; i++) {
+      String url = "http://host-" + i + ".example.com/";
+      int before = four.partitionOf(url);
+      int after = five.partitionOf(url);
+      if (before != after) {
+        moved++;
+        assertThat(after).isEqualTo(4);
+      }
+    }
+
+    assertThat(moved).isIn(Range.closed(500, 1100));
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class HostShardQueuesTest {
+
+  @Test
+  public void keepsEachHostInOneShard() {
+    List<String> level = new ArrayList<>();
+    int[] shardSizes = new int[4];
+    for (int i = 0; i < 100; i++) {
+      String url = "http://host-" + (i % 10) + ".example.com/" + i;
+      level.add(url);
+      shardSizes[HostNames.shardOf(url, 4)]++;
+    }
+    HostShardQueues queues = new HostShardQueues(level, 4, 4);
+
+    for (int worker = 0; worker < 4; worker++) {
+      // Until its own shard runs dry, a worker only sees the hosts of that shard.
+      for (int i = 0; i < shardSizes[worker]; i++) {
+        assertThat(HostNames.shardOf(queues.take(worker), 4)).isEqualTo(worker);
+      }
+    }
+    assertThat(queues.take(0)).isNull();
+  }
+
+  @Test
+  public void takesItsOwnShardInOrderAndStealsTheRest() {
+    String local = "http://local.example.com/";
+    String remote = "http://remote.example.com/";
+    int shardCount = 64;
+    int localShard = HostNames.shardOf(local, shardCount);
+    int remoteShard = HostNames.shardOf(remote, shardCount);
+    assertThat(localShard).isNotEqualTo(remoteShard);
+    HostShardQueues queues = new HostShardQueues(
+        List.of(local + "1", remote + "1", local + "2", remote + "2"), shardCount, shardCount);
+
+    assertThat(queues.take(localShard)).isEqualTo(local + "1");
+    assertThat(queues.take(localShard)).isEqualTo(local + "2");
+    assertThat(queues.take(localShard)).isEqualTo(remote + "2");
+    assertThat(queues.take(remoteShard)).isEqualTo(remote + "1");
+    assertThat(queues.take(remoteShard)).isNull();
+    assertThat(queues.take(localShard)).isNull();
+  }
+}
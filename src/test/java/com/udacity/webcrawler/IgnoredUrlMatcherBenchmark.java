@@ -0,0 +1,122 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the per-URL cost of {@link IgnoredUrlMatcher} with running every ignored URL pattern
+ * against the URL, for a rule set of 200 patterns shaped like real ignore lists.
+ *
+ * <p>Run with {@code mvn test-compile exec:exec -Dbenchmark=IgnoredUrlMatcher}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(IgnoredUrlMatcherBenchmark.URLS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IgnoredUrlMatcherBenchmark {
+  static final int URLS = 1_000;
+
+  private List<Pattern> patterns;
+  private IgnoredUrlMatcher matcher;
+  private String[] urls;
+
+  @Setup
+  public void setUp() {
+    List<String> regexes = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      regexes.add("https://ads" + i + "\\.example\\.com/.*");
+    }
+    for (int i = 0; i < 40; i++) {
+      regexes.add(".*\\.ext" + i);
+    }
+    for (int i = 0; i < 30; i++) {
+      regexes.add("https://example\\.com/logout/" + i);
+    }
+    for (int i = 0; i < 30; i++) {
+      regexes.add("https://example\\.com/section" + i + "/[0-9]+\\?page=.*");
+    }
+    patterns = new ArrayList<>();
+    regexes.forEach(regex -> patterns.add(Pattern.compile(regex)));
+    matcher = new IgnoredUrlMatcher(patterns);
+
+    // Mostly URLs that are not ignored, which have to be checked against every rule.
+    Random random = new Random(42);
+    urls = new String[URLS];
+    for (int i = 0; i < URLS; i++) {
+      int kind = random.nextInt(10);
+      if (kind == 0) {
+        urls[i] = "https://ads" + random.nextInt(150) + ".example.com/banner";
+      } else if (kind == 1) {
+        urls[i] = "https://example.com/section" + random.nextInt(60) + "/7?page=2";
+      } else {
+        urls[i] = "https://example.com/articles/" + random.nextInt(100_000) + "/index.html";
+      }
+    }
+  }
+
+  @Benchmark
+  public int patternLoop() {
+    int ignored = 0;
+    for (String url : urls) {
+      for (Pattern pattern : patterns) {
+        if (pattern.matcher(url).matches()) {
+          ignored++;
+          break;
+        }
+      }
+    }
+    return ignored;
+  }
+
+  @Benchmark
+  public int compiledMatcher() {
+    int ignored = 0;
+    for (String url : urls) {
+      if (matcher.matches(url)) {
+        ignored++;
+      }
+    }
+    return ignored;
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class IgnoredUrlMatcherTest {
+
+  private static IgnoredUrlMatcher matcher(String... regexes) {
+    return new IgnoredUrlMatcher(
+        Stream.of(regexes).map(Pattern::compile).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void matchesLiteralPrefixAndSuffixRules() {
+    IgnoredUrlMatcher matcher = matcher(
+        "https://example\\.com/login",
+        "https://ads\\.example\\.com/.*",
+        ".*\\.pdf",
+        "\\Qhttps://example.com/a?b\\E");
+
+    assertThat(matcher.matches("https://example.com/login")).isTrue();
+    assertThat(matcher.matches("https://example.com/login/")).isFalse();
+    assertThat(matcher.matches("https://ads.example.com/")).isTrue();
+    assertThat(matcher.matches("https://ads.example.com/banner?id=1")).isTrue();
+    assertThat(matcher.matches("https://ads.example.co/")).isFalse();
+    assertThat(matcher.matches("https://example.com/report.pdf")).isTrue();
+    assertThat(matcher.matches("https://example.com/report.pdf.html")).isFalse();
+    assertThat(matcher.matches("https://example.com/a?b")).isTrue();
+    assertThat(matcher.matches("https://example.com/a")).isFalse();
+  }
+
+  @Test
+  public void matchesCombinedAndSeparateRegexes() {
+    IgnoredUrlMatcher matcher = matcher(
+        ".*-loop\\.html$",
+        ".*dead-.*",
+        "(?i)https://EXAMPLE\\.com/[0-9]+",
+        "https://(\\w+)\\.com/\\1",
+        "(?<host>x)\\.com");
+
+    assertThat(matcher.matches("file:/tmp/infinite-loop.html")).isTrue();
+    assertThat(matcher.matches("file:/tmp/dead-link.html")).isTrue();
+    assertThat(matcher.matches("https://example.com/42")).isTrue();
+    // The inline flag of one rule must not leak into the next ones.
+    assertThat(matcher.matches("FILE:/tmp/DEAD-link.html")).isFalse();
+    assertThat(matcher.matches("https://abc.com/abc")).isTrue();
+    assertThat(matcher.matches("https://abc.com/abd")).isFalse();
+    assertThat(matcher.matches("x.com")).isTrue();
+    assertThat(matcher.matches("https://example.com/")).isFalse();
+  }
+
+  @Test
+  public void dotDoesNotMatchLineTerminators() {
+    IgnoredUrlMatcher matcher = matcher("https://example\\.com/.*", ".*\\.pdf");
+    assertThat(matcher.matches("https://example.com/a\nb")).isFalse();
+    assertThat(matcher.matches("a\nb.pdf")).isFalse();
+  }
+
+  @Test
+  public void agreesWithThePatternLoop() {
+    List<String> regexes = List.of(
+        "https://example\\.com/login",
+        "https://ads[0-9]\\.example\\.com/.*",
+        "https://tracker\\.example\\.com/.*",
+        "http://example\\.com/.*",
+        ".*\\.pdf",
+        ".*\\.(jpg|png)",
+        ".*\\?utm_.*",
+        "https://example\\.com/page/[0-9]+",
+        ".*/private/.*");
+    List<Pattern> patterns = regexes.stream().map(Pattern::compile).collect(Collectors.toList());
+    IgnoredUrlMatcher matcher = new IgnoredUrlMatcher(patterns);
+
+    String[] parts = {
+        "https://", "http://", "example.com", "ads1.example.com", "tracker.example.com", "/",
+        "login", "page/", "12", "private", ".pdf", ".png", "?utm_source=x", "a", ".html"};
+    Random random = new Random(42);
+    for (int i = 0; i < 20_000; i++) {
+      StringBuilder url = new StringBuilder();
+      for (int j = random.nextInt(7); j >= 0; j--) {
+        url.append(parts[random.nextInt(parts.length)]);
+      }
+      String candidate = url.toString();
+      boolean expected = patterns.stream().anyMatch(p -> p.matcher(candidate).matches());
+      assertThat(matcher.matches(candidate)).isEqualTo(expected);
+    }
+  }
+}
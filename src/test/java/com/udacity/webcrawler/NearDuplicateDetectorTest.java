@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class NearDuplicateDetectorTest {
+
+  private static Map<String, Integer> words(String prefix, int count) {
+    Map<String, Integer> words = new HashMap<>();
+    for (int i = 0; i < count; i++) {
+      words.put(prefix + i, 1 + i % 3);
+    }
+    return words;
+  }
+
+  @Test
+  public void similarPagesHaveCloseFingerprints() {
+    Map<String, Integer> page = words("word", 1000);
+    Map<String, Integer> edited = new HashMap<>(page);
+    edited.put("extra", 1);
+    edited.remove("word7");
+    Map<String, Integer> other = words("other", 1000);
+
+    assertThat(Long.bitCount(SimHash.of(page) ^ SimHash.of(edited))).isAtMost(3);
+    assertThat(Long.bitCount(SimHash.of(page) ^ SimHash.of(other))).isGreaterThan(3);
+  }
+
+  @Test
+  public void detectsNearDuplicates() {
+    NearDuplicateDetector detector = new NearDuplicateDetector(3, false);
+    Map<String, Integer> page = words("word", 200);
+    Map<String, Integer> edited = new HashMap<>(page);
+    edited.put("extra", 1);
+
+    assertThat(detector.isNearDuplicate(page)).isFalse();
+    assertThat(detector.isNearDuplicate(edited)).isTrue();
+    assertThat(detector.isNearDuplicate(words("other", 200))).isFalse();
+    assertThat(detector.isNearDuplicate(page)).isTrue();
+    assertThat(detector.countsNearDuplicateWords()).isFalse();
+  }
+
+  @Test
+  public void neverReportsEmptyPagesOrWhenDisabled() {
+    NearDuplicateDetector detector = new NearDuplicateDetector(3, true);
+    assertThat(detector.isNearDuplicate(Map.of())).isFalse();
+    assertThat(detector.isNearDuplicate(Map.of())).isFalse();
+
+    NearDuplicateDetector disabled = new NearDuplicateDetector(0, true);
+    assertThat(disabled.isNearDuplicate(words("word", 10))).isFalse();
+    assertThat(disabled.isNearDuplicate(words("word", 10))).isFalse();
+  }
+}
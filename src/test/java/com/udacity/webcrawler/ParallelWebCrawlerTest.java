@@ -25,17 +25,53 @@
 package com.udacity.webcrawler;
 
 import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+import com.udacity.webcrawler.json.CrawlResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
 import com.udacity.webcrawler.json.CrawlerConfiguration;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static com.google.common.truth.Truth.assertThat;
 
 public final class ParallelWebCrawlerTest {
+  private static final String DATA_DIR = System.getProperty("user.dir") +
+      File.separator + "src"
+      + File.separator + "test"
+      + File.separator + "data";
+
   @Inject
   private ParallelWebCrawler parallelWebCrawler;
 
+  @TempDir
+  public Path checkpointDirectory;
+
   @Test
   public void testMaxParallelism() {
     CrawlerConfiguration config = new CrawlerConfiguration.Builder().build();
@@ -43,4 +79,506 @@ public final class ParallelWebCrawlerTest {
         .injectMembers(this);
     assertThat(parallelWebCrawler.getMaxParallelism()).isGreaterThan(1);
   }
+
+  @Test
+  public void repeatedCrawlsDoNotShareState() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    List<String> startPages = List.of(Paths.get(DATA_DIR, "test-page.html").toUri().toString());
+
+    CrawlResult first = parallelWebCrawler.crawl(startPages);
+    CrawlResult second = parallelWebCrawler.crawl(startPages);
+
+    assertThat(second.getUrlsVisited()).isEqualTo(first.getUrlsVisited());
+    assertThat(second.getWordCounts()).isEqualTo(first.getWordCounts());
+  }
+
+  @Test
+  public void crawlsDoNotShareAWordDictionary() {
+    Injector injector =
+        Guice.createInjector(
+            new WebCrawlerModule(new CrawlerConfiguration.Builder().build()),
+            new NoOpProfilerModule());
+
+    try (WordCountAggregator first = injector.getInstance(WordCountAggregator.class);
+         WordCountAggregator second = injector.getInstance(WordCountAggregator.class)) {
+      assertThat(first.getWordDictionary()).isNotNull();
+      assertThat(second.getWordDictionary()).isNotSameInstanceAs(first.getWordDictionary());
+    }
+  }
+
+  @Test
+  public void concurrentCrawlsDoNotShareState() throws Exception {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    List<String> testPage = List.of(Paths.get(DATA_DIR, "test-page.html").toUri().toString());
+    List<String> loopPage = List.of(Paths.get(DATA_DIR, "infinite-loop.html").toUri().toString());
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<CrawlResult>> testPageCrawls = new ArrayList<>();
+      List<Future<CrawlResult>> loopPageCrawls = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        testPageCrawls.add(executor.submit(() -> parallelWebCrawler.crawl(testPage)));
+        loopPageCrawls.add(executor.submit(() -> parallelWebCrawler.crawl(loopPage)));
+      }
+      for (Future<CrawlResult> crawl : testPageCrawls) {
+        assertThat(crawl.get().getUrlsVisited()).isEqualTo(3);
+      }
+      for (Future<CrawlResult> crawl : loopPageCrawls) {
+        CrawlResult result = crawl.get();
+        assertThat(result.getUrlsVisited()).isEqualTo(2);
+        assertThat(result.getWordCounts().entrySet())
+            .containsExactly(
+                Map.entry("the", 4),
+                Map.entry("jumped", 2),
+                Map.entry("brown", 2))
+            .inOrder();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void fingerprintVisitedSetGivesTheSameResult() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .setVisitedUrlSet("fingerprint")
+            .setVisitedUrlBloomFilter(true)
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    CrawlResult result = parallelWebCrawler.crawl(
+        List.of(
+            Paths.get(DATA_DIR, "test-page.html").toUri().toString(),
+            Paths.get(DATA_DIR, "link-1.html").toUri().toString(),
+            Paths.get(DATA_DIR, "infinite-loop.html").toUri().toString()));
+
+    assertThat(result.getUrlsVisited()).isEqualTo(5);
+    assertThat(result.getWordCounts().entrySet())
+        .containsExactly(
+            Map.entry("the", 8),
+            Map.entry("jumped", 4),
+            Map.entry("brown", 4))
+        .inOrder();
+  }
+
+  @Test
+  public void fetchParsePipelineGivesTheSameResult() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .setFetchConcurrency(2)
+            .setParseQueueCapacity(1)
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    CrawlResult result = parallelWebCrawler.crawl(
+        List.of(
+            Paths.get(DATA_DIR, "test-page.html").toUri().toString(),
+            Paths.get(DATA_DIR, "link-1.html").toUri().toString(),
+            Paths.get(DATA_DIR, "infinite-loop.html").toUri().toString()));
+
+    assertThat(result.getUrlsVisited()).isEqualTo(5);
+    assertThat(result.getWordCounts().entrySet())
+        .containsExactly(
+            Map.entry("the", 8),
+            Map.entry("jumped", 4),
+            Map.entry("brown", 4))
+        .inOrder();
+  }
+
+  @Test
+  public void hostShardsGiveTheSameResult() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .setHostShards(4)
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    CrawlResult result = parallelWebCrawler.crawl(
+        List.of(
+            Paths.get(DATA_DIR, "test-page.html").toUri().toString(),
+            Paths.get(DATA_DIR, "link-1.html").toUri().toString(),
+            Paths.get(DATA_DIR, "infinite-loop.html").toUri().toString()));
+
+    assertThat(result.getUrlsVisited()).isEqualTo(5);
+    assertThat(result.getWordCounts().entrySet())
+        .containsExactly(
+            Map.entry("the", 8),
+            Map.entry("jumped", 4),
+            Map.entry("brown", 4))
+        .inOrder();
+  }
+
+  @Test
+  public void adaptiveParallelismGivesTheSameResult() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .setMinParallelism(1)
+            .setMaxParallelism(8)
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    CrawlResult result = parallelWebCrawler.crawl(
+        List.of(
+            Paths.get(DATA_DIR, "test-page.html").toUri().toString(),
+            Paths.get(DATA_DIR, "link-1.html").toUri().toString(),
+            Paths.get(DATA_DIR, "infinite-loop.html").toUri().toString()));
+
+    assertThat(result.getUrlsVisited()).isEqualTo(5);
+    assertThat(result.getWordCounts().entrySet())
+        .containsExactly(
+            Map.entry("the", 8),
+            Map.entry("jumped", 4),
+            Map.entry("brown", 4))
+        .inOrder();
+  }
+
+  @Test
+  public void politenessSchedulerGivesTheSameResult() {
+    for (int fetchConcurrency : new int[] {0, 2}) {
+      CrawlerConfiguration config =
+          new CrawlerConfiguration.Builder()
+              .setMaxDepth(10)
+              .setPopularWordCount(3)
+              .setFetchConcurrency(fetchConcurrency)
+              .setHostRequestsPerSecond(100)
+              .setMaxConnectionsPerHost(1)
+              .build();
+      Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+          .injectMembers(this);
+      CrawlResult result = parallelWebCrawler.crawl(
+          List.of(
+              Paths.get(DATA_DIR, "test-page.html").toUri().toString(),
+              Paths.get(DATA_DIR, "link-1.html").toUri().toString(),
+              Paths.get(DATA_DIR, "infinite-loop.html").toUri().toString()));
+
+      assertThat(result.getUrlsVisited()).isEqualTo(5);
+      assertThat(result.getWordCounts().entrySet())
+          .containsExactly(
+              Map.entry("the", 8),
+              Map.entry("jumped", 4),
+              Map.entry("brown", 4))
+          .inOrder();
+    }
+  }
+
+  @Test
+  public void bestFirstFrontierGivesTheSameResult() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .addFrontierScorers("depth", "hostDiversity", "urlPattern", "latency")
+            .putUrlPatternWeights(Map.of(".*link-2.*", 5.0))
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    CrawlResult result = parallelWebCrawler.crawl(
+        List.of(
+            Paths.get(DATA_DIR, "test-page.html").toUri().toString(),
+            Paths.get(DATA_DIR, "link-1.html").toUri().toString(),
+            Paths.get(DATA_DIR, "infinite-loop.html").toUri().toString()));
+
+    assertThat(result.getUrlsVisited()).isEqualTo(5);
+    assertThat(result.getWordCounts().entrySet())
+        .containsExactly(
+            Map.entry("the", 8),
+            Map.entry("jumped", 4),
+            Map.entry("brown", 4))
+        .inOrder();
+  }
+
+  @Test
+  public void nearDuplicatePagesAreNotExpanded() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .setNearDuplicateDistance(3)
+            .setCountNearDuplicateWords(false)
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    // Both pages have the same words, so whichever is parsed second is a near-duplicate: its words
+    // are not counted and its link is not followed.
+    CrawlResult result = parallelWebCrawler.crawl(
+        List.of(
+            Paths.get(DATA_DIR, "link-1.html").toUri().toString(),
+            Paths.get(DATA_DIR, "infinite-loop.html").toUri().toString()));
+
+    assertThat(result.getUrlsVisited()).isEqualTo(3);
+    assertThat(result.getWordCounts().entrySet())
+        .containsExactly(
+            Map.entry("the", 2),
+            Map.entry("jumped", 1),
+            Map.entry("brown", 1))
+        .inOrder();
+  }
+
+  @Test
+  public void spillingFrontierGivesTheSameResult() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .setFrontierMemoryLimit(1)
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    CrawlResult result = parallelWebCrawler.crawl(
+        List.of(
+            Paths.get(DATA_DIR, "test-page.html").toUri().toString(),
+            Paths.get(DATA_DIR, "link-1.html").toUri().toString(),
+            Paths.get(DATA_DIR, "infinite-loop.html").toUri().toString()));
+
+    assertThat(result.getUrlsVisited()).isEqualTo(5);
+    assertThat(result.getWordCounts().entrySet())
+        .containsExactly(
+            Map.entry("the", 8),
+            Map.entry("jumped", 4),
+            Map.entry("brown", 4))
+        .inOrder();
+  }
+
+  @Test
+  public void resumesFromCheckpoint() throws IOException {
+    String testPage = Paths.get(DATA_DIR, "test-page.html").toUri().toString();
+    String link1 = Paths.get(DATA_DIR, "link-1.html").toUri().toString();
+    UrlCanonicalizer canonicalizer = new UrlCanonicalizer(List.of());
+
+    // Save the state of a crawl that has already visited link-1.html, and still has to crawl
+    // test-page.html.
+    try (CrawlContext context = new CrawlContext(
+        Clock.systemUTC(),
+        Instant.MAX,
+        url -> false,
+        canonicalizer,
+        new ConcurrentVisitedUrlSet(),
+        new ConcurrentWordCountAggregator(),
+        new NearDuplicateDetector(0, true),
+        () -> new SpillingUrlQueue(Integer.MAX_VALUE, Path.of("")))) {
+      context.startFrontier(List.of(testPage));
+      context.markVisited(canonicalizer.canonicalize(link1));
+      new CrawlCheckpoint(Clock.systemUTC(), checkpointDirectory, Duration.ofMinutes(1), false)
+          .write(context, List.of());
+    }
+
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .setCheckpointDirectory(checkpointDirectory.toString())
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config, true), new NoOpProfilerModule())
+        .injectMembers(this);
+    // The starting URL is not used, because the crawl resumes from the checkpoint.
+    CrawlResult result = parallelWebCrawler.crawl(
+        List.of(Paths.get(DATA_DIR, "infinite-loop.html").toUri().toString()));
+
+    // link-1.html counts as visited, but is neither crawled again nor counted.
+    assertThat(result.getUrlsVisited()).isEqualTo(2);
+    assertThat(result.getWordCounts().entrySet())
+        .containsExactly(
+            Map.entry("the", 2),
+            Map.entry("jumped", 1),
+            Map.entry("brown", 1))
+        .inOrder();
+    // The crawl is complete, so its checkpoint is deleted.
+    try (Stream<Path> files = Files.list(checkpointDirectory)) {
+      assertThat(files.count()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void resumedCrawlRecrawlsPagesCutShortByTheDeadline() throws IOException {
+    MutableClock clock = new MutableClock();
+    HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    serve(server, "/start.html",
+        "<p>start</p><a href=\"/first.html\">first</a><a href=\"/second.html\">second</a>");
+    serve(server, "/second.html", "<p>second</p>");
+    server.createContext("/first.html", exchange -> {
+      // The deadline passes while this page is being downloaded.
+      clock.advance(Duration.ofDays(1));
+      send(exchange, "<p>cutoff</p>");
+    });
+    server.start();
+    try {
+      String startPage = "http://127.0.0.1:" + server.getAddress().getPort() + "/start.html";
+      CrawlerConfiguration config =
+          new CrawlerConfiguration.Builder()
+              .setMaxDepth(10)
+              .setPopularWordCount(10)
+              .setTimeoutSeconds(60)
+              .setCheckpointDirectory(checkpointDirectory.toString())
+              .build();
+      Guice.createInjector(
+              Modules.override(new WebCrawlerModule(config))
+                  .with(binder -> binder.bind(Clock.class).toInstance(clock)),
+              new NoOpProfilerModule())
+          .injectMembers(this);
+      CrawlResult interrupted = parallelWebCrawler.crawl(List.of(startPage));
+
+      assertThat(interrupted.getWordCounts()).doesNotContainKey("cutoff");
+
+      Guice.createInjector(new WebCrawlerModule(config, true), new NoOpProfilerModule())
+          .injectMembers(this);
+      CrawlResult resumed = parallelWebCrawler.crawl(List.of(startPage));
+
+      // first.html was cut short, so it is neither counted nor visited until the resumed crawl.
+      assertThat(resumed.getUrlsVisited()).isEqualTo(3);
+      assertThat(resumed.getWordCounts())
+          .containsExactly("start", 1, "first", 1, "second", 2, "cutoff", 1);
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void checkpointsAreTakenWithinALevel() throws IOException {
+    int pageCount = ParallelWebCrawler.CHECKPOINTED_PAGES_PER_WORKER + 4;
+    MutableClock clock = new MutableClock();
+    AtomicBoolean checkpointedMidLevel = new AtomicBoolean();
+    HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    StringBuilder links = new StringBuilder();
+    for (int i = 0; i < pageCount; i++) {
+      links.append("<a href=\"/page-").append(i).append(".html\">link</a>");
+    }
+    serve(server, "/start.html", links.toString());
+    AtomicInteger served = new AtomicInteger();
+    server.createContext("/page-", exchange -> {
+      int page = served.getAndIncrement();
+      if (page == 0) {
+        // The checkpoint interval passes while the first batch of the level is crawled.
+        clock.advance(Duration.ofMinutes(2));
+        send(exchange, "<p>first</p>");
+        return;
+      }
+      if (page >= ParallelWebCrawler.CHECKPOINTED_PAGES_PER_WORKER) {
+        Path checkpoint = checkpointDirectory.resolve("crawl.checkpoint");
+        if (Files.exists(checkpoint) && new String(
+            Files.readAllBytes(checkpoint), StandardCharsets.ISO_8859_1).contains("first")) {
+          checkpointedMidLevel.set(true);
+        }
+      }
+      send(exchange, "<p>other</p>");
+    });
+    server.start();
+    try {
+      String startPage = "http://127.0.0.1:" + server.getAddress().getPort() + "/start.html";
+      CrawlerConfiguration config =
+          new CrawlerConfiguration.Builder()
+              .setMaxDepth(10)
+              .setPopularWordCount(10)
+              .setParallelism(1)
+              .setTimeoutSeconds(3600)
+              .setCheckpointDirectory(checkpointDirectory.toString())
+              .build();
+      Guice.createInjector(
+              Modules.override(new WebCrawlerModule(config))
+                  .with(binder -> binder.bind(Clock.class).toInstance(clock)),
+              new NoOpProfilerModule())
+          .injectMembers(this);
+      CrawlResult result = parallelWebCrawler.crawl(List.of(startPage));
+
+      assertThat(result.getUrlsVisited()).isEqualTo(pageCount + 1);
+      // The words of the first batch were saved before the rest of the level was crawled.
+      assertThat(checkpointedMidLevel.get()).isTrue();
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void crawlWithoutCheckpointsVisitsPagesFinishedAfterTheDeadline() throws IOException {
+    MutableClock clock = new MutableClock();
+    HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    serve(server, "/start.html", "<p>start</p><a href=\"/late.html\">late</a>");
+    server.createContext("/late.html", exchange -> {
+      // The deadline passes while this page is being downloaded.
+      clock.advance(Duration.ofDays(1));
+      send(exchange, "<p>cutoff</p>");
+    });
+    server.start();
+    try {
+      String startPage = "http://127.0.0.1:" + server.getAddress().getPort() + "/start.html";
+      CrawlerConfiguration config =
+          new CrawlerConfiguration.Builder()
+              .setMaxDepth(10)
+              .setPopularWordCount(10)
+              .setTimeoutSeconds(60)
+              .build();
+      Guice.createInjector(
+              Modules.override(new WebCrawlerModule(config))
+                  .with(binder -> binder.bind(Clock.class).toInstance(clock)),
+              new NoOpProfilerModule())
+          .injectMembers(this);
+      CrawlResult result = parallelWebCrawler.crawl(List.of(startPage));
+
+      // The crawl cannot be resumed, so the page that finished late still counts as visited, with
+      // whatever the parser read of it before the deadline.
+      assertThat(result.getUrlsVisited()).isEqualTo(2);
+      assertThat(result.getWordCounts()).containsExactly("start", 1, "late", 1);
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  private static void serve(HttpServer server, String path, String body) {
+    server.createContext(path, exchange -> send(exchange, body));
+  }
+
+  private static void send(HttpExchange exchange, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  /**
+   * A clock that runs with the system clock, but can be moved forward.
+   */
+  private static final class MutableClock extends Clock {
+    private volatile Duration offset = Duration.ZERO;
+
+    void advance(Duration duration) {
+      offset = offset.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.now().plus(offset);
+    }
+  }
 }
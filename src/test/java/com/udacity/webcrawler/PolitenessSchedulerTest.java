@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class PolitenessSchedulerTest {
+  private final Clock clock = Clock.systemUTC();
+  private final CrawlContext context = new CrawlContext(
+      clock,
+      clock.instant().plusSeconds(60),
+      url -> false,
+      new UrlCanonicalizer(List.of()),
+      new ConcurrentVisitedUrlSet(),
+      new ConcurrentWordCountAggregator(),
+      new NearDuplicateDetector(0, true),
+      () -> new SpillingUrlQueue(Integer.MAX_VALUE, Path.of("")));
+
+  @AfterEach
+  public void closeContext() {
+    context.close();
+  }
+
+  @Test
+  public void returnsNullOnceEveryUrlIsTaken() throws InterruptedException {
+    PolitenessScheduler scheduler = new PolitenessScheduler(0, 0);
+    assertThat(scheduler.isLimiting()).isFalse();
+    scheduler.addAll(List.of("http://a.com/1", "http://a.com/2"));
+
+    assertThat(scheduler.take(context)).isEqualTo("http://a.com/1");
+    assertThat(scheduler.take(context)).isEqualTo("http://a.com/2");
+    assertThat(scheduler.take(context)).isNull();
+  }
+
+  @Test
+  public void capsConnectionsPerHost() throws InterruptedException {
+    PolitenessScheduler scheduler = new PolitenessScheduler(0, 1);
+    scheduler.addAll(List.of("http://a.com/1", "http://a.com/2", "http://b.com/1"));
+
+    assertThat(scheduler.take(context)).isEqualTo("http://a.com/1");
+    // a.com has no free connection until its first download is released.
+    assertThat(scheduler.take(context)).isEqualTo("http://b.com/1");
+    scheduler.release("http://a.com/1");
+    assertThat(scheduler.take(context)).isEqualTo("http://a.com/2");
+  }
+
+  @Test
+  public void limitsRequestRatePerHost() throws InterruptedException {
+    PolitenessScheduler scheduler = new PolitenessScheduler(20, 0);
+    for (int i = 0; i < 25; i++) {
+      scheduler.addAll(List.of("http://a.com/" + i));
+    }
+
+    // The first 20 requests are an allowed burst; the next 5 are spaced 50ms apart.
+    long start = System.nanoTime();
+    for (int i = 0; i < 25; i++) {
+      String url = scheduler.take(context);
+      assertThat(url).isEqualTo("http://a.com/" + i);
+      scheduler.release(url);
+    }
+    assertThat(Duration.ofNanos(System.nanoTime() - start))
+        .isAtLeast(Duration.ofMillis(200));
+  }
+
+  @Test
+  public void stopsAtTheDeadline() throws InterruptedException {
+    PolitenessScheduler scheduler = new PolitenessScheduler(0, 1);
+    scheduler.addAll(List.of("http://a.com/1", "http://a.com/2"));
+    try (CrawlContext timedOut = new CrawlContext(
+        clock,
+        clock.instant(),
+        url -> false,
+        new UrlCanonicalizer(List.of()),
+        new ConcurrentVisitedUrlSet(),
+        new ConcurrentWordCountAggregator(),
+        new NearDuplicateDetector(0, true),
+        () -> new SpillingUrlQueue(Integer.MAX_VALUE, Path.of("")))) {
+      assertThat(scheduler.take(timedOut)).isNull();
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class PriorityFrontierTest {
+  private final Clock clock = Clock.systemUTC();
+  private final CrawlContext context = new CrawlContext(
+      clock,
+      clock.instant().plusSeconds(60),
+      url -> false,
+      new UrlCanonicalizer(List.of()),
+      new ConcurrentVisitedUrlSet(),
+      new ConcurrentWordCountAggregator(),
+      new NearDuplicateDetector(0, true),
+      () -> new SpillingUrlQueue(Integer.MAX_VALUE, Path.of("")));
+
+  @AfterEach
+  public void closeContext() {
+    context.close();
+  }
+
+  private String takeUrl(PriorityFrontier frontier) throws InterruptedException {
+    PriorityFrontier.Entry entry = frontier.take(context);
+    if (entry == null) {
+      return null;
+    }
+    frontier.done();
+    return entry.getUrl();
+  }
+
+  @Test
+  public void takesTheHighestScoreFirst() throws InterruptedException {
+    PriorityFrontier frontier = new PriorityFrontier(List.of(
+        new DepthScorer(),
+        new UrlPatternScorer(Map.of(Pattern.compile(".*/important/.*"), 5.0))));
+    frontier.add("http://a.com/1", 2);
+    frontier.add("http://a.com/2", 1);
+    frontier.add("http://a.com/important/3", 3);
+    frontier.add("http://a.com/4", 1);
+
+    assertThat(takeUrl(frontier)).isEqualTo("http://a.com/important/3");
+    // Equal scores are taken in the order they were added.
+    assertThat(takeUrl(frontier)).isEqualTo("http://a.com/2");
+    assertThat(takeUrl(frontier)).isEqualTo("http://a.com/4");
+    assertThat(takeUrl(frontier)).isEqualTo("http://a.com/1");
+    assertThat(takeUrl(frontier)).isNull();
+  }
+
+  @Test
+  public void addsEachUrlOnce() throws InterruptedException {
+    PriorityFrontier frontier = new PriorityFrontier(List.of(new DepthScorer()));
+    frontier.add("http://a.com/", 1);
+    frontier.add("http://a.com/", 0);
+
+    PriorityFrontier.Entry entry = frontier.take(context);
+    assertThat(entry.getDepth()).isEqualTo(1);
+    frontier.done();
+    assertThat(frontier.take(context)).isNull();
+  }
+
+  @Test
+  public void forgetsUrlsOnceTaken() throws InterruptedException {
+    PriorityFrontier frontier = new PriorityFrontier(List.of(new DepthScorer()));
+    frontier.add("http://a.com/", 0);
+    assertThat(takeUrl(frontier)).isEqualTo("http://a.com/");
+
+    // The visited set of the crawl, not the frontier, keeps a taken URL from being crawled again.
+    frontier.add("http://a.com/", 1);
+    assertThat(frontier.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void spreadsTheCrawlOverHosts() throws InterruptedException {
+    PriorityFrontier frontier = new PriorityFrontier(List.of(new HostDiversityScorer()));
+    frontier.add("http://a.com/1", 0);
+    frontier.add("http://a.com/2", 0);
+    frontier.add("http://a.com/3", 0);
+    frontier.add("http://b.com/1", 0);
+
+    assertThat(takeUrl(frontier)).isEqualTo("http://a.com/1");
+    assertThat(takeUrl(frontier)).isEqualTo("http://b.com/1");
+    assertThat(takeUrl(frontier)).isEqualTo("http://a.com/2");
+  }
+
+  @Test
+  public void prefersFastHosts() throws InterruptedException {
+    PriorityFrontier frontier = new PriorityFrontier(List.of(new LatencyScorer()));
+    frontier.recordCrawl("http://slow.com/", Duration.ofSeconds(2));
+    frontier.recordCrawl("http://fast.com/", Duration.ofMillis(10));
+    frontier.add("http://slow.com/1", 0);
+    frontier.add("http://fast.com/1", 0);
+
+    assertThat(takeUrl(frontier)).isEqualTo("http://fast.com/1");
+    assertThat(takeUrl(frontier)).isEqualTo("http://slow.com/1");
+  }
+
+  @Test
+  public void waitsForActiveWorkersBeforeReportingExhaustion() throws Exception {
+    PriorityFrontier frontier = new PriorityFrontier(List.of(new DepthScorer()));
+    frontier.add("http://a.com/", 0);
+    PriorityFrontier.Entry entry = frontier.take(context);
+
+    Thread worker = new Thread(() -> {
+      frontier.add("http://a.com/next", entry.getDepth() + 1);
+      frontier.done();
+    });
+    worker.start();
+    assertThat(takeUrl(frontier)).isEqualTo("http://a.com/next");
+    worker.join();
+    assertThat(takeUrl(frontier)).isNull();
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class SpillingUrlQueueTest {
+
+  @TempDir
+  public Path spillDirectory;
+
+  private static List<String> urls(int from, int to) {
+    return IntStream.range(from, to)
+        .mapToObj(i -> "http://example.com/" + i + "/été")
+        .collect(Collectors.toList());
+  }
+
+  private long spilledFiles() throws IOException {
+    try (Stream<Path> files = Files.walk(spillDirectory)) {
+      return files.filter(Files::isRegularFile).count();
+    }
+  }
+
+  @Test
+  public void keepsSmallQueuesInMemory() throws IOException {
+    try (SpillingUrlQueue queue = new SpillingUrlQueue(10, spillDirectory)) {
+      queue.addAll(urls(0, 10));
+      assertThat(spilledFiles()).isEqualTo(0);
+      assertThat(queue.poll()).containsExactlyElementsIn(urls(0, 10)).inOrder();
+      assertThat(queue.poll()).isEmpty();
+    }
+  }
+
+  @Test
+  public void spillsAndReadsBackInOrder() throws IOException {
+    List<String> polled = new ArrayList<>();
+    try (SpillingUrlQueue queue = new SpillingUrlQueue(100, spillDirectory, 1024)) {
+      queue.addAll(urls(0, 500));
+      queue.addAll(urls(500, 1000));
+      assertThat(queue.size()).isEqualTo(1000);
+      // The 900 URLs past the head are spread over several small segments.
+      assertThat(spilledFiles()).isGreaterThan(1L);
+
+      List<String> batch;
+      while (!(batch = queue.poll()).isEmpty()) {
+        assertThat(batch.size()).isAtMost(100);
+        polled.addAll(batch);
+      }
+      assertThat(queue.size()).isEqualTo(0);
+      assertThat(spilledFiles()).isEqualTo(0);
+    }
+    assertThat(polled).containsExactlyElementsIn(urls(0, 1000)).inOrder();
+  }
+
+  @Test
+  public void keepsUrlsAddedWhileReadingBackBehindTheSpilledOnes() throws IOException {
+    try (SpillingUrlQueue queue = new SpillingUrlQueue(100, spillDirectory)) {
+      queue.addAll(urls(0, 200));
+      // Leave the reader in the middle of the only segment, with the head empty.
+      assertThat(queue.poll(150)).containsExactlyElementsIn(urls(0, 150)).inOrder();
+      queue.addAll(urls(200, 250));
+
+      assertThat(queue.poll(1000)).containsExactlyElementsIn(urls(150, 250)).inOrder();
+    }
+  }
+
+  @Test
+  public void writesItsUrlsWithoutRemovingThem() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (SpillingUrlQueue queue = new SpillingUrlQueue(100, spillDirectory, 1024)) {
+      queue.addAll(urls(0, 1000));
+      // Leave the reader in the middle of a segment.
+      assertThat(queue.poll(150)).containsExactlyElementsIn(urls(0, 150)).inOrder();
+      try (DataOutputStream out = new DataOutputStream(bytes)) {
+        queue.writeTo(out);
+      }
+      assertThat(queue.size()).isEqualTo(850);
+      assertThat(queue.poll(1000)).containsExactlyElementsIn(urls(150, 1000)).inOrder();
+    }
+
+    try (SpillingUrlQueue queue = new SpillingUrlQueue(100, spillDirectory, 1024);
+         DataInputStream in =
+             new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      queue.readFrom(in, 850);
+      assertThat(in.read()).isEqualTo(-1);
+      assertThat(queue.poll(1000)).containsExactlyElementsIn(urls(150, 1000)).inOrder();
+    }
+  }
+
+  @Test
+  public void unboundedQueueKeepsConcurrentlyAddedUrlsInMemory() throws Exception {
+    try (SpillingUrlQueue queue = new SpillingUrlQueue(Integer.MAX_VALUE, spillDirectory, 1024)) {
+      List<Thread> threads = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        int thread = i;
+        threads.add(new Thread(() -> {
+          for (int from = thread * 1000; from < (thread + 1) * 1000; from += 10) {
+            queue.addAll(urls(from, from + 10));
+          }
+        }));
+      }
+      threads.forEach(Thread::start);
+      for (Thread thread : threads) {
+        thread.join();
+      }
+
+      assertThat(queue.size()).isEqualTo(4000);
+      assertThat(spilledFiles()).isEqualTo(0);
+      List<String> polled = new ArrayList<>(queue.poll(1000));
+      assertThat(polled).hasSize(1000);
+      assertThat(queue.size()).isEqualTo(3000);
+      polled.addAll(queue.poll());
+      assertThat(polled).containsExactlyElementsIn(urls(0, 4000));
+      assertThat(queue.size()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void closeDeletesSegments() throws IOException {
+    SpillingUrlQueue queue = new SpillingUrlQueue(1, spillDirectory, 1024);
+    queue.addAll(urls(0, 100));
+    queue.poll(10);
+    assertThat(spilledFiles()).isGreaterThan(0L);
+
+    queue.close();
+    assertThat(spilledFiles()).isEqualTo(0);
+    try (Stream<Path> files = Files.list(spillDirectory)) {
+      assertThat(files.count()).isEqualTo(0);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class UrlCanonicalizerTest {
+  private final UrlCanonicalizer canonicalizer =
+      new UrlCanonicalizer(List.of(Pattern.compile("utm_.*"), Pattern.compile("sessionid")));
+
+  @Test
+  public void lowercasesSchemeAndHost() {
+    assertThat(canonicalizer.canonicalize("HTTP://Example.COM/Path"))
+        .isEqualTo("http://example.com/Path");
+  }
+
+  @Test
+  public void dropsDefaultPortsAndFragments() {
+    assertThat(canonicalizer.canonicalize("http://example.com:80/a#section"))
+        .isEqualTo("http://example.com/a");
+    assertThat(canonicalizer.canonicalize("https://example.com:443/a"))
+        .isEqualTo("https://example.com/a");
+    assertThat(canonicalizer.canonicalize("https://example.com:8443/a"))
+        .isEqualTo("https://example.com:8443/a");
+  }
+
+  @Test
+  public void normalizesPaths() {
+    assertThat(canonicalizer.canonicalize("http://example.com/a/./b/../c"))
+        .isEqualTo("http://example.com/a/c");
+    assertThat(canonicalizer.canonicalize("http://example.com/../a"))
+        .isEqualTo("http://example.com/a");
+    assertThat(canonicalizer.canonicalize("http://example.com/a/../../b/../../c"))
+        .isEqualTo("http://example.com/c");
+    assertThat(canonicalizer.canonicalize("http://example.com/.."))
+        .isEqualTo("http://example.com/");
+    assertThat(canonicalizer.canonicalize("http://example.com"))
+        .isEqualTo("http://example.com/");
+    assertThat(canonicalizer.canonicalize("http://example.com/a%20b"))
+        .isEqualTo("http://example.com/a%20b");
+  }
+
+  @Test
+  public void stripsConfiguredQueryParameters() {
+    assertThat(canonicalizer.canonicalize("http://example.com/?utm_source=x&id=1&sessionid=2"))
+        .isEqualTo("http://example.com/?id=1");
+    assertThat(canonicalizer.canonicalize("http://example.com/?utm_source=x"))
+        .isEqualTo("http://example.com/");
+    assertThat(canonicalizer.canonicalize("http://example.com/?q=utm_source"))
+        .isEqualTo("http://example.com/?q=utm_source");
+  }
+
+  @Test
+  public void leavesOtherUrlsAlone() {
+    assertThat(canonicalizer.canonicalize("mailto:someone@example.com"))
+        .isEqualTo("mailto:someone@example.com");
+    assertThat(canonicalizer.canonicalize("not a url")).isEqualTo("not a url");
+    assertThat(canonicalizer.canonicalize("file:///tmp/a/../b.html#x"))
+        .isEqualTo("file:/tmp/b.html");
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import com.google.inject.Guice;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class VirtualThreadWebCrawlerTest {
+  private final PageParserFactory parserFactory =
+      Guice.createInjector(
+              new WebCrawlerModule(new CrawlerConfiguration.Builder().build()),
+              new NoOpProfilerModule())
+          .getInstance(PageParserFactory.class);
+
+  @Test
+  public void startsNoMoreThreadsThanDownloadsAllowed() throws Exception {
+    int maxInFlightRequests = 4;
+    int linkCount = 50;
+    CountDownLatch downloading = new CountDownLatch(maxInFlightRequests);
+    CountDownLatch release = new CountDownLatch(1);
+    HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.setExecutor(Executors.newCachedThreadPool());
+    StringBuilder links = new StringBuilder();
+    for (int i = 0; i < linkCount; i++) {
+      links.append("<a href=\"/page-").append(i).append(".html\">link</a>");
+    }
+    String startPage = links.toString();
+    server.createContext("/start.html", exchange -> send(exchange, startPage));
+    server.createContext("/page-", exchange -> {
+      downloading.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      send(exchange, "<p>page</p>");
+    });
+    server.start();
+
+    // Every thread of the crawl marks its URL as visited as soon as it starts.
+    AtomicInteger startedPages = new AtomicInteger();
+    VirtualThreadWebCrawler crawler = new VirtualThreadWebCrawler(
+        Clock.systemUTC(),
+        parserFactory,
+        Duration.ofMinutes(1),
+        10,
+        2,
+        new IgnoredUrlMatcher(List.of()),
+        new UrlCanonicalizer(List.of()),
+        maxInFlightRequests,
+        () -> new CountingVisitedUrlSet(startedPages),
+        ConcurrentWordCountAggregator::new,
+        () -> new NearDuplicateDetector(0, true),
+        () -> new SpillingUrlQueue(Integer.MAX_VALUE, Path.of("")));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/start.html";
+      Future<CrawlResult> result = executor.submit(() -> crawler.crawl(List.of(url)));
+      assertThat(downloading.await(10, TimeUnit.SECONDS)).isTrue();
+      // Give the crawl time to start any thread it should not.
+      Thread.sleep(200);
+      assertThat(startedPages.get()).isEqualTo(1 + maxInFlightRequests);
+
+      release.countDown();
+      assertThat(result.get(30, TimeUnit.SECONDS).getUrlsVisited()).isEqualTo(1 + linkCount);
+    } finally {
+      release.countDown();
+      executor.shutdown();
+      server.stop(0);
+    }
+  }
+
+  private static void send(HttpExchange exchange, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  /**
+   * A visited set that counts the URLs added to it.
+   */
+  private static final class CountingVisitedUrlSet implements VisitedUrlSet {
+    private final VisitedUrlSet urls = new ConcurrentVisitedUrlSet();
+    private final AtomicInteger added;
+
+    CountingVisitedUrlSet(AtomicInteger added) {
+      this.added = added;
+    }
+
+    @Override
+    public boolean add(String url) {
+      added.incrementAndGet();
+      return urls.add(url);
+    }
+
+    @Override
+    public boolean contains(String url) {
+      return urls.contains(url);
+    }
+
+    @Override
+    public int size() {
+      return urls.size();
+    }
+
+    @Override
+    public void writeTo(DataOutputStream out) throws IOException {
+      urls.writeTo(out);
+    }
+
+    @Override
+    public void readFrom(DataInputStream in) throws IOException {
+      urls.readFrom(in);
+    }
+
+    @Override
+    public void close() {
+      urls.close();
+    }
+  }
+}
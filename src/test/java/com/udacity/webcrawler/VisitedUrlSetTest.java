@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class VisitedUrlSetTest {
+
+  static Stream<Supplier<VisitedUrlSet>> provideVisitedUrlSets() {
+    return Stream.of(
+        ConcurrentVisitedUrlSet::new,
+        () -> new FingerprintVisitedUrlSet(0),
+        () -> new BloomFilterVisitedUrlSet(new FingerprintVisitedUrlSet(0), 0),
+        () -> new BloomFilterVisitedUrlSet(new ConcurrentVisitedUrlSet(), 0),
+        () -> new ShardedVisitedUrlSet(
+            List.of(new ConcurrentVisitedUrlSet(), new FingerprintVisitedUrlSet(0))));
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideVisitedUrlSets")
+  public void addsEachUrlOnce(Supplier<VisitedUrlSet> visitedUrlSets) {
+    try (VisitedUrlSet visitedUrls = visitedUrlSets.get()) {
+      assertThat(visitedUrls.contains("http://example.com/")).isFalse();
+      assertThat(visitedUrls.add("http://example.com/")).isTrue();
+      assertThat(visitedUrls.add("http://example.com/")).isFalse();
+      assertThat(visitedUrls.add("http://example.com/a")).isTrue();
+      assertThat(visitedUrls.contains("http://example.com/")).isTrue();
+      assertThat(visitedUrls.contains("http://example.com/b")).isFalse();
+      assertThat(visitedUrls.size()).isEqualTo(2);
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideVisitedUrlSets")
+  public void growsPastItsInitialCapacity(Supplier<VisitedUrlSet> visitedUrlSets) {
+    try (VisitedUrlSet visitedUrls = visitedUrlSets.get()) {
+      for (int i = 0; i < 100_000; i++) {
+        assertThat(visitedUrls.add("http://example.com/" + i)).isTrue();
+      }
+      for (int i = 0; i < 100_000; i++) {
+        assertThat(visitedUrls.contains("http://example.com/" + i)).isTrue();
+        assertThat(visitedUrls.add("http://example.com/" + i)).isFalse();
+      }
+      assertThat(visitedUrls.contains("http://example.com/-1")).isFalse();
+      assertThat(visitedUrls.size()).isEqualTo(100_000);
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideVisitedUrlSets")
+  public void readsBackWhatItWrote(Supplier<VisitedUrlSet> visitedUrlSets) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (VisitedUrlSet visitedUrls = visitedUrlSets.get()) {
+      for (int i = 0; i < 10_000; i++) {
+        visitedUrls.add("http://example.com/" + i);
+      }
+      try (DataOutputStream out = new DataOutputStream(bytes)) {
+        visitedUrls.writeTo(out);
+      }
+    }
+
+    try (VisitedUrlSet visitedUrls = visitedUrlSets.get();
+         DataInputStream in =
+             new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      visitedUrls.readFrom(in);
+      assertThat(in.read()).isEqualTo(-1);
+      assertThat(visitedUrls.size()).isEqualTo(10_000);
+      for (int i = 0; i < 10_000; i++) {
+        assertThat(visitedUrls.contains("http://example.com/" + i)).isTrue();
+      }
+      assertThat(visitedUrls.add("http://example.com/-1")).isTrue();
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideVisitedUrlSets")
+  public void concurrentAddsAreCountedExactlyOnce(Supplier<VisitedUrlSet> visitedUrlSets)
+      throws Exception {
+    int threads = 8;
+    int urls = 50_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try (VisitedUrlSet visitedUrls = visitedUrlSets.get()) {
+      List<Future<Integer>> added = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        // Every thread adds the same URLs, starting at a different offset.
+        int offset = t * urls / threads;
+        added.add(executor.submit(() -> {
+          int count = 0;
+          for (int i = 0; i < urls; i++) {
+            if (visitedUrls.add("http://example.com/" + ((i + offset) % urls))) {
+              count++;
+            }
+          }
+          return count;
+        }));
+      }
+      int total = 0;
+      for (Future<Integer> count : added) {
+        total += count.get();
+      }
+      assertThat(total).isEqualTo(urls);
+      assertThat(visitedUrls.size()).isEqualTo(urls);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -57,6 +57,8 @@ public final class WebCrawlerTest {
     static Stream<Class<?>> provideTestParameters() {
         List<Class<?>> classes = new ArrayList<>();
         classes.add(SequentialWebCrawler.class);
+        classes.add(ParallelWebCrawler.class);
+        classes.add(VirtualThreadWebCrawler.class);
         return classes.stream();
     }
 
@@ -84,6 +86,18 @@ public final class WebCrawlerTest {
         assertThat(crawler.getClass()).isAssignableTo(ParallelWebCrawler.class);
     }
 
+    @Test
+    public void testOverrideToVirtualThread() {
+        CrawlerConfiguration config =
+                new CrawlerConfiguration.Builder()
+                        .setImplementationOverride(VirtualThreadWebCrawler.class.getName())
+                        .setParallelism(12)
+                        .build();
+        Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+                .injectMembers(this);
+        assertThat(crawler.getClass()).isAssignableTo(VirtualThreadWebCrawler.class);
+    }
+
     @Test
     public void testSequentialParallelism() {
         CrawlerConfiguration config =
@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.udacity.webcrawler;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.WordDictionary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class WordCountAggregatorTest {
+
+  static Stream<Supplier<WordCountAggregator>> provideAggregators() {
+    return Stream.of(
+        ConcurrentWordCountAggregator::new,
+        ThreadLocalWordCountAggregator::new,
+        () -> new RunningTopWordsAggregator(3),
+        () -> new WordIdCountAggregator(new WordDictionary()),
+        // Room for every word of these tests, which it then counts exactly.
+        () -> new HeavyHitterWordCountAggregator(0.001, 3));
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideAggregators")
+  public void addsUpPages(Supplier<WordCountAggregator> aggregators) {
+    try (WordCountAggregator aggregator = aggregators.get()) {
+      aggregator.add(Map.of("the", 2, "quick", 1));
+      aggregator.add(Map.of("the", 1, "fox", 1));
+      assertThat(aggregator.getCounts()).containsExactly("the", 3, "quick", 1, "fox", 1);
+      // Asking twice must not count anything twice.
+      assertThat(aggregator.getCounts()).containsExactly("the", 3, "quick", 1, "fox", 1);
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideAggregators")
+  public void countsPagesAddedAfterGetCounts(Supplier<WordCountAggregator> aggregators) {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try (WordCountAggregator aggregator = aggregators.get()) {
+      pool.submit(() -> IntStream.range(0, 1_000).parallel().forEach(page ->
+          aggregator.add(Map.of("word", 1)))).join();
+      assertThat(aggregator.getCounts()).containsExactly("word", 1_000);
+
+      // A checkpoint reads the counts between two batches, and the crawl then goes on.
+      pool.submit(() -> IntStream.range(0, 1_000).parallel().forEach(page ->
+          aggregator.add(Map.of("word", 1)))).join();
+      assertThat(aggregator.getCounts()).containsExactly("word", 2_000);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideAggregators")
+  public void ranksThePopularWords(Supplier<WordCountAggregator> aggregators) {
+    ForkJoinPool pool = new ForkJoinPool(8);
+    try (WordCountAggregator aggregator = aggregators.get()) {
+      pool.submit(() -> IntStream.range(0, 10_000).parallel().forEach(page ->
+          aggregator.add(Map.of("w" + (page % 7), 1, "word" + (page % 13), 1, "x", page % 2)))).join();
+
+      // x (5000), then the words w0 to w3 (1429 each), which only their alphabetical order
+      // separates from each other.
+      assertThat(aggregator.getPopularWords(3).entrySet())
+          .containsExactly(Map.entry("x", 5_000), Map.entry("w0", 1_429), Map.entry("w1", 1_429))
+          .inOrder();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideAggregators")
+  public void emptyAggregatorHasNoCounts(Supplier<WordCountAggregator> aggregators) {
+    try (WordCountAggregator aggregator = aggregators.get()) {
+      assertThat(aggregator.getCounts()).isEmpty();
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideAggregators")
+  public void concurrentPagesAreAllCounted(Supplier<WordCountAggregator> aggregators) {
+    ForkJoinPool pool = new ForkJoinPool(8);
+    try (WordCountAggregator aggregator = aggregators.get()) {
+      pool.submit(() -> IntStream.range(0, 10_000).parallel().forEach(page ->
+          aggregator.add(Map.of("common", 1, "word" + (page % 100), 2)))).join();
+
+      Map<String, Integer> counts = aggregator.getCounts();
+      assertThat(counts).hasSize(101);
+      assertThat(counts).containsEntry("common", 10_000);
+      for (int i = 0; i < 100; i++) {
+        assertThat(counts).containsEntry("word" + i, 200);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void threadPerPageCrawlersDoNotCountPerThread() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder().setWordCountAggregation("threadLocal").build();
+    Injector injector =
+        Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule());
+
+    try (WordCountAggregator perThread = injector.getInstance(WordCountAggregator.class);
+         WordCountAggregator threadPerPage =
+             injector.getInstance(Key.get(WordCountAggregator.class, ThreadPerPage.class))) {
+      assertThat(perThread).isInstanceOf(ThreadLocalWordCountAggregator.class);
+      assertThat(threadPerPage).isInstanceOf(ConcurrentWordCountAggregator.class);
+    }
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares selecting the popular words with {@link WordCounts#sort(Map, int)} with sorting all the
+ * words and keeping the first ones, for maps whose counts follow the long tail of real text.
+ *
+ * <p>Run with {@code mvn test-compile exec:exec -Dbenchmark=WordCounts}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WordCountsBenchmark {
+  @Param({"10000", "1000000"})
+  public int words;
+
+  @Param({"10", "100", "1000"})
+  public int popularWordCount;
+
+  private Map<String, Integer> wordCounts;
+
+  @Setup
+  public void setUp() {
+    // Roughly Zipf distributed: the count of a word is inversely proportional to its rank.
+    Random random = new Random(42);
+    wordCounts = new HashMap<>();
+    for (int rank = 1; rank <= words; rank++) {
+      String word = Long.toString(random.nextLong() >>> 20, 36);
+      wordCounts.put(word, Math.max(1, 10_000_000 / rank));
+    }
+  }
+
+  @Benchmark
+  public Map<String, Integer> sortAllWords() {
+    return wordCounts.entrySet()
+        .stream()
+        .sorted(new WordCounts.WordCountComparator())
+        .limit(Math.min(popularWordCount, wordCounts.size()))
+        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (u, v) -> u,
+            LinkedHashMap::new));
+  }
+
+  @Benchmark
+  public Map<String, Integer> topWordsHeap() {
+    return WordCounts.sort(wordCounts, popularWordCount);
+  }
+}
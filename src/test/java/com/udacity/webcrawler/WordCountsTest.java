@@ -27,7 +27,10 @@ package com.udacity.webcrawler;
 import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
 
 import static com.google.common.truth.Truth.assertWithMessage;
 
@@ -106,4 +109,31 @@ public final class WordCountsTest {
             Map.entry("quick", 1),
             Map.entry("fox", 1))
         .inOrder();  }
+
+  @Test
+  public void testSameOrderAsSortingAllWords() {
+    // Few distinct counts and lengths, so that most words only differ alphabetically. The largest
+    // map is selected from in parallel.
+    Random random = new Random(7);
+    for (int size : new int[] {1, 10, 1_000, 100_000}) {
+      Map<String, Integer> unsortedCounts = new HashMap<>();
+      while (unsortedCounts.size() < size) {
+        String word = Integer.toString(random.nextInt(size * 4), 36);
+        unsortedCounts.put(word, random.nextInt(20));
+      }
+      for (int popularWordCount : new int[] {1, 5, 100, size + 1}) {
+        Map<String, Integer> expected = unsortedCounts.entrySet()
+            .stream()
+            .sorted(new WordCounts.WordCountComparator())
+            .limit(popularWordCount)
+            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (u, v) -> u,
+                LinkedHashMap::new));
+
+        assertWithMessage("Wrong popular words among %s words for %s", size, popularWordCount)
+            .that(WordCounts.sort(unsortedCounts, popularWordCount).entrySet())
+            .containsExactlyElementsIn(expected.entrySet())
+            .inOrder();
+      }
+    }
+  }
 }
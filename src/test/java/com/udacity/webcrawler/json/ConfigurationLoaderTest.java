@@ -32,6 +32,7 @@ import java.io.StringReader;
 import java.time.Duration;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public final class ConfigurationLoaderTest {
@@ -102,4 +103,18 @@ public final class ConfigurationLoaderTest {
     assertThat(config.getProfileOutputPath()).isEmpty();
     assertThat(config.getResultPath()).isEmpty();
   }
+
+  @Test
+  public void testWordCountAggregation() {
+    for (String aggregation : new String[] {"wordIds", "concurrent", "threadLocal"}) {
+      String json = "{ \"wordCountAggregation\": \"" + aggregation + "\" }";
+
+      CrawlerConfiguration config = ConfigurationLoader.read(new StringReader(json));
+
+      assertThat(config.getWordCountAggregation()).isEqualTo(aggregation);
+    }
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new CrawlerConfiguration.Builder().setWordCountAggregation("shared").build());
+  }
 }
\ No newline at end of file
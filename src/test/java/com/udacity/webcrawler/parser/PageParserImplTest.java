@@ -28,12 +28,22 @@
 
 package com.udacity.webcrawler.parser;
 
+import com.sun.net.httpserver.HttpServer;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import static com.google.common.truth.Truth.assertThat;
@@ -74,4 +84,152 @@ public final class PageParserImplTest {
         assertThat(result.getWordCounts()).containsEntry("over", 1);
         assertThat(result.getWordCounts()).containsEntry("lazy", 1);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void parsingFetchedPage() throws Exception {
+        FetchedPage page = new FetchedPage(
+                testPage, Files.readAllBytes(Paths.get(DATA_DIR, "test-page.html")), null);
+        PageParser.Result fetched = new PageParserImpl(page, List.of()).parse();
+        PageParser.Result downloaded = new PageParserImpl(testPage, Duration.ZERO, List.of()).parse();
+        assertThat(fetched.getLinks()).isEqualTo(downloaded.getLinks());
+        assertThat(fetched.getWordCounts()).isEqualTo(downloaded.getWordCounts());
+    }
+
+    @Test
+    public void parsingPastTheDeadline() throws Exception {
+        Clock clock = Clock.systemUTC();
+        Instant deadline = clock.instant().minusSeconds(1);
+        FetchedPage page = new FetchedPage(
+                testPage, Files.readAllBytes(Paths.get(DATA_DIR, "test-page.html")), null);
+
+        PageParser.Result fetched = new PageParserImpl(page, clock, deadline, List.of()).parse();
+        PageParser.Result downloaded =
+                new PageParserImpl(testPage, Duration.ofSeconds(1), clock, deadline, List.of()).parse();
+        assertThat(fetched.getLinks()).isEmpty();
+        assertThat(fetched.getWordCounts()).isEmpty();
+        assertThat(downloaded.getLinks()).isEmpty();
+        assertThat(downloaded.getWordCounts()).isEmpty();
+    }
+
+    /**
+     * Serves test-page.html with an ETag, and answers requests that send the ETag back with 304.
+     * Counts the responses that had a body.
+     */
+    private static HttpServer startServer(AtomicInteger fullResponses) throws Exception {
+        byte[] body = Files.readAllBytes(Paths.get(DATA_DIR, "test-page.html"));
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                fullResponses.incrementAndGet();
+                exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+                exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+
+    @Test
+    public void revalidatingCachedPages(@TempDir Path cacheDirectory) throws Exception {
+        AtomicInteger fullResponses = new AtomicInteger();
+        HttpServer server = startServer(fullResponses);
+        try {
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/test-page.html";
+            Clock clock = Clock.systemUTC();
+            Duration timeout = Duration.ofSeconds(5);
+            WordFilter noIgnoredWords = new WordFilter(List.of());
+            PageParser.Result first = new PageParserImpl(
+                    url, timeout, clock, Instant.MAX, new PageCache(cacheDirectory), noIgnoredWords)
+                    .parse();
+            assertThat(first.getWordCounts()).containsEntry("the", 2);
+            assertThat(fullResponses.get()).isEqualTo(1);
+
+            // A later crawl, with a new cache over the same directory, only revalidates the page.
+            PageParser.Result second = new PageParserImpl(
+                    url, timeout, clock, Instant.MAX, new PageCache(cacheDirectory), noIgnoredWords)
+                    .parse();
+            assertThat(fullResponses.get()).isEqualTo(1);
+            assertThat(second.getWordCounts()).isEqualTo(first.getWordCounts());
+            assertThat(second.getLinks()).isEqualTo(first.getLinks());
+
+            // The asynchronous fetcher revalidates the page the same way.
+            PageCache cache = new PageCache(cacheDirectory);
+            FetchedPage fetched = new HttpPageFetcher(timeout, clock, cache)
+                    .fetch(url, Instant.MAX)
+                    .get();
+            assertThat(fetched.isNotModified()).isTrue();
+            PageParser.Result third =
+                    new PageParserImpl(fetched, clock, Instant.MAX, cache, noIgnoredWords).parse();
+            assertThat(fullResponses.get()).isEqualTo(1);
+            assertThat(third.getWordCounts()).isEqualTo(first.getWordCounts());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void downloadingWithATimeoutLongerThanJsoupTakes() throws Exception {
+        HttpServer server = startServer(new AtomicInteger());
+        try {
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/test-page.html";
+            PageParser.Result result =
+                    new PageParserImpl(url, Duration.ofDays(30), List.of()).parse();
+            assertThat(result.getWordCounts()).containsEntry("the", 2);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void resolvingLinksOfRedirectedPages() throws Exception {
+        byte[] body = "<a href=\"linked.html\">relative</a>".getBytes(StandardCharsets.UTF_8);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            if (exchange.getRequestURI().getPath().equals("/old.html")) {
+                exchange.getResponseHeaders().set("Location", "/dir/page.html");
+                exchange.sendResponseHeaders(301, -1);
+            } else {
+                exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            String root = "http://127.0.0.1:" + server.getAddress().getPort();
+            Clock clock = Clock.systemUTC();
+            FetchedPage fetched =
+                    new HttpPageFetcher(Duration.ofSeconds(5), clock, PageCache.disabled())
+                            .fetch(root + "/old.html", Instant.MAX)
+                            .get();
+            assertThat(fetched.getUrl()).isEqualTo(root + "/old.html");
+            assertThat(fetched.getFinalUrl()).isEqualTo(root + "/dir/page.html");
+
+            // The link is relative to the page the server redirected to, not the one requested.
+            WordFilter noIgnoredWords = new WordFilter(List.of());
+            assertThat(new PageParserImpl(
+                    fetched, clock, Instant.MAX, PageCache.disabled(), noIgnoredWords)
+                    .parse()
+                    .getLinks())
+                    .containsExactly(root + "/dir/linked.html");
+            assertThat(new StreamingPageParser(
+                    fetched, clock, Instant.MAX, PageCache.disabled(), noIgnoredWords,
+                    new WordDictionary())
+                    .parse()
+                    .getLinks())
+                    .containsExactly(root + "/dir/linked.html");
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler.parser;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of parsing a downloaded page into a Jsoup document with that of reading it with
+ * the streaming lexer, for a page of nested paragraphs, links and a script. The download benchmarks
+ * also download the page from a local server, which the streaming parser reads as it arrives.
+ *
+ * <p>Run with {@code mvn test-compile exec:exec -Dbenchmark=StreamingPageParser}. The memory each
+ * parser allocates per page is reported by JMH's {@code -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamingPageParserBenchmark {
+    private static final String[] WORDS = {
+            "The", "crawler", "downloads", "pages,", "parses", "them", "and", "counts", "every",
+            "word;", "it", "follows", "links", "until", "the", "timeout", "expires", "&amp;"};
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final WordFilter ignoredWords = new WordFilter(List.of());
+    private final Clock clock = Clock.systemUTC();
+    private FetchedPage page;
+    private HttpServer server;
+    private String url;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        StringBuilder html = new StringBuilder(
+                "<!DOCTYPE html><html><head><title>A page</title>"
+                        + "<script>var x = '<p>not text</p>';</script></head><body>");
+        for (int i = 0; i < 2_000; i++) {
+            html.append("<div class=\"section\"><p>");
+            for (int word = 5 + random.nextInt(20); word > 0; word--) {
+                html.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            html.append("<a href=\"/page-").append(i).append(".html\">link</a></p></div>\n");
+        }
+        html.append("</body></html>");
+        byte[] body = html.toString().getBytes(StandardCharsets.UTF_8);
+        page = new FetchedPage("http://example.com/", body, "UTF-8");
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/page.html";
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Benchmark
+    public PageParser.Result jsoup() {
+        return new PageParserImpl(page, clock, Instant.MAX, PageCache.disabled(), ignoredWords)
+                .parse();
+    }
+
+    @Benchmark
+    public PageParser.Result streaming() {
+        return new StreamingPageParser(
+                page, clock, Instant.MAX, PageCache.disabled(), ignoredWords, new WordDictionary())
+                .parse();
+    }
+
+    @Benchmark
+    public PageParser.Result jsoupDownload() {
+        return new PageParserImpl(
+                url, TIMEOUT, clock, Instant.MAX, PageCache.disabled(), ignoredWords)
+                .parse();
+    }
+
+    @Benchmark
+    public PageParser.Result streamingDownload() {
+        return new StreamingPageParser(
+                url,
+                TIMEOUT,
+                clock,
+                Instant.MAX,
+                PageCache.disabled(),
+                ignoredWords,
+                new WordDictionary())
+                .parse();
+    }
+}
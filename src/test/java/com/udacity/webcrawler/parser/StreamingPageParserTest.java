@@ -0,0 +1,270 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler.parser;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+/**
+ * Checks that the {@link StreamingPageParser} finds the same words and hyperlinks as the
+ * {@link PageParserImpl}.
+ */
+public final class StreamingPageParserTest {
+    private static final String DATA_DIR = System.getProperty("user.dir") +
+            File.separator + "src"
+            + File.separator + "test"
+            + File.separator + "data";
+
+    private static final String PAGE_URL = "http://example.com/dir/page.html";
+
+    private static final WordFilter IGNORED_WORDS =
+            new WordFilter(List.of(Pattern.compile("^.{1,2}$")));
+
+    private static final List<String> SNIPPETS = List.of(
+            "",
+            "plain words, no markup",
+            "<!DOCTYPE html><html><head><title>The Title &amp; more</title></head>"
+                    + "<body><p>Hello, World!</p></body></html>",
+            "<P>Upper<B>case</B> TAGS</P><A HREF=\"upper.html\">link</A>",
+            "fish&amp;chips caf&eacute; &copy;2021 &#72;&#x45;llo &notanentity; &amp &ampere",
+            "non&nbsp;breaking&nbsp;space and\u00A0literal\u00A0ones",
+            "split<!-- a comment -->word and <!---->empty <!--->short<!-->shorter",
+            "bang<!-- comment --!>ended and <!-- never ended",
+            "<script>var hidden = '<p>words</p>';</script>shown"
+                    + "<style>p { color: red }</style>styled<SCRIPT>more</Script >after",
+            "<textarea>text &lt;b&gt; area</textarea><title>x</titled></title>",
+            "<xmp>raw &amp; <b>text</b></xmp><noembed>no &amp;embed</noembed>",
+            "<a href=relative.html>one</a><a href='../up.html'>two</a>"
+                    + "<a href=\"/root.html?q=1&amp;r=2\">three</a><a href=\"#fragment\">four</a>",
+            "<a href=\"https://other.example.org/x\">abs</a><a href=\"javascript:void(0)\">js</a>"
+                    + "<a href=\"mailto:someone@example.com\">mail</a><a href>empty</a><a>none</a>",
+            "<a href=one.html href=two.html>first wins</a><a\nhref = \"spaced.html\"\n>spaced</a>",
+            "<a href=x.html>before</a><base href=\"http://base.example.net/sub/\">"
+                    + "<base href=\"http://ignored.example.net/\"><a href=y.html>after</a>",
+            "<base href=\"\"><base href=\"other/\"><a href=z.html>relative base</a>",
+            "<![CDATA[cdata  section & text]]>after<![CDATA[unterminated",
+            "a < b and c<d and <3 and </ and </> x </9 bogus> y <? pi ?> z <!bogus>",
+            "trailing <a href=\"unterminated.html\" ",
+            "<p title=\"quoted > bracket\">attribute</p><p title=unquoted>value</p>",
+            "<img alt=\"a picture\"><br/>self<br />closing<input value=x>",
+            "<a<b href=nested.html>odd</b></a><p <a href=lt.html>lt</a><p foo <a href=no.html>",
+            "one</>run &am</>p; and &amp</>;",
+            "&#x80;&#128;x&#xD800;y&#99999999999;z&#1114112;&#X41;&#;&#x;&amp1&notin;&not",
+            "<a href=\"a&amp-b&lt=c&copy_d&gt.html\">attribute</a>&NotEqualTilde;end",
+            "<script><!--<script>x</script>hidden</script>shown<script><!--<SCRIPT></script>too",
+            "<script><!--x--><script>y</script>shown<style><!--</style>styled",
+            "<title>unfinished</title",
+            "<title>unclosed <b>title</b>",
+            "<textarea>closed <b>later</b></TEXTAREA>after",
+            "<plaintext><b>everything</b> &amp; after is text");
+
+    /**
+     * Pieces of markup and text that random pages are made of. They leave out the {@code base} tag,
+     * since Jsoup resolves the links of the {@code a} elements it clones while fixing misnested
+     * markup against the base URI at the time, so that a later {@code base} tag can give an extra
+     * link.
+     */
+    private static final String[] PIECES = {
+            "word", "Other", "caf\u00E9", "x", "I", " ", "\n", "\u00A0", "-", ".", "&amp;", "&lt;",
+            "&nbsp;", "&eacute", "&#65;", "&bogus;", "&", "<", ">", "'", "\"", "=", "/",
+            "<p>", "</p>", "<b>", "</b>", "<div class=c>", "</div>", "<br>", "<!-- c -->",
+            "<!--", "-->", "<a href=\"l.html\">", "<a href=l2.html>", "<a href='../l3.html'>",
+            "</a>", "<script>", "</script>",
+            "<style>", "</style>", "<title>", "</title>", "<textarea>", "</textarea>",
+            "<![CDATA[", "]]>", "<!DOCTYPE html>", "<?pi?>", "<h1>", "</h1>", "<ul><li>", "</li>",
+            "<span title='t'>", "</span>", "<em>", "</em>"};
+
+    @Test
+    public void testDataFiles() throws Exception {
+        List<Path> files;
+        try (Stream<Path> paths = Files.list(Paths.get(DATA_DIR))) {
+            files = paths.sorted().collect(Collectors.toList());
+        }
+        assertThat(files).isNotEmpty();
+        for (Path file : files) {
+            String url = file.toUri().toString();
+            assertSameResult(
+                    url,
+                    new PageParserImpl(url, Duration.ZERO, List.of()).parse(),
+                    streamingParser(url).parse());
+            FetchedPage page = new FetchedPage(url, Files.readAllBytes(file), null);
+            assertSameResult(
+                    url, jsoupParser(page).parse(), streamingParser(page).parse());
+        }
+    }
+
+    @Test
+    public void snippets() {
+        for (String snippet : SNIPPETS) {
+            assertSameResult(snippet, fetchedPage(snippet, "UTF-8"));
+        }
+    }
+
+    @Test
+    public void randomPages() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder html = new StringBuilder();
+            int pieces = random.nextInt(40);
+            for (int j = 0; j < pieces; j++) {
+                html.append(PIECES[random.nextInt(PIECES.length)]);
+            }
+            assertSameResult(html.toString(), fetchedPage(html.toString(), "UTF-8"));
+        }
+    }
+
+    @Test
+    public void characterSets() {
+        String text = "caf\u00E9 na\u00EFve \u00FCber plain";
+        byte[] latin1 =
+                ("<meta charset=\"ISO-8859-1\"><p>" + text).getBytes(StandardCharsets.ISO_8859_1);
+        byte[] contentType = ("<meta http-equiv=\"Content-Type\" content=\"text/html; "
+                + "charset=windows-1252\"><p>" + text).getBytes(StandardCharsets.ISO_8859_1);
+        byte[] xml = ("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><p>" + text)
+                .getBytes(StandardCharsets.ISO_8859_1);
+        byte[] bom = ("\uFEFF<p>" + text).getBytes(StandardCharsets.UTF_8);
+        byte[] utf16 = ("\uFEFF<p>" + text).getBytes(StandardCharsets.UTF_16BE);
+        byte[] firstMeta = ("<meta charset=bogus><meta charset=utf-16><p>" + text)
+                .getBytes(StandardCharsets.ISO_8859_1);
+        byte[] lateXml = ("</b><!DOCTYPE html><?xml encoding=\"UTF-16\"?><p>" + text)
+                .getBytes(StandardCharsets.ISO_8859_1);
+        for (byte[] content : List.of(latin1, contentType, xml, bom, utf16, firstMeta, lateXml)) {
+            for (String charset : new String[]{null, "UTF-8", "ISO-8859-1", "no-such-charset"}) {
+                FetchedPage page = new FetchedPage(PAGE_URL, content, charset);
+                assertSameResult(
+                        new String(content, StandardCharsets.ISO_8859_1) + " as " + charset, page);
+            }
+        }
+        FetchedPage page = new FetchedPage(PAGE_URL, utf16, null);
+        assertThat(streamingParser(page).parse().getWordCounts()).containsEntry("plain", 1);
+    }
+
+    @Test
+    public void remotePage() throws Exception {
+        byte[] body = ("<base href=\"sub/\"><a href=\"linked.html\">remote page</a>")
+                .getBytes(StandardCharsets.UTF_8);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        try {
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/dir/page.html";
+            Clock clock = Clock.systemUTC();
+            Duration timeout = Duration.ofSeconds(5);
+            PageParser.Result expected = new PageParserImpl(
+                    url, timeout, clock, Instant.MAX, PageCache.disabled(), IGNORED_WORDS).parse();
+            PageParser.Result actual = new StreamingPageParser(
+                    url, timeout, clock, Instant.MAX, PageCache.disabled(), IGNORED_WORDS,
+                    new WordDictionary()).parse();
+            assertSameResult(url, expected, actual);
+            assertThat(actual.getLinks()).containsExactly(
+                    "http://127.0.0.1:" + server.getAddress().getPort() + "/dir/sub/linked.html");
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void parsingPastTheDeadline() {
+        Clock clock = Clock.systemUTC();
+        PageParser.Result result = new StreamingPageParser(
+                fetchedPage("<p>too late</p>", "UTF-8"),
+                clock,
+                clock.instant().minusSeconds(1),
+                PageCache.disabled(),
+                IGNORED_WORDS,
+                new WordDictionary()).parse();
+        assertThat(result.getWordCounts()).isEmpty();
+        assertThat(result.getLinks()).isEmpty();
+    }
+
+    private static FetchedPage fetchedPage(String html, String charset) {
+        return new FetchedPage(PAGE_URL, html.getBytes(StandardCharsets.UTF_8), charset);
+    }
+
+    private static PageParser jsoupParser(FetchedPage page) {
+        return new PageParserImpl(
+                page, Clock.systemUTC(), Instant.MAX, PageCache.disabled(), IGNORED_WORDS);
+    }
+
+    private static PageParser streamingParser(FetchedPage page) {
+        return new StreamingPageParser(
+                page,
+                Clock.systemUTC(),
+                Instant.MAX,
+                PageCache.disabled(),
+                IGNORED_WORDS,
+                new WordDictionary());
+    }
+
+    private static PageParser streamingParser(String url) {
+        return new StreamingPageParser(
+                url,
+                Duration.ZERO,
+                Clock.systemUTC(),
+                Instant.MAX,
+                PageCache.disabled(),
+                new WordFilter(List.of()),
+                new WordDictionary());
+    }
+
+    private static void assertSameResult(String html, FetchedPage page) {
+        assertSameResult(html, jsoupParser(page).parse(), streamingParser(page).parse());
+    }
+
+    private static void assertSameResult(
+            String page, PageParser.Result expected, PageParser.Result actual) {
+        assertWithMessage("words of %s", page)
+                .that(actual.getWordCounts())
+                .containsExactlyEntriesIn(expected.getWordCounts());
+        assertWithMessage("links of %s", page)
+                .that(Set.copyOf(actual.getLinks()))
+                .isEqualTo(Set.copyOf(expected.getLinks()));
+    }
+}
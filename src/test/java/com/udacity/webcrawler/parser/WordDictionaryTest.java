@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class WordDictionaryTest {
+
+    @Test
+    public void givesEveryWordOneDenseId() {
+        WordDictionary dictionary = new WordDictionary();
+        Map<String, Integer> ids = new ConcurrentHashMap<>();
+        // Every word is looked up by several threads at once.
+        IntStream.range(0, 40_000).parallel().forEach(i -> {
+            String word = "word" + (i % 10_000);
+            int id = dictionary.idOf(word);
+            Integer previous = ids.putIfAbsent(word, id);
+            assertThat(previous == null ? id : previous).isEqualTo(id);
+        });
+
+        assertThat(dictionary.size()).isEqualTo(10_000);
+        assertThat(ids.values()).containsExactlyElementsIn(
+                IntStream.range(0, 10_000).boxed().toArray());
+        ids.forEach((word, id) -> assertThat(dictionary.wordOf(id)).isEqualTo(word));
+    }
+
+    @Test
+    public void resultsCountWordsById() {
+        WordDictionary dictionary = new WordDictionary();
+        int foxId = dictionary.idOf("fox");
+        PageParser.Result.Builder builder = new PageParser.Result.Builder(dictionary);
+        builder.addWord("the");
+        builder.addWord("fox");
+        builder.addWord("the");
+        builder.addWord("dog", 3);
+        PageParser.Result result = builder.build();
+
+        assertThat(result.getWordDictionary()).isSameInstanceAs(dictionary);
+        assertThat(result.getWordCounts()).containsExactly("the", 2, "fox", 1, "dog", 3);
+        Map<Integer, Integer> countsById = new HashMap<>();
+        result.getWordIds().forEach(countsById::put);
+        assertThat(countsById).containsExactly(
+                dictionary.idOf("the"), 2, foxId, 1, dictionary.idOf("dog"), 3);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler.parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the per-word cost of {@link WordFilter} with the stream over every ignored word pattern
+ * that the parser used to run, for a stop word list and a length rule.
+ *
+ * <p>Run with {@code mvn test-compile exec:exec -Dbenchmark=WordFilter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(WordFilterBenchmark.WORDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WordFilterBenchmark {
+    static final int WORDS = 1_000;
+
+    private static final String[] STOP_WORDS = {
+            "about", "above", "after", "again", "against", "all", "and", "any", "because", "been",
+            "before", "being", "below", "between", "both", "but", "could", "did", "does", "doing",
+            "down", "during", "each", "few", "for", "from", "further", "had", "has", "have",
+            "having", "her", "here", "hers", "herself", "him", "himself", "his", "how", "into",
+            "its", "itself", "more", "most", "myself", "nor", "not", "off", "once", "only",
+            "other", "ought", "our", "ours", "ourselves", "out", "over", "own", "same", "she",
+            "should", "some", "such", "than", "that", "the", "their", "theirs", "them",
+            "themselves", "then", "there", "these", "they", "this", "those", "through", "too",
+            "under", "until", "very", "was", "were", "what", "when", "where", "which", "while",
+            "who", "whom", "why", "with", "would", "you", "your", "yours", "yourself"};
+
+    private List<Pattern> patterns;
+    private WordFilter filter;
+    private String[] words;
+
+    @Setup
+    public void setUp() {
+        patterns = new ArrayList<>();
+        for (String stopWord : STOP_WORDS) {
+            patterns.add(Pattern.compile(stopWord));
+        }
+        patterns.add(Pattern.compile("^.{1,3}$"));
+        patterns.add(Pattern.compile("\\d+"));
+        filter = new WordFilter(patterns);
+
+        Random random = new Random(42);
+        words = new String[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            words[i] = random.nextInt(3) == 0
+                    ? STOP_WORDS[random.nextInt(STOP_WORDS.length)]
+                    : "word" + random.nextInt(10_000);
+        }
+    }
+
+    @Benchmark
+    public int patternStream() {
+        int ignored = 0;
+        for (String word : words) {
+            if (!patterns.stream().noneMatch(p -> p.matcher(word).matches())) {
+                ignored++;
+            }
+        }
+        return ignored;
+    }
+
+    @Benchmark
+    public int wordFilter() {
+        int ignored = 0;
+        for (String word : words) {
+            if (filter.isIgnored(word)) {
+                ignored++;
+            }
+        }
+        return ignored;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class WordFilterTest {
+
+    private static List<Pattern> compile(String... regexes) {
+        return Stream.of(regexes).map(Pattern::compile).collect(Collectors.toList());
+    }
+
+    @Test
+    public void ignoresLiteralAndLengthRules() {
+        WordFilter filter = new WordFilter(compile("the", "^and$", "\\Qc++\\E", "^.{1,2}$", "....."));
+
+        assertThat(filter.isIgnored("the")).isTrue();
+        assertThat(filter.isIgnored("then")).isFalse();
+        assertThat(filter.isIgnored("and")).isTrue();
+        assertThat(filter.isIgnored("c++")).isTrue();
+        assertThat(filter.isIgnored("of")).isTrue();
+        assertThat(filter.isIgnored("fox")).isFalse();
+        assertThat(filter.isIgnored("quick")).isTrue();
+        assertThat(filter.isIgnored("jumped")).isFalse();
+        // A supplementary character is a single code point.
+        assertThat(filter.isIgnored("🦊🦊")).isTrue();
+        // . does not match a line terminator.
+        assertThat(filter.isIgnored("a\u2028")).isFalse();
+    }
+
+    @Test
+    public void ignoresCombinedRegexes() {
+        WordFilter filter = new WordFilter(compile("(?i)[0-9a-f]+", "\\d+th", "(\\w)\\1+"));
+
+        assertThat(filter.isIgnored("CAFE")).isTrue();
+        assertThat(filter.isIgnored("12th")).isTrue();
+        assertThat(filter.isIgnored("12TH")).isFalse();
+        assertThat(filter.isIgnored("zzz")).isTrue();
+        assertThat(filter.isIgnored("zzy")).isFalse();
+    }
+
+    @Test
+    public void agreesWithThePatternLoop() {
+        List<Pattern> patterns = compile(
+            "the", "a", "an", "^and$", "^.{1,3}$", ".{9,}", "\\d+", "[xyz].*", "(?i)stop");
+        WordFilter filter = new WordFilter(patterns);
+
+        String alphabet = "abcdestxyz019STOPé";
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int j = random.nextInt(12); j >= 0; j--) {
+                word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String candidate = word.toString();
+            boolean expected = patterns.stream().anyMatch(p -> p.matcher(candidate).matches());
+            assertThat(filter.isIgnored(candidate)).isEqualTo(expected);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler.parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the per-text-node cost of {@link WordTokenizer} with the regular expression pipeline
+ * that the parser used to run on the text of every node, for prose with punctuation.
+ *
+ * <p>Run with {@code mvn test-compile exec:exec -Dbenchmark=WordTokenizer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(WordTokenizerBenchmark.TEXTS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WordTokenizerBenchmark {
+    static final int TEXTS = 1_000;
+
+    private static final String[] WORDS = {
+            "The", "crawler", "downloads", "pages,", "parses", "them", "and", "counts", "every",
+            "word;", "it", "follows", "links", "(up", "to", "a", "maximum", "depth)", "until",
+            "the", "timeout", "expires.", "Words", "like", "don't", "and", "state-of-the-art",
+            "are", "counted", "too", "--", "as", "are", "numbers", "such", "as", "2021."};
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NON_WORD_CHARACTERS = Pattern.compile("\\W");
+
+    private final WordFilter ignoredWords = new WordFilter(List.of());
+    private String[] texts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        texts = new String[TEXTS];
+        for (int i = 0; i < TEXTS; i++) {
+            StringBuilder text = new StringBuilder(" ");
+            for (int word = 5 + random.nextInt(40); word > 0; word--) {
+                text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            texts[i] = text.toString();
+        }
+    }
+
+    @Benchmark
+    public void regexPipeline(Blackhole words) {
+        for (String text : texts) {
+            Arrays.stream(WHITESPACE.split(text.strip()))
+                    .filter(s -> !s.isBlank())
+                    .filter(s -> !ignoredWords.isIgnored(s))
+                    .map(s -> NON_WORD_CHARACTERS.matcher(s).replaceAll(""))
+                    .map(String::toLowerCase)
+                    .forEach(words::consume);
+        }
+    }
+
+    @Benchmark
+    public void tokenizer(Blackhole words) {
+        WordTokenizer tokenizer = new WordTokenizer(ignoredWords);
+        for (String text : texts) {
+            tokenizer.tokenize(text, words::consume);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Xi Chen
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class WordTokenizerTest {
+
+    /**
+     * Characters that each take a different path through the original pipeline: word characters,
+     * \s separators, other whitespace that strip() and isBlank() know about, the non-breaking space
+     * that neither does, punctuation, letters outside ASCII, a surrogate pair and a capital I.
+     */
+    private static final String[] PIECES = {
+            "a", "Z", "I", "i", "0", "_", "word", "Hello", "IBM",
+            " ", "  ", "\t", "\n", "\u000B", "\f", "\r",
+            "\u2003", "\u001F", "\u00A0", "\u3000",
+            "-", ".", "'", "\u2014", "!?",
+            "\u00E9", "\u00DF", "\u0130", "\u03A3", "\uD83D\uDE00"};
+
+    private static final List<Pattern> IGNORED_WORDS = List.of(
+            Pattern.compile("the"),
+            Pattern.compile("^.{1,2}$"),
+            Pattern.compile("[0-9]+"),
+            Pattern.compile("hello!?"));
+
+    /**
+     * The pipeline the parser ran before it had a tokenizer.
+     */
+    private static List<String> originalWords(String text, WordFilter ignoredWords, Locale locale) {
+        Pattern whitespace = Pattern.compile("\\s+");
+        Pattern nonWordCharacters = Pattern.compile("\\W");
+        return Arrays.stream(whitespace.split(text.strip()))
+                .filter(s -> !s.isBlank())
+                .filter(s -> !ignoredWords.isIgnored(s))
+                .map(s -> nonWordCharacters.matcher(s).replaceAll(""))
+                .map(s -> s.toLowerCase(locale))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> tokenizedWords(String text, WordFilter ignoredWords, Locale locale) {
+        List<String> words = new ArrayList<>();
+        new WordTokenizer(ignoredWords, locale).tokenize(text, words::add);
+        return words;
+    }
+
+    @Test
+    public void sameWordsAsTheOriginalPipeline() {
+        Random random = new Random(24);
+        for (Locale locale : List.of(Locale.ROOT, Locale.ENGLISH, new Locale("tr"))) {
+            for (List<Pattern> patterns : List.of(List.<Pattern>of(), IGNORED_WORDS)) {
+                WordFilter ignoredWords = new WordFilter(patterns);
+                for (int i = 0; i < 20_000; i++) {
+                    StringBuilder text = new StringBuilder();
+                    for (int piece = random.nextInt(12); piece > 0; piece--) {
+                        text.append(PIECES[random.nextInt(PIECES.length)]);
+                    }
+                    assertWithMessage("Words of \"%s\" in %s", text, locale)
+                            .that(tokenizedWords(text.toString(), ignoredWords, locale))
+                            .containsExactlyElementsIn(
+                                    originalWords(text.toString(), ignoredWords, locale))
+                            .inOrder();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sameWordsForEdgeCases() {
+        WordFilter ignoredWords = new WordFilter(IGNORED_WORDS);
+        for (String text : List.of(
+                "",
+                " ",
+                "\u2003",
+                "\u2003 \u2003",
+                "-- The quick, brown fox --",
+                "Hello! hello!? HELLO",
+                "a\u00A0b \u001Fc\u001F",
+                "don't stop-believing 42 x_y")) {
+            for (Locale locale : List.of(Locale.ROOT, new Locale("az"))) {
+                assertWithMessage("Words of \"%s\" in %s", text, locale)
+                        .that(tokenizedWords(text, ignoredWords, locale))
+                        .containsExactlyElementsIn(originalWords(text, ignoredWords, locale))
+                        .inOrder();
+            }
+        }
+    }
+}
@@ -160,6 +160,20 @@ public final class ProfilerImplTest {
     assertThat(written).contains("0m 1s 0ms");
   }
 
+  @Test
+  public void testRecordedValues() throws Exception {
+    profiler.recordValue("com.udacity.webcrawler.profiler.ProfilerImplTest#threads", 4);
+    profiler.recordValue("com.udacity.webcrawler.profiler.ProfilerImplTest#threads", 6);
+
+    CloseableStringWriter writer = new CloseableStringWriter();
+    profiler.writeData(writer);
+    String written = writer.toString();
+    assertWithMessage("Only the last value recorded under a name should be written")
+        .that(written)
+        .contains("com.udacity.webcrawler.profiler.ProfilerImplTest#threads = 6");
+    assertThat(written).doesNotContain("#threads = 4");
+  }
+
   /**
    * A test interface that does not have any {@link Profiled} methods.
    */